@@ -0,0 +1,432 @@
+package org.stefaniuk.json.service.web;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * <p>
+ * HTTP/1.1 connection of {@link JsonServiceServer}.
+ * </p>
+ * <p>
+ * Bytes are read by the selector thread and split into requests, which may
+ * be pipelined. The requests of a connection are processed one after another
+ * by a worker thread, so the responses are queued in the order of the
+ * requests, and they are written back by the selector thread whenever the
+ * socket can take them. A connection holds no buffer larger than its
+ * unprocessed input and unwritten output.
+ * </p>
+ * <p>
+ * A request to upgrade to WebSocket is the last one read as HTTP. Once it has
+ * been accepted, the rest of the input is split into WebSocket frames, see
+ * {@link WebSocket}.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+final class HttpConnection implements Runnable {
+
+    /** Header fields are encoded in ISO-8859-1. */
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    /** End of the header section. */
+    private static final byte[] HEADER_END = { '\r', '\n', '\r', '\n' };
+
+    /** Interim response to a request that expects it before sending the body. */
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(ISO_8859_1);
+
+    /** Maximum size of the header section. */
+    private static final int MAX_HEADER_SIZE = 16384;
+
+    /** Maximum number of pipelined requests waiting to be processed. */
+    private static final int MAX_PIPELINED = 64;
+
+    /** Server the connection has been accepted by. */
+    private final JsonServiceServer server;
+
+    /** Socket channel */
+    private final SocketChannel channel;
+
+    /** Selection key of the channel. */
+    private final SelectionKey key;
+
+    /** Input which has not been split into requests yet. */
+    private byte[] input = new byte[0];
+
+    /** Number of bytes in the input buffer. */
+    private int length = 0;
+
+    /** Indicates that "100 Continue" has been sent for the current request. */
+    private boolean continued = false;
+
+    /** Requests waiting to be processed. */
+    private final LinkedList<HttpRequest> requests = new LinkedList<HttpRequest>();
+
+    /** Responses waiting to be written. */
+    private final LinkedList<HttpResponse> responses = new LinkedList<HttpResponse>();
+
+    /** Indicates that a worker thread is processing the requests. */
+    private boolean processing = false;
+
+    /** Indicates that the connection is closed once the responses are written. */
+    private boolean closing = false;
+
+    /** Indicates that a request to upgrade to WebSocket is being processed. */
+    private boolean upgrading = false;
+
+    /** WebSocket the connection has been upgraded to or null. */
+    private volatile WebSocket websocket = null;
+
+    /** Time the connection was last active. */
+    private volatile long active = System.currentTimeMillis();
+
+    /**
+     * Constructor
+     * 
+     * @param server Server the connection has been accepted by.
+     * @param channel Socket channel
+     * @param key Selection key of the channel.
+     */
+    HttpConnection(JsonServiceServer server, SocketChannel channel, SelectionKey key) {
+
+        this.server = server;
+        this.channel = channel;
+        this.key = key;
+    }
+
+    /**
+     * Reads bytes available in the channel. It is called by the selector
+     * thread.
+     * 
+     * @param buffer Buffer shared by all the connections.
+     * @throws IOException
+     */
+    void read(ByteBuffer buffer) throws IOException {
+
+        buffer.clear();
+        int count = channel.read(buffer);
+        if(count < 0) {
+            close();
+            return;
+        }
+        active = System.currentTimeMillis();
+
+        synchronized(this) {
+            if(closing) {
+                return;
+            }
+            if(length + count > input.length) {
+                input = Arrays.copyOf(input, Math.max(length + count, input.length * 2));
+            }
+            buffer.flip();
+            buffer.get(input, length, count);
+            length += count;
+
+            if(websocket != null) {
+                readFrames();
+                return;
+            }
+
+            HttpRequest request;
+            while(!closing && !upgrading && (request = parse()) != null) {
+                requests.add(request);
+                if(request.isUpgrade()) {
+                    // the rest of the input may be WebSocket frames
+                    upgrading = true;
+                }
+                else if(!request.isKeepAlive()) {
+                    closing = true;
+                }
+            }
+            if(!processing && !requests.isEmpty()) {
+                processing = true;
+                server.execute(this);
+            }
+            if(requests.size() >= MAX_PIPELINED) {
+                // stop reading until the requests have been processed
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    /**
+     * Splits next request off the input.
+     * 
+     * @return Returns request or null if it has not been read completely.
+     */
+    private HttpRequest parse() {
+
+        int end = indexOf(input, length, HEADER_END);
+        if(end < 0) {
+            return length > MAX_HEADER_SIZE ? new HttpRequest(431) : null;
+        }
+
+        String[] lines = new String(input, 0, end, ISO_8859_1).split("\r\n");
+        String[] line = lines[0].split(" ");
+        if(line.length != 3 || !line[2].startsWith("HTTP/1.")) {
+            return new HttpRequest(400);
+        }
+        Map<String, String> headers = new HashMap<String, String>();
+        for(int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if(colon <= 0) {
+                return new HttpRequest(400);
+            }
+            headers.put(lines[i].substring(0, colon).trim().toLowerCase(), lines[i].substring(colon + 1).trim());
+        }
+        if(headers.containsKey("transfer-encoding")) {
+            return new HttpRequest(411);
+        }
+
+        int size = 0;
+        if(headers.containsKey("content-length")) {
+            try {
+                size = Integer.parseInt(headers.get("content-length"));
+            }
+            catch(NumberFormatException e) {
+                return new HttpRequest(400);
+            }
+        }
+        if(size < 0) {
+            return new HttpRequest(400);
+        }
+        if(size > server.getMaxRequestSize()) {
+            return new HttpRequest(413);
+        }
+
+        int total = end + HEADER_END.length + size;
+        if(length < total) {
+            // the interim response must not overtake responses to pipelined requests
+            if(!continued && !processing && requests.isEmpty()
+                && "100-continue".equalsIgnoreCase(headers.get("expect"))) {
+                continued = true;
+                responses.add(new HttpResponse(ByteBuffer.wrap(CONTINUE)));
+                server.flush(this);
+            }
+            return null;
+        }
+        byte[] body = Arrays.copyOfRange(input, end + HEADER_END.length, total);
+        System.arraycopy(input, total, input, 0, length - total);
+        length -= total;
+        continued = false;
+
+        String connection = headers.get("connection");
+        boolean keepAlive = line[2].equals("HTTP/1.0")
+            ? "keep-alive".equalsIgnoreCase(connection)
+            : !"close".equalsIgnoreCase(connection);
+        String path = line[1];
+        int query = path.indexOf('?');
+        if(query >= 0) {
+            path = path.substring(0, query);
+        }
+
+        return new HttpRequest(line[0], path, headers, body, keepAlive);
+    }
+
+    /**
+     * Splits WebSocket frames off the input, as long as more messages can be
+     * in flight. Reading stops until then.
+     */
+    private void readFrames() {
+
+        while(!closing && length > 0 && !websocket.isSaturated()) {
+            int count = websocket.read(input, length);
+            if(count == 0) {
+                break;
+            }
+            System.arraycopy(input, count, input, 0, length - count);
+            length -= count;
+        }
+        if(closing) {
+            length = 0;
+        }
+        if(key.isValid() && (closing || websocket.isSaturated())) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Processes the requests one after another. It is called by a worker
+     * thread.
+     */
+    @Override
+    public void run() {
+
+        while(true) {
+            HttpRequest request;
+            synchronized(this) {
+                request = requests.poll();
+                if(request == null) {
+                    processing = false;
+                    if(closing) {
+                        // the connection can be closed now
+                        server.flush(this);
+                    }
+                    return;
+                }
+            }
+            if(request.isUpgrade()) {
+                upgrade(request);
+                continue;
+            }
+            HttpResponse response = server.respond(request);
+            synchronized(this) {
+                responses.add(response);
+            }
+            server.flush(this);
+        }
+    }
+
+    /**
+     * Switches the connection to WebSocket or refuses to do so.
+     */
+    private void upgrade(HttpRequest request) {
+
+        WebSocket socket = server.upgrade(this, request);
+        HttpResponse response = socket != null
+            ? new HttpResponse(WebSocket.handshake(request.getHeader("sec-websocket-key")))
+            : server.respond(request);
+        synchronized(this) {
+            upgrading = false;
+            responses.add(response);
+            if(socket != null) {
+                websocket = socket;
+            }
+            else {
+                closing = true;
+            }
+        }
+        server.flush(this);
+    }
+
+    /**
+     * Queues WebSocket frame to be written by the selector thread.
+     * 
+     * @param frame Frame
+     */
+    void send(ByteBuffer frame) {
+
+        synchronized(this) {
+            responses.add(new HttpResponse(frame));
+        }
+        server.flush(this);
+    }
+
+    /**
+     * Closes the connection once the responses have been written.
+     */
+    synchronized void closeAfterWrite() {
+
+        closing = true;
+    }
+
+    /**
+     * Writes as much of the responses as the channel can take. It is called
+     * by the selector thread.
+     * 
+     * @throws IOException
+     */
+    synchronized void write() throws IOException {
+
+        if(websocket != null) {
+            // frames left in the input when reading stopped
+            readFrames();
+        }
+
+        while(!responses.isEmpty()) {
+            if(!responses.getFirst().write(channel)) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+            responses.removeFirst();
+        }
+        active = System.currentTimeMillis();
+
+        if(closing && !processing && requests.isEmpty()) {
+            close();
+            return;
+        }
+        int ops = closing || websocket != null && websocket.isSaturated() ? 0 : SelectionKey.OP_READ;
+        if(key.isValid()) {
+            key.interestOps(ops);
+        }
+    }
+
+    /**
+     * Returns time the connection was last active.
+     * 
+     * @return Returns time in milliseconds.
+     */
+    long getActive() {
+
+        return active;
+    }
+
+    /**
+     * Indicates that the connection is idle, i.e. there are no requests
+     * being processed and no responses waiting to be written.
+     * 
+     * @return Returns true or false.
+     */
+    synchronized boolean isIdle() {
+
+        return !processing && requests.isEmpty() && responses.isEmpty()
+            && (websocket == null || websocket.getChannel().getInFlight() == 0);
+    }
+
+    /**
+     * Indicates that the connection has not been closed.
+     * 
+     * @return Returns true or false.
+     */
+    boolean isOpen() {
+
+        return key.isValid() && channel.isOpen();
+    }
+
+    /**
+     * Closes the connection.
+     */
+    void close() {
+
+        WebSocket socket = websocket;
+        if(socket != null) {
+            socket.getChannel().close();
+            server.removeChannel(socket.getChannel());
+        }
+        key.cancel();
+        try {
+            channel.close();
+        }
+        catch(IOException e) {
+            // already closed
+        }
+    }
+
+    /**
+     * Finds position of a sequence of bytes.
+     */
+    private static int indexOf(byte[] data, int length, byte[] sequence) {
+
+        for(int i = 0; i <= length - sequence.length; i++) {
+            int j = 0;
+            while(j < sequence.length && data[i + j] == sequence[j]) {
+                j++;
+            }
+            if(j == sequence.length) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+}
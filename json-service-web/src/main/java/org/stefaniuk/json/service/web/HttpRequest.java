@@ -0,0 +1,113 @@
+package org.stefaniuk.json.service.web;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * HTTP request read by {@link JsonServiceServer}.
+ * </p>
+ * <p>
+ * A request which could not be read carries the status of the error response
+ * instead of a body, and the connection is closed once it has been answered.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+final class HttpRequest {
+
+    /** HTTP method */
+    private final String method;
+
+    /** Request path without the query string. */
+    private final String path;
+
+    /** Header fields with lower case names. */
+    private final Map<String, String> headers;
+
+    /** Request body */
+    private final byte[] body;
+
+    /** Indicates that the connection is kept open after the response. */
+    private final boolean keepAlive;
+
+    /** Status of the error response or 0 if the request is valid. */
+    private final int error;
+
+    /**
+     * Constructor
+     * 
+     * @param method HTTP method
+     * @param path Request path without the query string.
+     * @param headers Header fields with lower case names.
+     * @param body Request body
+     * @param keepAlive Indicates that the connection is kept open after the
+     *        response.
+     */
+    HttpRequest(String method, String path, Map<String, String> headers, byte[] body, boolean keepAlive) {
+
+        this.method = method;
+        this.path = path;
+        this.headers = headers;
+        this.body = body;
+        this.keepAlive = keepAlive;
+        this.error = 0;
+    }
+
+    /**
+     * Constructor of a request which could not be read.
+     * 
+     * @param error Status of the error response.
+     */
+    HttpRequest(int error) {
+
+        this.method = null;
+        this.path = null;
+        this.headers = null;
+        this.body = null;
+        this.keepAlive = false;
+        this.error = error;
+    }
+
+    String getMethod() {
+
+        return method;
+    }
+
+    String getPath() {
+
+        return path;
+    }
+
+    String getHeader(String name) {
+
+        return headers.get(name.toLowerCase());
+    }
+
+    byte[] getBody() {
+
+        return body;
+    }
+
+    /**
+     * Indicates that the request asks to upgrade the connection to WebSocket.
+     * 
+     * @return Returns true or false.
+     */
+    boolean isUpgrade() {
+
+        return error == 0 && method.equals("GET") && "websocket".equalsIgnoreCase(getHeader("upgrade"));
+    }
+
+    boolean isKeepAlive() {
+
+        return keepAlive;
+    }
+
+    int getError() {
+
+        return error;
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.stefaniuk.json.service.web;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+import org.stefaniuk.json.service.JsonServiceBufferPool;
+
+/**
+ * <p>
+ * HTTP response written by {@link HttpConnection}.
+ * </p>
+ * <p>
+ * The head and the body of a response are kept in separate buffers and sent
+ * with a gathering write, so the body is written straight from the pooled
+ * buffer it has been serialised into. The pooled buffer is returned once the
+ * whole response has been written. WebSocket frames and interim responses
+ * are sent in the same way, as a single buffer.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+final class HttpResponse {
+
+    /** Buffers written one after another. */
+    private final ByteBuffer[] buffers;
+
+    /** Pooled body the last buffer wraps or null. */
+    private final JsonServiceBufferPool.Output body;
+
+    /**
+     * Constructor
+     * 
+     * @param buffers Buffers written one after another.
+     */
+    HttpResponse(ByteBuffer... buffers) {
+
+        this(null, buffers);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param body Pooled body the last buffer wraps, recycled once the
+     *        response has been written.
+     * @param buffers Buffers written one after another.
+     */
+    HttpResponse(JsonServiceBufferPool.Output body, ByteBuffer... buffers) {
+
+        this.body = body;
+        this.buffers = buffers;
+    }
+
+    /**
+     * Writes as much of the response as the channel can take.
+     * 
+     * @param channel Channel
+     * @return Returns true if the whole response has been written.
+     * @throws IOException
+     */
+    boolean write(GatheringByteChannel channel) throws IOException {
+
+        channel.write(buffers);
+        for(ByteBuffer buffer: buffers) {
+            if(buffer.hasRemaining()) {
+                return false;
+            }
+        }
+        if(body != null) {
+            body.recycle();
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,705 @@
+package org.stefaniuk.json.service.web;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.stefaniuk.json.service.JsonServiceBufferPool;
+import org.stefaniuk.json.service.JsonServiceChannel;
+import org.stefaniuk.json.service.JsonServiceCompression;
+import org.stefaniuk.json.service.JsonServiceDescriptor;
+import org.stefaniuk.json.service.JsonServiceInvoker.ContentType;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+
+/**
+ * <p>
+ * Embedded HTTP server of JSON services, which does not need a servlet
+ * container.
+ * </p>
+ * <p>
+ * A single selector thread accepts connections and transfers bytes of all of
+ * them, while the service methods are called by a pool of worker threads.
+ * Connections are kept alive according to HTTP/1.1 and requests can be
+ * pipelined; requests of a connection are processed in order. A service class
+ * is mapped to a path, e.g. <code>/example</code>, which answers
+ * <code>GET</code> with the Service Mapping Description and handles JSON-RPC
+ * calls sent by <code>POST</code>.
+ * </p>
+ * <p>
+ * The same path also accepts WebSocket connections. Each text message sent
+ * over a WebSocket is a JSON-RPC request or batch, and many of them can be in
+ * flight at once, so a client can make all its calls over one connection. The
+ * server can push notifications to the connected clients through their
+ * {@link #getChannels(String) channels}.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * 
+ * <pre>
+ * JsonServiceServer server = new JsonServiceServer(JsonServiceRegistry.getInstance(), 8080)
+ *     .addService(&quot;/example&quot;, ExampleService.class);
+ * server.start();
+ * </pre>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public class JsonServiceServer {
+
+    private final Logger logger = LoggerFactory.getLogger(JsonServiceServer.class);
+
+    /** Header fields are encoded in ISO-8859-1. */
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    /** Registry the requests are handled by. */
+    private final JsonServiceRegistry registry;
+
+    /** Address the server listens on. */
+    private final InetSocketAddress address;
+
+    /** Service classes mapped to paths. */
+    private final Map<String, Class<?>> services = new ConcurrentHashMap<String, Class<?>>();
+
+    /** Channels of the open WebSockets mapped to their paths. */
+    private final Map<JsonServiceChannel, String> channels = new ConcurrentHashMap<JsonServiceChannel, String>();
+
+    /** Connections that have responses to write. */
+    private final Queue<HttpConnection> flushes = new ConcurrentLinkedQueue<HttpConnection>();
+
+    /** Number of worker threads. */
+    private int workers = 16;
+
+    /** Time an idle connection is kept open for, in milliseconds. */
+    private long idleTimeout = 60000;
+
+    /** Maximum size of a request body. */
+    private volatile int maxRequestSize = 1024 * 1024;
+
+    /** Maximum number of messages in flight per WebSocket. */
+    private volatile int maxInFlight = 16;
+
+    /** Indicates that WebSocket replies are sent in the order of the messages. */
+    private volatile boolean ordered = false;
+
+    /** Worker threads. */
+    private ExecutorService executor;
+
+    private Selector selector;
+
+    private ServerSocketChannel channel;
+
+    /** Selector thread. */
+    private Thread thread;
+
+    private volatile boolean running = false;
+
+    /**
+     * Constructor
+     * 
+     * @param registry Registry the requests are handled by.
+     * @param port Port number or 0 to use any free port.
+     */
+    public JsonServiceServer(JsonServiceRegistry registry, int port) {
+
+        this(registry, new InetSocketAddress(port));
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param registry Registry the requests are handled by.
+     * @param address Address the server listens on.
+     */
+    public JsonServiceServer(JsonServiceRegistry registry, InetSocketAddress address) {
+
+        this.registry = registry;
+        this.address = address;
+    }
+
+    /**
+     * Maps service class to a path and registers it.
+     * 
+     * @param path Path, e.g. <code>/example</code>
+     * @param clazz Service class
+     * @return Returns this server.
+     */
+    public JsonServiceServer addService(String path, Class<?> clazz) {
+
+        registry.register(clazz);
+        services.put(path, clazz);
+
+        return this;
+    }
+
+    /**
+     * Sets number of worker threads, which call the service methods. It has
+     * to be set before the server is started.
+     * 
+     * @param workers Number of threads
+     * @return Returns this server.
+     */
+    public JsonServiceServer setWorkers(int workers) {
+
+        if(workers < 1) {
+            throw new IllegalArgumentException("Number of workers must be greater than zero");
+        }
+        this.workers = workers;
+
+        return this;
+    }
+
+    /**
+     * Sets time an idle connection is kept open for.
+     * 
+     * @param idleTimeout Timeout in milliseconds
+     * @return Returns this server.
+     */
+    public JsonServiceServer setIdleTimeout(long idleTimeout) {
+
+        this.idleTimeout = idleTimeout;
+
+        return this;
+    }
+
+    /**
+     * Sets maximum size of a request body. Larger requests are answered with
+     * <code>413 Request Entity Too Large</code>.
+     * 
+     * @param maxRequestSize Size in bytes
+     * @return Returns this server.
+     */
+    public JsonServiceServer setMaxRequestSize(int maxRequestSize) {
+
+        this.maxRequestSize = maxRequestSize;
+
+        return this;
+    }
+
+    int getMaxRequestSize() {
+
+        return maxRequestSize;
+    }
+
+    /**
+     * Sets maximum number of messages in flight per WebSocket. Once it is
+     * reached, nothing more is read from the connection until one of the
+     * messages has been replied to. It defaults to 16.
+     * 
+     * @param maxInFlight Number of messages
+     * @return Returns this server.
+     */
+    public JsonServiceServer setMaxInFlight(int maxInFlight) {
+
+        this.maxInFlight = maxInFlight;
+
+        return this;
+    }
+
+    /**
+     * Sets order of the replies sent over a WebSocket. By default they are
+     * sent as soon as they are ready and a client matches them by
+     * <code>id</code>.
+     * 
+     * @param ordered Indicates that replies are sent in the order of the
+     *        messages.
+     * @return Returns this server.
+     */
+    public JsonServiceServer setOrdered(boolean ordered) {
+
+        this.ordered = ordered;
+
+        return this;
+    }
+
+    /**
+     * Returns channels of the WebSockets open on a path, e.g. to send a
+     * notification to all of their clients.
+     * 
+     * @param path Path
+     * @return Returns list of channels.
+     */
+    public Collection<JsonServiceChannel> getChannels(String path) {
+
+        List<JsonServiceChannel> list = new ArrayList<JsonServiceChannel>();
+        for(Map.Entry<JsonServiceChannel, String> entry: channels.entrySet()) {
+            if(entry.getValue().equals(path)) {
+                list.add(entry.getKey());
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Starts the server.
+     * 
+     * @return Returns this server.
+     * @throws IOException
+     */
+    public synchronized JsonServiceServer start() throws IOException {
+
+        if(running) {
+            throw new IllegalStateException("Server is already running");
+        }
+
+        final AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+
+                Thread t = new Thread(r, "json-service-server-worker-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+
+        });
+        selector = Selector.open();
+        channel = ServerSocketChannel.open();
+        channel.configureBlocking(false);
+        channel.socket().setReuseAddress(true);
+        channel.socket().bind(address);
+        channel.register(selector, SelectionKey.OP_ACCEPT);
+
+        running = true;
+        thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                loop();
+            }
+
+        }, "json-service-server-selector");
+        thread.start();
+        logger.info("JSON service server listening on port " + getPort());
+
+        return this;
+    }
+
+    /**
+     * Stops the server and closes all its connections.
+     * 
+     * @throws InterruptedException
+     */
+    public synchronized void stop() throws InterruptedException {
+
+        if(!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        thread.join();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        logger.info("JSON service server stopped");
+    }
+
+    /**
+     * Returns port number the server listens on.
+     * 
+     * @return Returns port number or -1 if the server is not started.
+     */
+    public int getPort() {
+
+        return channel != null ? channel.socket().getLocalPort() : -1;
+    }
+
+    /**
+     * Selector loop.
+     */
+    private void loop() {
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(16384);
+        long checked = System.currentTimeMillis();
+        try {
+            while(running) {
+                selector.select(1000);
+
+                HttpConnection connection;
+                while((connection = flushes.poll()) != null) {
+                    if(connection.isOpen()) {
+                        write(connection);
+                    }
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if(!key.isValid()) {
+                        continue;
+                    }
+                    if(key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    connection = (HttpConnection) key.attachment();
+                    try {
+                        if(key.isReadable()) {
+                            connection.read(buffer);
+                        }
+                        if(key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                    }
+                    catch(IOException e) {
+                        connection.close();
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if(now - checked >= 1000) {
+                    checked = now;
+                    closeIdle(now);
+                }
+            }
+        }
+        catch(IOException e) {
+            e.printStackTrace(System.err);
+        }
+        finally {
+            for(SelectionKey key: selector.keys()) {
+                if(key.attachment() instanceof HttpConnection) {
+                    ((HttpConnection) key.attachment()).close();
+                }
+            }
+            try {
+                channel.close();
+                selector.close();
+            }
+            catch(IOException e) {
+                e.printStackTrace(System.err);
+            }
+        }
+    }
+
+    /**
+     * Accepts new connection.
+     */
+    private void accept() throws IOException {
+
+        SocketChannel socket = channel.accept();
+        if(socket == null) {
+            return;
+        }
+        socket.configureBlocking(false);
+        socket.socket().setTcpNoDelay(true);
+        SelectionKey key = socket.register(selector, SelectionKey.OP_READ);
+        key.attach(new HttpConnection(this, socket, key));
+    }
+
+    /**
+     * Writes responses of a connection.
+     */
+    private void write(HttpConnection connection) {
+
+        try {
+            connection.write();
+        }
+        catch(IOException e) {
+            connection.close();
+        }
+        catch(RuntimeException e) {
+            // the key has been cancelled
+            connection.close();
+        }
+    }
+
+    /**
+     * Closes connections that have been idle for longer than the timeout.
+     */
+    private void closeIdle(long now) {
+
+        for(SelectionKey key: selector.keys()) {
+            if(key.attachment() instanceof HttpConnection) {
+                HttpConnection connection = (HttpConnection) key.attachment();
+                if(now - connection.getActive() > idleTimeout && connection.isIdle()) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Submits processing of the requests of a connection to a worker thread.
+     */
+    void execute(HttpConnection connection) {
+
+        executor.execute(connection);
+    }
+
+    /**
+     * Schedules writing of the responses of a connection by the selector
+     * thread.
+     */
+    void flush(HttpConnection connection) {
+
+        if(!connection.isOpen()) {
+            return;
+        }
+        flushes.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Upgrades connection to WebSocket. It is called by a worker thread.
+     * 
+     * @return Returns WebSocket or null if the request cannot be accepted.
+     */
+    WebSocket upgrade(HttpConnection connection, HttpRequest request) {
+
+        Class<?> clazz = services.get(request.getPath());
+        if(clazz == null || request.getHeader("sec-websocket-key") == null
+            || !"13".equals(request.getHeader("sec-websocket-version"))) {
+            return null;
+        }
+
+        WebSocket socket = new WebSocket(this, connection, registry, clazz);
+        socket.getChannel().setExecutor(executor).setMaxInFlight(maxInFlight).setOrdered(ordered);
+        channels.put(socket.getChannel(), request.getPath());
+
+        return socket;
+    }
+
+    /**
+     * Forgets channel of a closed WebSocket.
+     */
+    void removeChannel(JsonServiceChannel channel) {
+
+        channels.remove(channel);
+    }
+
+    /**
+     * Handles request and returns the response. It is called by a worker
+     * thread.
+     */
+    HttpResponse respond(HttpRequest request) {
+
+        if(request.getError() != 0) {
+            return response(request.getError(), null, null, false);
+        }
+
+        Class<?> clazz = services.get(request.getPath());
+        if(clazz == null) {
+            return response(404, null, null, request.isKeepAlive());
+        }
+        if(request.isUpgrade()) {
+            // upgrade has been refused
+            return request.getHeader("sec-websocket-key") == null
+                ? response(400, null, null, false)
+                : response(426, "Sec-WebSocket-Version: 13\r\n", null, false);
+        }
+
+        if(request.getMethod().equals("GET")) {
+            return serviceMap(request, clazz);
+        }
+
+        JsonServiceBufferPool.Output body = new JsonServiceBufferPool.Output();
+        StringBuilder headers = new StringBuilder("Cache-Control: no-cache\r\n");
+        String coding = registry.getCompressionThreshold() >= 0
+            ? JsonServiceCompression.negotiate(request.getHeader("accept-encoding")) : null;
+        JsonServiceCompression.Output os = null;
+        if(coding != null) {
+            os = new JsonServiceCompression.Output(body, coding, registry.getCompressionThreshold());
+            headers.append("Vary: Accept-Encoding\r\n");
+        }
+
+        String contentType = "application/json; charset=UTF-8";
+        try {
+            if(request.getMethod().equals("POST")) {
+                ContentType requestType = ContentType.forRequest(request.getHeader("content-type"));
+                ContentType responseType = ContentType.forResponse(request.getHeader("accept"), requestType);
+                InputStream is;
+                try {
+                    is = JsonServiceCompression.decode(new ByteArrayInputStream(request.getBody()),
+                        request.getHeader("content-encoding"));
+                }
+                catch(IOException e) {
+                    // unsupported coding or broken header of a compressed body
+                    return response(400, null, null, request.isKeepAlive());
+                }
+                registry.handle(is, os != null ? os : body, clazz, requestType, responseType);
+                if(responseType.isBinary()) {
+                    contentType = responseType.toString();
+                }
+            }
+            else {
+                return response(405, "Allow: GET, POST\r\n", null, request.isKeepAlive());
+            }
+            if(os != null) {
+                os.finish();
+                if(os.isCompressed()) {
+                    headers.append("Content-Encoding: ").append(coding).append("\r\n");
+                }
+            }
+        }
+        catch(IOException e) {
+            // not thrown by a byte array
+            throw new IllegalStateException(e);
+        }
+
+        // the body is written from the pooled buffer and recycled afterwards
+        ByteBuffer content = body.toByteBuffer();
+
+        return new HttpResponse(body, head(200, "Content-Type: " + contentType + "\r\n" + headers,
+            content.remaining(), request.isKeepAlive()), content);
+    }
+
+    /**
+     * Returns Service Mapping Description rendered in advance, or "304 Not
+     * Modified" if the client has it already.
+     */
+    private HttpResponse serviceMap(HttpRequest request, Class<?> clazz) {
+
+        JsonServiceDescriptor descriptor = registry.getDescriptor(clazz);
+        int threshold = registry.getCompressionThreshold();
+        boolean gzip = threshold >= 0 && descriptor.getServiceMapBytes(false).length > threshold
+            && JsonServiceCompression.GZIP.equals(JsonServiceCompression.negotiate(request
+                .getHeader("accept-encoding")));
+
+        StringBuilder headers = new StringBuilder("Cache-Control: no-cache\r\n");
+        if(threshold >= 0) {
+            headers.append("Vary: Accept-Encoding\r\n");
+        }
+        headers.append("ETag: ").append(descriptor.getETag(gzip)).append("\r\n");
+        if(descriptor.isNotModified(request.getHeader("if-none-match"))) {
+            return response(304, headers.toString(), null, request.isKeepAlive());
+        }
+        if(gzip) {
+            headers.append("Content-Encoding: gzip\r\n");
+        }
+
+        return response(200, "Content-Type: application/json; charset=UTF-8\r\n" + headers,
+            descriptor.getServiceMapBytes(gzip), request.isKeepAlive());
+    }
+
+    /**
+     * Builds response.
+     */
+    private static HttpResponse response(int status, String headers, byte[] body, boolean keepAlive) {
+
+        int length = body != null ? body.length : 0;
+        ByteBuffer head = head(status, headers, length, keepAlive);
+
+        return body != null ? new HttpResponse(head, ByteBuffer.wrap(body)) : new HttpResponse(head);
+    }
+
+    /**
+     * Builds status line and header fields of a response.
+     */
+    private static ByteBuffer head(int status, String headers, int length, boolean keepAlive) {
+
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("HTTP/1.1 ").append(status).append(' ').append(reason(status)).append("\r\n");
+        if(headers != null) {
+            sb.append(headers);
+        }
+        if(status != 304) {
+            sb.append("Content-Length: ").append(length).append("\r\n");
+        }
+        if(!keepAlive) {
+            sb.append("Connection: close\r\n");
+        }
+        sb.append("\r\n");
+
+        return ByteBuffer.wrap(sb.toString().getBytes(ISO_8859_1));
+    }
+
+    private static String reason(int status) {
+
+        switch(status) {
+            case 200:
+                return "OK";
+            case 304:
+                return "Not Modified";
+            case 400:
+                return "Bad Request";
+            case 404:
+                return "Not Found";
+            case 405:
+                return "Method Not Allowed";
+            case 411:
+                return "Length Required";
+            case 413:
+                return "Request Entity Too Large";
+            case 426:
+                return "Upgrade Required";
+            case 431:
+                return "Request Header Fields Too Large";
+            default:
+                return "Error";
+        }
+    }
+
+    /**
+     * Starts server from the command line.
+     * 
+     * <pre>
+     * java org.stefaniuk.json.service.web.JsonServiceServer &lt;port&gt; &lt;path&gt;=&lt;class&gt; ...
+     * </pre>
+     * 
+     * @param args Port number followed by service classes mapped to paths,
+     *        e.g. <code>8080 /example=org.example.service.ExampleService</code>
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+
+        if(args.length < 2) {
+            System.err.println("Usage: java " + JsonServiceServer.class.getName() + " <port> <path>=<class> ...");
+            System.exit(1);
+        }
+
+        final JsonServiceServer server = new JsonServiceServer(JsonServiceRegistry.getInstance(),
+            Integer.parseInt(args[0]));
+        for(int i = 1; i < args.length; i++) {
+            int eq = args[i].indexOf('=');
+            if(eq <= 0) {
+                System.err.println("Invalid service mapping: " + args[i]);
+                System.exit(1);
+            }
+            server.addService(args[i].substring(0, eq), Class.forName(args[i].substring(eq + 1)));
+        }
+        server.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+
+            @Override
+            public void run() {
+
+                try {
+                    server.stop();
+                }
+                catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+        });
+    }
+
+}
@@ -0,0 +1,308 @@
+package org.stefaniuk.json.service.web;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import org.stefaniuk.json.service.JsonServiceChannel;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+
+/**
+ * <p>
+ * WebSocket (RFC 6455) of {@link JsonServiceServer}.
+ * </p>
+ * <p>
+ * A connection upgraded to WebSocket carries JSON-RPC messages in text frames.
+ * Frames are split off the input by the selector thread, and each complete
+ * message is handed over to a {@link JsonServiceChannel}, which handles it on a
+ * worker thread and sends the reply back as a text frame. Once the maximum
+ * number of messages is in flight, the connection stops reading until one of
+ * them has been replied to. Ping frames are answered and a close frame is
+ * echoed before the connection is closed.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+final class WebSocket implements JsonServiceChannel.Sender {
+
+    /** Header fields are encoded in ISO-8859-1. */
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    /** Key appended to the one sent by a client to compute the handshake. */
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private static final int CONTINUATION = 0x0;
+
+    private static final int TEXT = 0x1;
+
+    private static final int BINARY = 0x2;
+
+    private static final int CLOSE = 0x8;
+
+    private static final int PING = 0x9;
+
+    private static final int PONG = 0xa;
+
+    /** Status of a normal closure. */
+    private static final int NORMAL = 1000;
+
+    /** Status of a closure caused by an invalid frame. */
+    private static final int PROTOCOL_ERROR = 1002;
+
+    /** Status of a closure caused by a message that is too big. */
+    private static final int TOO_BIG = 1009;
+
+    /** Connection the socket has been upgraded from. */
+    private final HttpConnection connection;
+
+    /** Channel the messages are handled by. */
+    private final JsonServiceChannel channel;
+
+    /** Maximum size of a message. */
+    private final int maxMessageSize;
+
+    /** Fragments of the message being read or null. */
+    private ByteArrayOutputStream fragments = null;
+
+    /** Indicates that a close frame has been sent. */
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     * 
+     * @param server Server the connection has been accepted by.
+     * @param connection Connection the socket has been upgraded from.
+     * @param registry Registry the messages are handled by.
+     * @param clazz Registered class
+     */
+    WebSocket(final JsonServiceServer server, final HttpConnection connection, JsonServiceRegistry registry,
+            Class<?> clazz) {
+
+        this.connection = connection;
+        this.maxMessageSize = server.getMaxRequestSize();
+        this.channel = new JsonServiceChannel(registry, clazz, this) {
+
+            @Override
+            protected void released() {
+
+                // resume reading
+                server.flush(connection);
+            }
+
+        };
+    }
+
+    /**
+     * Returns channel the messages are handled by.
+     * 
+     * @return Returns {@link JsonServiceChannel} object.
+     */
+    JsonServiceChannel getChannel() {
+
+        return channel;
+    }
+
+    /**
+     * Builds response that completes the opening handshake.
+     * 
+     * @param key Value of the <code>Sec-WebSocket-Key</code> header.
+     * @return Returns response.
+     */
+    static ByteBuffer handshake(String key) {
+
+        String accept;
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            accept = Base64.getEncoder().encodeToString(sha1.digest((key.trim() + GUID).getBytes(ISO_8859_1)));
+        }
+        catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        String response = "HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+            + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n";
+
+        return ByteBuffer.wrap(response.getBytes(ISO_8859_1));
+    }
+
+    /**
+     * Indicates that no more messages are read until a reply has been sent.
+     * 
+     * @return Returns true or false.
+     */
+    boolean isSaturated() {
+
+        return channel.isSaturated();
+    }
+
+    /**
+     * Splits next frame off the input and handles it. It is called by the
+     * selector thread.
+     * 
+     * @param data Input
+     * @param length Number of bytes in the input.
+     * @return Returns number of bytes the frame took or 0 if it has not been
+     *         read completely.
+     */
+    int read(byte[] data, int length) {
+
+        if(length < 2) {
+            return 0;
+        }
+        boolean fin = (data[0] & 0x80) != 0;
+        int opcode = data[0] & 0x0f;
+        if((data[1] & 0x80) == 0) {
+            // frames sent by a client must be masked
+            return fail(PROTOCOL_ERROR, length);
+        }
+        long size = data[1] & 0x7f;
+        int offset = 2;
+        if(size == 126) {
+            if(length < 4) {
+                return 0;
+            }
+            size = (data[2] & 0xff) << 8 | data[3] & 0xff;
+            offset = 4;
+        }
+        else if(size == 127) {
+            if(length < 10) {
+                return 0;
+            }
+            size = 0;
+            for(int i = 2; i < 10; i++) {
+                size = size << 8 | data[i] & 0xff;
+            }
+            offset = 10;
+        }
+        if(size < 0 || size > maxMessageSize) {
+            return fail(TOO_BIG, length);
+        }
+        int total = offset + 4 + (int) size;
+        if(length < total) {
+            return 0;
+        }
+
+        byte[] payload = new byte[(int) size];
+        for(int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (data[offset + 4 + i] ^ data[offset + (i & 3)]);
+        }
+        handle(fin, opcode, payload);
+
+        return total;
+    }
+
+    /**
+     * Handles frame.
+     */
+    private void handle(boolean fin, int opcode, byte[] payload) {
+
+        if(opcode >= CLOSE) {
+            if(!fin || payload.length > 125) {
+                fail(PROTOCOL_ERROR, 0);
+            }
+            else if(opcode == PING) {
+                connection.send(frame(PONG, payload));
+            }
+            else if(opcode == CLOSE) {
+                close(payload.length >= 2 ? (payload[0] & 0xff) << 8 | payload[1] & 0xff : NORMAL);
+            }
+            else if(opcode != PONG) {
+                fail(PROTOCOL_ERROR, 0);
+            }
+            return;
+        }
+
+        if(opcode == CONTINUATION) {
+            if(fragments == null) {
+                fail(PROTOCOL_ERROR, 0);
+                return;
+            }
+        }
+        else if((opcode == TEXT || opcode == BINARY) && fragments == null) {
+            fragments = new ByteArrayOutputStream(payload.length);
+        }
+        else {
+            fail(PROTOCOL_ERROR, 0);
+            return;
+        }
+        if(fragments.size() + payload.length > maxMessageSize) {
+            fail(TOO_BIG, 0);
+            return;
+        }
+        fragments.write(payload, 0, payload.length);
+        if(fin) {
+            byte[] message = fragments.toByteArray();
+            fragments = null;
+            channel.offer(message);
+        }
+    }
+
+    /**
+     * Sends reply as a text frame. It is called by a worker thread.
+     */
+    @Override
+    public void send(byte[] message) {
+
+        connection.send(frame(TEXT, message));
+    }
+
+    /**
+     * Sends close frame, unless it has been sent already, and closes the
+     * connection once it has been written.
+     * 
+     * @param status Status code
+     */
+    void close(int status) {
+
+        if(!closed) {
+            closed = true;
+            channel.close();
+            connection.send(frame(CLOSE, new byte[] { (byte) (status >> 8), (byte) status }));
+            connection.closeAfterWrite();
+        }
+    }
+
+    /**
+     * Fails the connection.
+     * 
+     * @return Returns number of bytes to discard.
+     */
+    private int fail(int status, int length) {
+
+        fragments = null;
+        close(status);
+
+        return length;
+    }
+
+    /**
+     * Builds unmasked frame.
+     */
+    private static ByteBuffer frame(int opcode, byte[] payload) {
+
+        int length = payload.length;
+        int header = length < 126 ? 2 : length < 65536 ? 4 : 10;
+        ByteBuffer frame = ByteBuffer.allocate(header + length);
+        frame.put((byte) (0x80 | opcode));
+        if(length < 126) {
+            frame.put((byte) length);
+        }
+        else if(length < 65536) {
+            frame.put((byte) 126);
+            frame.putShort((short) length);
+        }
+        else {
+            frame.put((byte) 127);
+            frame.putLong(length);
+        }
+        frame.put(payload);
+        frame.flip();
+
+        return frame;
+    }
+
+}
@@ -0,0 +1,179 @@
+package org.stefaniuk.json.service.web.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.web.JsonServiceServer;
+import org.stefaniuk.json.service.web.test.service.EchoService;
+
+public class JsonServiceServerTest {
+
+    private JsonServiceServer server;
+
+    private Socket socket;
+
+    @Before
+    public void setUp() throws Exception {
+
+        server = new JsonServiceServer(new JsonServiceRegistry(), 0).addService("/echo", EchoService.class).start();
+        socket = new Socket("localhost", server.getPort());
+        socket.setSoTimeout(5000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        socket.close();
+        server.stop();
+    }
+
+    @Test
+    public void testServiceMap() throws Exception {
+
+        send("GET /echo HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        String[] response = read();
+
+        assertTrue(response[0].startsWith("HTTP/1.1 200 OK"));
+        assertTrue(response[1].contains("\"echo\""));
+    }
+
+    @Test
+    public void testCall() throws Exception {
+
+        send(post("/echo", "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"abc\"]}", ""));
+        String[] response = read();
+
+        assertTrue(response[0].startsWith("HTTP/1.1 200 OK"));
+        assertTrue(response[1].contains("\"result\":\"Echo service says: abc\""));
+    }
+
+    @Test
+    public void testKeepAlive() throws Exception {
+
+        for(int i = 1; i <= 3; i++) {
+            send(post("/echo", "{\"jsonrpc\":\"2.0\",\"id\":" + i + ",\"method\":\"echo\",\"params\":[\"abc\"]}", ""));
+            String[] response = read();
+            assertTrue(response[1].contains("\"id\":" + i + ","));
+        }
+    }
+
+    @Test
+    public void testPipelining() throws Exception {
+
+        // the first call is the slowest one but its response has to come first
+        send(post("/echo", "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"sleep\",\"params\":[\"a\",200]}", "")
+            + post("/echo", "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"sleep\",\"params\":[\"b\",0]}", "")
+            + "GET /echo HTTP/1.1\r\nHost: localhost\r\n\r\n");
+
+        assertTrue(read()[1].contains("\"result\":\"a\""));
+        assertTrue(read()[1].contains("\"result\":\"b\""));
+        assertTrue(read()[1].contains("\"sleep\""));
+    }
+
+    @Test
+    public void testLargeResponse() throws Exception {
+
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < 50000; i++) {
+            text.append("abcdefghij");
+        }
+        send(post("/echo", "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"" + text + "\"]}", "")
+            + post("/echo", "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"echo\",\"params\":[\"abc\"]}", ""));
+
+        // the head and the body written apart make up the whole response
+        String[] response = read();
+        assertTrue(response[0].startsWith("HTTP/1.1 200 OK"));
+        assertTrue(response[1].contains("\"result\":\"Echo service says: " + text + "\""));
+        assertTrue(response[1].endsWith("}"));
+        assertTrue(read()[1].contains("\"id\":2,"));
+    }
+
+    @Test
+    public void testConnectionClose() throws Exception {
+
+        send(post("/echo", "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"abc\"]}",
+            "Connection: close\r\n"));
+        String[] response = read();
+
+        assertTrue(response[0].contains("Connection: close"));
+        assertEquals(-1, socket.getInputStream().read());
+    }
+
+    @Test
+    public void testContinue() throws Exception {
+
+        String body = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"abc\"]}";
+        send("POST /echo HTTP/1.1\r\nHost: localhost\r\nExpect: 100-continue\r\nContent-Length: " + body.length()
+            + "\r\n\r\n");
+        assertTrue(read()[0].startsWith("HTTP/1.1 100 Continue"));
+
+        send(body);
+        assertTrue(read()[1].contains("\"result\":\"Echo service says: abc\""));
+    }
+
+    @Test
+    public void testNotFound() throws Exception {
+
+        send("GET /unknown HTTP/1.1\r\nHost: localhost\r\n\r\n");
+
+        assertTrue(read()[0].startsWith("HTTP/1.1 404 Not Found"));
+    }
+
+    @Test
+    public void testLengthRequired() throws Exception {
+
+        send("POST /echo HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n");
+
+        assertTrue(read()[0].startsWith("HTTP/1.1 411 Length Required"));
+    }
+
+    private static String post(String path, String body, String headers) {
+
+        return "POST " + path + " HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n" + headers
+            + "Content-Length: " + body.length() + "\r\n\r\n" + body;
+    }
+
+    private void send(String request) throws IOException {
+
+        OutputStream os = socket.getOutputStream();
+        os.write(request.getBytes("UTF-8"));
+        os.flush();
+    }
+
+    /**
+     * Reads one response and returns its header section and body.
+     */
+    private String[] read() throws IOException {
+
+        InputStream is = socket.getInputStream();
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int b;
+        while(!head.toString("ISO-8859-1").endsWith("\r\n\r\n") && (b = is.read()) >= 0) {
+            head.write(b);
+        }
+        String header = head.toString("ISO-8859-1");
+        int length = 0;
+        for(String line: header.split("\r\n")) {
+            if(line.toLowerCase().startsWith("content-length:")) {
+                length = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        byte[] body = new byte[length];
+        for(int n = 0; n < length;) {
+            n += is.read(body, n, length - n);
+        }
+
+        return new String[] { header, new String(body, "UTF-8") };
+    }
+
+}
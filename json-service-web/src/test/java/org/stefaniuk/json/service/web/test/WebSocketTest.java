@@ -0,0 +1,203 @@
+package org.stefaniuk.json.service.web.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceChannel;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.web.JsonServiceServer;
+import org.stefaniuk.json.service.web.test.service.EchoService;
+
+public class WebSocketTest {
+
+    private JsonServiceServer server;
+
+    private Socket socket;
+
+    private DataInputStream input;
+
+    @Before
+    public void setUp() throws Exception {
+
+        server = new JsonServiceServer(new JsonServiceRegistry(), 0).addService("/echo", EchoService.class).start();
+        socket = new Socket("localhost", server.getPort());
+        socket.setSoTimeout(5000);
+        input = new DataInputStream(socket.getInputStream());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        socket.close();
+        server.stop();
+    }
+
+    @Test
+    public void testHandshake() throws Exception {
+
+        // example from RFC 6455
+        String head = upgrade("dGhlIHNhbXBsZSBub25jZQ==");
+
+        assertTrue(head.startsWith("HTTP/1.1 101 Switching Protocols"));
+        assertTrue(head.contains("Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo="));
+    }
+
+    @Test
+    public void testCall() throws Exception {
+
+        upgrade("dGhlIHNhbXBsZSBub25jZQ==");
+        send(0x1, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"abc\"]}");
+
+        assertTrue(read().contains("\"result\":\"Echo service says: abc\""));
+    }
+
+    @Test
+    public void testMultiplexing() throws Exception {
+
+        upgrade("dGhlIHNhbXBsZSBub25jZQ==");
+        send(0x1, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"sleep\",\"params\":[\"a\",300]}");
+        send(0x1, "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"sleep\",\"params\":[\"b\",0]}");
+
+        // replies come as soon as they are ready
+        assertTrue(read().contains("\"result\":\"b\""));
+        assertTrue(read().contains("\"result\":\"a\""));
+    }
+
+    @Test
+    public void testFragmentedMessage() throws Exception {
+
+        upgrade("dGhlIHNhbXBsZSBub25jZQ==");
+        String message = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"abc\"]}";
+        frame(false, 0x1, message.substring(0, 20));
+        frame(true, 0x0, message.substring(20));
+
+        assertTrue(read().contains("\"result\":\"Echo service says: abc\""));
+    }
+
+    @Test
+    public void testServerNotification() throws Exception {
+
+        upgrade("dGhlIHNhbXBsZSBub25jZQ==");
+        for(int i = 0; i < 100 && server.getChannels("/echo").isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        for(JsonServiceChannel channel: server.getChannels("/echo")) {
+            channel.sendNotification("update", "abc");
+        }
+
+        assertEquals("{\"jsonrpc\":\"2.0\",\"method\":\"update\",\"params\":[\"abc\"]}", read());
+    }
+
+    @Test
+    public void testPingAndClose() throws Exception {
+
+        upgrade("dGhlIHNhbXBsZSBub25jZQ==");
+        send(0x9, "ping");
+        assertEquals(0x8a, input.readUnsignedByte());
+        assertEquals("ping", payload());
+
+        send(0x8, "");
+        assertEquals(0x88, input.readUnsignedByte());
+        payload();
+        assertEquals(-1, input.read());
+    }
+
+    @Test
+    public void testUnsupportedVersion() throws Exception {
+
+        OutputStream os = socket.getOutputStream();
+        os.write(("GET /echo HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+            + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\nSec-WebSocket-Version: 8\r\n\r\n").getBytes("UTF-8"));
+        os.flush();
+
+        assertTrue(head().startsWith("HTTP/1.1 426 Upgrade Required"));
+    }
+
+    private String upgrade(String key) throws IOException {
+
+        OutputStream os = socket.getOutputStream();
+        os.write(("GET /echo HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+            + "Sec-WebSocket-Key: " + key + "\r\nSec-WebSocket-Version: 13\r\n\r\n").getBytes("UTF-8"));
+        os.flush();
+
+        return head();
+    }
+
+    private String head() throws IOException {
+
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int b;
+        while(!head.toString("ISO-8859-1").endsWith("\r\n\r\n") && (b = input.read()) >= 0) {
+            head.write(b);
+        }
+
+        return head.toString("ISO-8859-1");
+    }
+
+    private void send(int opcode, String text) throws IOException {
+
+        frame(true, opcode, text);
+    }
+
+    /**
+     * Writes masked frame, as a client has to.
+     */
+    private void frame(boolean fin, int opcode, String text) throws IOException {
+
+        byte[] payload = text.getBytes("UTF-8");
+        byte[] mask = { 1, 2, 3, 4 };
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write((fin ? 0x80 : 0) | opcode);
+        if(payload.length < 126) {
+            frame.write(0x80 | payload.length);
+        }
+        else {
+            frame.write(0x80 | 126);
+            frame.write(payload.length >> 8);
+            frame.write(payload.length);
+        }
+        frame.write(mask);
+        for(int i = 0; i < payload.length; i++) {
+            frame.write(payload[i] ^ mask[i & 3]);
+        }
+        OutputStream os = socket.getOutputStream();
+        os.write(frame.toByteArray());
+        os.flush();
+    }
+
+    /**
+     * Reads text frame.
+     */
+    private String read() throws IOException {
+
+        assertEquals(0x81, input.readUnsignedByte());
+
+        return payload();
+    }
+
+    private String payload() throws IOException {
+
+        int length = input.readUnsignedByte();
+        if(length == 126) {
+            length = input.readUnsignedShort();
+        }
+        else if(length == 127) {
+            length = (int) input.readLong();
+        }
+        byte[] payload = new byte[length];
+        input.readFully(payload);
+
+        return new String(payload, "UTF-8");
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.stefaniuk.json.service.web.test.service;
+
+import org.stefaniuk.json.service.JsonService;
+
+public class EchoService {
+
+    @JsonService
+    public String echo(String text) {
+
+        return "Echo service says: " + text;
+    }
+
+    @JsonService
+    public String sleep(String text, Integer millis) throws InterruptedException {
+
+        Thread.sleep(millis);
+
+        return text;
+    }
+
+}
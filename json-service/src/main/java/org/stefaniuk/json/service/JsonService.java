@@ -53,4 +53,32 @@ public @interface JsonService {
     /** This is a description of the service. */
     String description() default "";
 
+    /**
+     * Indicates that a method must not run concurrently with other calls of
+     * the same batch request, even if {@link JsonServiceRegistry} executes
+     * batches in parallel.
+     */
+    boolean sequential() default false;
+
+    /**
+     * Time in milliseconds a result of a method is cached for, or 0 not to
+     * cache it. It is meant for read-only methods that return the same result
+     * for the same parameters. A method with a parameter of type
+     * {@link javax.servlet.http.HttpServletRequest} is never cached, as its
+     * result may depend on the request.
+     */
+    long cacheTtl() default 0;
+
+    /** Maximum number of results of a method that are cached. */
+    int cacheSize() default 1000;
+
+    /**
+     * Indicates that identical calls of a method, i.e. with the same
+     * parameters, that arrive while one of them is running, wait for its
+     * result instead of calling the method again. It is meant for methods
+     * without side effects. The same restrictions apply as to
+     * {@link #cacheTtl()}.
+     */
+    boolean coalesce() default false;
+
 }
@@ -0,0 +1,193 @@
+package org.stefaniuk.json.service;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+
+import org.codehaus.jackson.JsonGenerator;
+
+/**
+ * <p>
+ * JSON service asynchronous response.
+ * </p>
+ * <p>
+ * Completes asynchronous processing of a request whose method has returned a
+ * future result. The container thread is released as soon as the processing
+ * has started, and the response is written by the thread that completes the
+ * {@link CompletionStage}. A plain {@link java.util.concurrent.Future} has no
+ * way to notify anyone, so it is waited for by a thread started through
+ * {@link AsyncContext#start(Runnable)}. If the result does not arrive before
+ * the asynchronous processing times out, "Server error" is returned instead.
+ * </p>
+ * <p>
+ * A call that has not been started yet can also be run as a whole on another
+ * executor, e.g. one that starts a virtual thread for each call, so that a
+ * blocking method does not hold the container thread.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+final class JsonServiceAsyncResponse implements AsyncListener {
+
+    /** This is the service invoker object. */
+    private final JsonServiceInvoker invoker;
+
+    /** Call waiting for a future result. */
+    private final JsonServiceCall call;
+
+    /** Generator the response is written to. */
+    private final JsonGenerator generator;
+
+    /** Asynchronous processing of the request. */
+    private final AsyncContext context;
+
+    /** Indicates that the response has been written. */
+    private final AtomicBoolean written = new AtomicBoolean();
+
+    /**
+     * Constructor
+     * 
+     * @param invoker This is the service invoker object.
+     * @param call Call waiting for a future result.
+     * @param generator Generator the response is written to. It is closed
+     *        once the response has been written.
+     * @param context Asynchronous processing of the request.
+     */
+    JsonServiceAsyncResponse(JsonServiceInvoker invoker, JsonServiceCall call, JsonGenerator generator,
+            AsyncContext context) {
+
+        this.invoker = invoker;
+        this.call = call;
+        this.generator = generator;
+        this.context = context;
+    }
+
+    /**
+     * Waits for the result without blocking the current thread.
+     */
+    void start() {
+
+        context.addListener(this);
+
+        Object deferred = call.getDeferred();
+        if(deferred instanceof CompletionStage) {
+            ((CompletionStage<?>) deferred).whenComplete(new BiConsumer<Object, Throwable>() {
+
+                @Override
+                public void accept(Object value, Throwable failure) {
+
+                    if(call.complete(value, failure)) {
+                        write();
+                    }
+                }
+
+            });
+        }
+        else {
+            context.start(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    if(call.await(0)) {
+                        write();
+                    }
+                }
+
+            });
+        }
+    }
+
+    /**
+     * Runs the call on an executor without blocking the current thread.
+     * 
+     * @param executor Executor or null to use a thread of the container.
+     * @param timeout Maximum time to wait for a future result returned by the
+     *        method in milliseconds or 0.
+     */
+    void fork(Executor executor, final long timeout) {
+
+        context.addListener(this);
+
+        Runnable task = new Runnable() {
+
+            @Override
+            public void run() {
+
+                call.invoke(timeout);
+                write();
+            }
+
+        };
+        if(executor != null) {
+            executor.execute(task);
+        }
+        else {
+            context.start(task);
+        }
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) throws IOException {
+
+        if(call.fail(JsonServiceError.SERVER_ERROR)) {
+            write();
+        }
+    }
+
+    @Override
+    public void onError(AsyncEvent event) throws IOException {
+
+        // the response cannot be written any more
+        if(call.fail(JsonServiceError.INTERNAL_ERROR)) {
+            context.complete();
+        }
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) throws IOException {
+
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) throws IOException {
+
+    }
+
+    /**
+     * Writes response of the completed call and completes the asynchronous
+     * processing, unless it has been done already.
+     */
+    private void write() {
+
+        if(!written.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            try {
+                invoker.write(generator, call);
+            }
+            catch(InvocationTargetException e) {
+                e.printStackTrace(System.err);
+                invoker.write(generator, new JsonServiceCall(call.getId(), JsonServiceError.INVALID_REQUEST));
+            }
+            generator.close();
+        }
+        catch(Exception e) {
+            e.printStackTrace(System.err);
+        }
+        finally {
+            context.complete();
+        }
+    }
+
+}
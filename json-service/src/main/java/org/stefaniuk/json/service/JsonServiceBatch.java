@@ -0,0 +1,287 @@
+package org.stefaniuk.json.service;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.codehaus.jackson.JsonGenerator;
+import org.stefaniuk.json.service.JsonServiceRegistry.BatchOrder;
+
+/**
+ * <p>
+ * JSON service batch.
+ * </p>
+ * <p>
+ * Executes calls of a single batch request. Calls are read and responses are
+ * written by the thread that handles the request, but if an executor is given
+ * the methods are called on it, with no more than a given number of calls of
+ * the batch running at the same time. Responses are written either in the
+ * order of the requests or in the order the calls complete; a client matches
+ * them by <code>id</code> in both cases. A call of a method marked as
+ * {@link JsonService#sequential() sequential} waits until all calls started
+ * before it have completed and then runs alone on the request thread. A
+ * future result returned by a method is waited for by the thread the method
+ * has been called on.
+ * </p>
+ * <p>
+ * Responses are not flushed one by one. The generator is flushed whenever
+ * the request thread is about to wait for a call, so the responses written so
+ * far reach a client before the slowest call completes. A servlet response
+ * flushed this way is sent with chunked encoding rather than held back for
+ * its length, see {@link JsonServiceResponseBody}, unless it is held back
+ * until it is large enough to be compressed. At the end of the batch the
+ * generator is only drained into its stream. A method that throws an exception other than
+ * {@link JsonServiceException} is answered with an "Invalid request" error,
+ * without aborting the rest of the batch.
+ * </p>
+ * <p>
+ * Notifications are not answered. They are added to the notification queue
+ * if there is one, otherwise they are executed on the request thread. The
+ * array of responses is started only when the first response is written, so
+ * nothing at all is written for a batch of notifications.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+final class JsonServiceBatch {
+
+    /** This is the service invoker object. */
+    private final JsonServiceInvoker invoker;
+
+    /** Generator the responses are written to. */
+    private final JsonGenerator generator;
+
+    /** Executor the calls are run on or null to run them one after another. */
+    private final Executor executor;
+
+    /** Maximum number of calls running at the same time. */
+    private final int parallelism;
+
+    /** Order of the responses. */
+    private final BatchOrder order;
+
+    /** Queue notifications are executed from or null. */
+    private final JsonServiceNotificationQueue notifications;
+
+    /** Maximum time to wait for a future result in milliseconds. */
+    private final long timeout;
+
+    /** Calls which responses have not been written yet, in request order. */
+    private final LinkedList<JsonServiceCall> pending = new LinkedList<JsonServiceCall>();
+
+    /** Calls completed by the executor. */
+    private final BlockingQueue<JsonServiceCall> completed = new LinkedBlockingQueue<JsonServiceCall>();
+
+    /** Number of calls submitted to the executor and not taken back yet. */
+    private int running = 0;
+
+    /** Indicates that the array of responses has been started. */
+    private boolean started = false;
+
+    /** Indicates that responses have been written since the last flush. */
+    private boolean unflushed = false;
+
+    /**
+     * Constructor
+     * 
+     * @param invoker This is the service invoker object.
+     * @param generator Generator the responses are written to.
+     * @param executor Executor or null to run the calls one after another.
+     * @param parallelism Maximum number of calls running at the same time.
+     * @param order Order of the responses.
+     * @param notifications Queue notifications are executed from or null.
+     * @param timeout Maximum time to wait for a future result in
+     *        milliseconds or 0.
+     */
+    JsonServiceBatch(JsonServiceInvoker invoker, JsonGenerator generator, Executor executor, int parallelism,
+            BatchOrder order, JsonServiceNotificationQueue notifications, long timeout) {
+
+        this.invoker = invoker;
+        this.generator = generator;
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.order = order;
+        this.notifications = notifications;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Adds call to the batch. It may block until one of the running calls
+     * completes.
+     * 
+     * @param call Call read from the request.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    void add(final JsonServiceCall call) throws IOException, InterruptedException {
+
+        if(call.isNotification()) {
+            if(notifications != null) {
+                notifications.execute(call);
+            }
+            else {
+                call.run();
+            }
+            return;
+        }
+
+        if(call.isCompleted()) {
+            complete(call);
+            return;
+        }
+
+        if(executor == null || call.isSequential()) {
+            // wait for all the running calls
+            while(running > 0) {
+                take();
+            }
+            flush();
+            complete(call.invoke(timeout));
+            return;
+        }
+
+        while(running >= parallelism) {
+            take();
+        }
+        if(order == BatchOrder.REQUEST) {
+            pending.add(call);
+        }
+        running++;
+        try {
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        call.invoke(timeout);
+                    }
+                    finally {
+                        completed.add(call);
+                    }
+                }
+
+            });
+        }
+        catch(RejectedExecutionException e) {
+            // run it on this thread
+            running--;
+            flush();
+            call.invoke(timeout);
+            if(order == BatchOrder.REQUEST) {
+                writeCompleted();
+            }
+            else {
+                write(call);
+            }
+        }
+    }
+
+    /**
+     * Waits for all the calls and writes the remaining responses.
+     * 
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    void finish() throws IOException, InterruptedException {
+
+        while(running > 0) {
+            take();
+        }
+        writeCompleted();
+        if(started) {
+            generator.writeEndArray();
+        }
+        // the body is complete, so it is sent with its length if it is small
+        JsonServiceInvoker.drain(generator);
+        unflushed = false;
+    }
+
+    /**
+     * Takes back a call completed by the executor.
+     */
+    private void take() throws IOException, InterruptedException {
+
+        JsonServiceCall call = completed.poll();
+        if(call == null) {
+            flush();
+            call = completed.take();
+        }
+        running--;
+        if(order == BatchOrder.REQUEST) {
+            writeCompleted();
+        }
+        else {
+            write(call);
+        }
+    }
+
+    /**
+     * Writes response of a call completed on this thread.
+     */
+    private void complete(JsonServiceCall call) throws IOException {
+
+        if(order == BatchOrder.REQUEST) {
+            pending.add(call);
+            writeCompleted();
+        }
+        else {
+            write(call);
+        }
+    }
+
+    /**
+     * Writes responses of the completed calls that are not preceded by any
+     * running call.
+     */
+    private void writeCompleted() throws IOException {
+
+        Iterator<JsonServiceCall> i = pending.iterator();
+        while(i.hasNext()) {
+            JsonServiceCall call = i.next();
+            if(!call.isCompleted()) {
+                break;
+            }
+            i.remove();
+            write(call);
+        }
+    }
+
+    /**
+     * Writes response of a completed call.
+     */
+    private void write(JsonServiceCall call) throws IOException {
+
+        if(!started) {
+            generator.writeStartArray();
+            started = true;
+        }
+        try {
+            invoker.write(generator, call);
+        }
+        catch(InvocationTargetException e) {
+            e.printStackTrace(System.err);
+            write(new JsonServiceCall(call.getId(), JsonServiceError.INVALID_REQUEST));
+        }
+        unflushed = true;
+    }
+
+    /**
+     * Flushes responses written so far.
+     */
+    private void flush() throws IOException {
+
+        if(unflushed) {
+            generator.flush();
+            unflushed = false;
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+package org.stefaniuk.json.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * JSON service buffer pool.
+ * </p>
+ * <p>
+ * Recycles byte buffers requests and responses are collected in, so that
+ * handling a request does not leave a few kilobytes of garbage behind. The
+ * pool is divided into stripes, chosen by the ID of the current thread, which
+ * keeps contention low without tying buffers to a thread. A thread local pool
+ * would not work with virtual threads, which are started for a single call
+ * and never reused.
+ * </p>
+ * <p>
+ * Only buffers of {@link #BUFFER_SIZE} are pooled. A buffer that has grown to
+ * hold a larger message is left to the garbage collector, so a few unusually
+ * large requests do not pin memory in the pool.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public final class JsonServiceBufferPool {
+
+    /** Size of a pooled buffer. */
+    public static final int BUFFER_SIZE = 8192;
+
+    /** Number of buffers kept by a stripe. */
+    private static final int SLOTS = 4;
+
+    /** Number of stripes, a power of two. */
+    private static final int STRIPES;
+
+    static {
+        int stripes = 1;
+        while(stripes < Runtime.getRuntime().availableProcessors() * 2) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    /** Buffer of a recycled stream. */
+    private static final byte[] EMPTY = new byte[0];
+
+    /** Idle buffers, {@link #SLOTS} for each stripe, or nulls. */
+    private static final AtomicReferenceArray<byte[]> buffers = new AtomicReferenceArray<byte[]>(STRIPES * SLOTS);
+
+    private JsonServiceBufferPool() {
+
+    }
+
+    /**
+     * Takes buffer from the pool or allocates a new one if the pool is empty.
+     * 
+     * @return Returns buffer of {@link #BUFFER_SIZE}.
+     */
+    public static byte[] acquire() {
+
+        int offset = stripe();
+        for(int i = 0; i < SLOTS; i++) {
+            byte[] buffer = buffers.getAndSet(offset + i, null);
+            if(buffer != null) {
+                return buffer;
+            }
+        }
+
+        return new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Returns buffer to the pool. A buffer of a different size than
+     * {@link #BUFFER_SIZE} or one that does not fit into the pool is dropped.
+     * The buffer must not be used afterwards.
+     * 
+     * @param buffer Buffer
+     */
+    public static void release(byte[] buffer) {
+
+        if(buffer == null || buffer.length != BUFFER_SIZE) {
+            return;
+        }
+        int offset = stripe();
+        for(int i = 0; i < SLOTS; i++) {
+            if(buffers.compareAndSet(offset + i, null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    private static int stripe() {
+
+        return ((int) Thread.currentThread().getId() & (STRIPES - 1)) * SLOTS;
+    }
+
+    /**
+     * <p>
+     * Byte array output stream that starts with a pooled buffer. When it
+     * grows beyond the buffer, the buffer is returned to the pool right away
+     * and the stream continues in an ordinary array.
+     * </p>
+     * <p>
+     * {@link #recycle()} returns the buffer once the content has been
+     * copied, e.g. by {@link #toByteArray()} or {@link #writeTo(java.io.OutputStream)
+     * writeTo}. A stream that is not recycled only leaves its buffer to the
+     * garbage collector.
+     * </p>
+     * 
+     * @author Daniel Stefaniuk
+     */
+    public static final class Output extends ByteArrayOutputStream {
+
+        /** Pooled buffer, while it is in use. */
+        private byte[] pooled;
+
+        /**
+         * Constructor
+         */
+        public Output() {
+
+            super(0);
+            buf = pooled = acquire();
+        }
+
+        @Override
+        public synchronized void write(int b) {
+
+            super.write(b);
+            if(buf != pooled) {
+                drop();
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+
+            super.write(b, off, len);
+            if(buf != pooled) {
+                drop();
+            }
+        }
+
+        /**
+         * Returns buffer that wraps the content without copying it. The
+         * stream must not be written to or recycled until the buffer has been
+         * read.
+         * 
+         * @return Returns {@link ByteBuffer} object.
+         */
+        public synchronized ByteBuffer toByteBuffer() {
+
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        /**
+         * Returns the buffer to the pool and empties the stream, which can
+         * still be written to.
+         */
+        public synchronized void recycle() {
+
+            if(pooled != null && buf == pooled) {
+                buf = EMPTY;
+            }
+            count = 0;
+            drop();
+        }
+
+        /**
+         * Returns pooled buffer the stream has outgrown.
+         */
+        private void drop() {
+
+            if(pooled != null) {
+                release(pooled);
+                pooled = null;
+            }
+        }
+
+    }
+
+}
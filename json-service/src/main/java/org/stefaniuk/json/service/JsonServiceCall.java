@@ -0,0 +1,519 @@
+package org.stefaniuk.json.service;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.codehaus.jackson.JsonNode;
+
+/**
+ * <p>
+ * JSON service call.
+ * </p>
+ * <p>
+ * This class represents a single JSON-RPC request that has been read by
+ * {@link JsonServiceInvoker}, with its arguments already bound. Reading a
+ * request, calling the method and writing the response are separate steps, so
+ * the method can be called on a different thread than the one that reads the
+ * request and writes the response, e.g. when a batch request is executed in
+ * parallel. The steps are expected to be handed over between threads through
+ * a synchronising queue or an executor.
+ * </p>
+ * <p>
+ * A request without <code>id</code> is a notification. A client does not
+ * expect any response to it, so it is only {@link #run() run} and its result
+ * is discarded.
+ * </p>
+ * <p>
+ * A method may return a {@link CompletionStage} or a {@link Future} instead of
+ * the value itself. The call is then completed when the value arrives, and the
+ * value, or the exception the stage has completed with, is returned to a
+ * client as if the method returned or threw it. Callback based code can
+ * return a {@link java.util.concurrent.CompletableFuture} and complete it from
+ * the callback.
+ * </p>
+ * <p>
+ * A call of a method that is cached or coalesced may complete without calling
+ * the method at all, with a result shared with other calls.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public final class JsonServiceCall implements Runnable {
+
+    /** JSON-RPC request ID. */
+    private final Integer id;
+
+    /** Indicates that the request is a notification. */
+    private final boolean notification;
+
+    /** Method to call or null if the request is not valid. */
+    private final JsonServiceMethod method;
+
+    /** Arguments passed to the method. */
+    private final Object[] args;
+
+    /** Permits limiting concurrent calls of the service or null. */
+    private final Semaphore bulkhead;
+
+    /** Cache of the results of the method or null. */
+    private final JsonServiceResultCache cache;
+
+    /** Coalescer of identical calls of the method or null. */
+    private final JsonServiceCoalescer coalescer;
+
+    /** Key of the flight other calls wait for, if this call has started it. */
+    private JsonNode flight;
+
+    /** Result shared with other calls or null. */
+    private volatile JsonServiceSharedResult shared;
+
+    /** Result of the method call. */
+    private Object result;
+
+    /** {@link CompletionStage} or {@link Future} returned by the method. */
+    private Object deferred;
+
+    /** Error returned to a client. */
+    private JsonServiceError error;
+
+    /** Exception thrown by the method, other than {@link JsonServiceException}. */
+    private InvocationTargetException exception;
+
+    /**
+     * Indicates that the result of the call is known or the method will not
+     * be called. It is written after the result, so a thread that sees it set
+     * also sees the result.
+     */
+    private volatile boolean completed;
+
+    /**
+     * Constructor
+     * 
+     * @param id JSON-RPC request ID
+     * @param notification Indicates that the request is a notification.
+     * @param method Method to call.
+     * @param args Arguments passed to the method.
+     * @param bulkhead Permits limiting concurrent calls of the service or
+     *        null.
+     * @param cache Cache of the results of the method or null.
+     * @param coalescer Coalescer of identical calls of the method or null.
+     */
+    JsonServiceCall(Integer id, boolean notification, JsonServiceMethod method, Object[] args,
+            Semaphore bulkhead, JsonServiceResultCache cache, JsonServiceCoalescer coalescer) {
+
+        this.id = id;
+        this.notification = notification;
+        this.method = method;
+        this.args = args;
+        this.bulkhead = bulkhead;
+        this.cache = cache;
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * Constructor of a call that fails without calling any method.
+     * 
+     * @param id JSON-RPC request ID
+     * @param error Error object
+     */
+    JsonServiceCall(Integer id, JsonServiceError error) {
+
+        this(id, false, error);
+    }
+
+    /**
+     * Constructor of a call that fails without calling any method.
+     * 
+     * @param id JSON-RPC request ID
+     * @param notification Indicates that the request is a notification.
+     * @param error Error object
+     */
+    JsonServiceCall(Integer id, boolean notification, JsonServiceError error) {
+
+        this.id = id;
+        this.notification = notification;
+        this.method = null;
+        this.args = null;
+        this.bulkhead = null;
+        this.cache = null;
+        this.coalescer = null;
+        this.error = error;
+        this.completed = true;
+    }
+
+    /**
+     * Calls the method. Errors reported by the method are stored and returned
+     * to a client with the response. If the method returns a future result,
+     * it waits for the result without any time limit.
+     * 
+     * @return Returns this object.
+     */
+    public JsonServiceCall invoke() {
+
+        return invoke(0);
+    }
+
+    /**
+     * Calls the method. Errors reported by the method are stored and returned
+     * to a client with the response. If the method returns a future result,
+     * it waits for the result no longer than the given time, after which the
+     * call fails with "Server error".
+     * 
+     * @param timeout Maximum time to wait in milliseconds or 0 to wait
+     *        without any time limit.
+     * @return Returns this object.
+     */
+    public JsonServiceCall invoke(long timeout) {
+
+        start();
+        if(!completed) {
+            await(timeout);
+        }
+
+        return this;
+    }
+
+    /**
+     * Calls the method but does not wait for a future result.
+     * 
+     * @return Returns this object, which is not completed if the method has
+     *         returned a future result.
+     */
+    JsonServiceCall start() {
+
+        if(completed || deferred != null) {
+            return this;
+        }
+
+        // a cached result is returned without calling the method
+        JsonNode key = cache != null || coalescer != null ? JsonServiceResultCache.key(args) : null;
+        if(key != null && cache != null) {
+            Object cached = cache.get(key);
+            if(cached != JsonServiceResultCache.MISS) {
+                complete(cached, null);
+                return this;
+            }
+        }
+
+        // an identical call in flight is waited for instead of calling the method,
+        // but not by a notification, whose result nobody waits for
+        if(key != null && coalescer != null && !notification) {
+            CompletableFuture<Object> leader = coalescer.join(key);
+            if(leader != null) {
+                deferred = leader;
+                return this;
+            }
+            flight = key;
+        }
+
+        if(bulkhead != null) {
+            try {
+                bulkhead.acquire();
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(JsonServiceError.INTERNAL_ERROR);
+                return this;
+            }
+        }
+
+        Object value = null;
+        JsonServiceError failure = null;
+        InvocationTargetException uncaught = null;
+        try {
+            value = method.invoke(args);
+        }
+        catch(JsonServiceException e) {
+            failure = e.getError();
+        }
+        catch(InvocationTargetException e) {
+            uncaught = e;
+        }
+        finally {
+            if(bulkhead != null) {
+                bulkhead.release();
+            }
+            if(value instanceof CompletionStage || value instanceof Future) {
+                deferred = value;
+            }
+            else {
+                boolean settled = false;
+                synchronized(this) {
+                    // the call may have timed out meanwhile
+                    if(!completed) {
+                        result = value;
+                        error = failure;
+                        exception = uncaught;
+                        completed = true;
+                        settled = true;
+                    }
+                }
+                if(settled) {
+                    land();
+                }
+                if(key != null && cache != null && failure == null && uncaught == null) {
+                    // the result is cached together with its JSON text, once it is written
+                    JsonServiceSharedResult holder = shared;
+                    if(holder == null) {
+                        holder = new JsonServiceSharedResult(value);
+                        shared = holder;
+                    }
+                    cache.put(key, holder);
+                }
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Waits for a future result returned by the method.
+     * 
+     * @param timeout Maximum time to wait in milliseconds or 0.
+     * @return Returns true if the call has been completed by this method.
+     */
+    boolean await(long timeout) {
+
+        Future<?> future = deferred instanceof Future
+            ? (Future<?>) deferred
+            : ((CompletionStage<?>) deferred).toCompletableFuture();
+        try {
+            return complete(timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get(), null);
+        }
+        catch(ExecutionException e) {
+            return complete(null, e.getCause());
+        }
+        catch(TimeoutException e) {
+            return fail(JsonServiceError.SERVER_ERROR);
+        }
+        catch(CancellationException e) {
+            return fail(JsonServiceError.SERVER_ERROR);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fail(JsonServiceError.INTERNAL_ERROR);
+        }
+    }
+
+    /**
+     * Completes the call with a future result.
+     * 
+     * @param value Result
+     * @param failure Exception the result has completed with or null.
+     * @return Returns false if the call has been completed already.
+     */
+    boolean complete(Object value, Throwable failure) {
+
+        if(!settle(value, failure)) {
+            return false;
+        }
+        land();
+
+        return true;
+    }
+
+    /**
+     * Stores a future result, unless the call has been completed already.
+     */
+    private synchronized boolean settle(Object value, Throwable failure) {
+
+        if(completed) {
+            return false;
+        }
+
+        if(failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        if(value instanceof JsonServiceSharedResult) {
+            shared = (JsonServiceSharedResult) value;
+            value = shared.getValue();
+        }
+        if(failure == null) {
+            result = value;
+        }
+        else if(failure instanceof JsonServiceException) {
+            error = ((JsonServiceException) failure).getError();
+        }
+        else {
+            exception = new InvocationTargetException(failure);
+        }
+        completed = true;
+
+        return true;
+    }
+
+    /**
+     * Completes the call with an error, e.g. when a future result has not
+     * arrived in time. The future result is cancelled.
+     * 
+     * @param error Error object
+     * @return Returns false if the call has been completed already.
+     */
+    boolean fail(JsonServiceError error) {
+
+        if(!abort(error)) {
+            return false;
+        }
+        land();
+
+        return true;
+    }
+
+    /**
+     * Stores an error, unless the call has been completed already.
+     */
+    private synchronized boolean abort(JsonServiceError error) {
+
+        if(completed) {
+            return false;
+        }
+
+        this.error = error;
+        completed = true;
+        if(deferred instanceof Future) {
+            ((Future<?>) deferred).cancel(true);
+        }
+
+        return true;
+    }
+
+    /**
+     * Completes calls that have waited for this one.
+     */
+    private void land() {
+
+        if(flight != null) {
+            JsonServiceSharedResult result = coalescer.land(flight, this);
+            if(result != null) {
+                shared = result;
+            }
+        }
+    }
+
+    /**
+     * Returns result shared with other calls, which is serialised only once.
+     * 
+     * @return Returns {@link JsonServiceSharedResult} object or null if the
+     *         result is not shared.
+     */
+    JsonServiceSharedResult getSharedResult() {
+
+        return shared;
+    }
+
+    /**
+     * Returns {@link CompletionStage} or {@link Future} returned by the
+     * method.
+     * 
+     * @return Returns future result or null.
+     */
+    Object getDeferred() {
+
+        return deferred;
+    }
+
+    /**
+     * Calls the method of a notification. There is no one to return an error
+     * to, so an unexpected exception thrown by the method is only reported. A
+     * future result is not waited for.
+     */
+    @Override
+    public void run() {
+
+        start();
+        if(exception != null) {
+            exception.printStackTrace(System.err);
+        }
+    }
+
+    /**
+     * Returns JSON-RPC request ID.
+     * 
+     * @return Returns ID or null.
+     */
+    public Integer getId() {
+
+        return id;
+    }
+
+    /**
+     * Returns method to call.
+     * 
+     * @return Returns {@link JsonServiceMethod} object or null if the request
+     *         is not valid.
+     */
+    public JsonServiceMethod getMethod() {
+
+        return method;
+    }
+
+    /**
+     * Indicates that the request is a notification, which must not be
+     * answered.
+     * 
+     * @return Returns true or false.
+     */
+    public boolean isNotification() {
+
+        return notification;
+    }
+
+    /**
+     * Indicates that the call must not run concurrently with other calls of
+     * the same batch request.
+     * 
+     * @return Returns true or false.
+     */
+    public boolean isSequential() {
+
+        return method != null && method.isSequential();
+    }
+
+    /**
+     * Indicates that the result of the call is known or the method will not be
+     * called.
+     * 
+     * @return Returns true or false.
+     */
+    public boolean isCompleted() {
+
+        return completed;
+    }
+
+    /**
+     * Returns result of the method call.
+     * 
+     * @return Returns result object.
+     * @throws InvocationTargetException if the method has thrown an exception
+     *         other than {@link JsonServiceException}
+     */
+    public Object getResult() throws InvocationTargetException {
+
+        if(exception != null) {
+            throw exception;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns error returned to a client.
+     * 
+     * @return Returns error object or null if the call has succeeded.
+     */
+    public JsonServiceError getError() {
+
+        return error;
+    }
+
+}
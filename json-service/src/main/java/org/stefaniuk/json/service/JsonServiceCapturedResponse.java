@@ -0,0 +1,301 @@
+package org.stefaniuk.json.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * <p>
+ * JSON service captured response.
+ * </p>
+ * <p>
+ * Response wrapper that keeps the status, headers and body written by
+ * {@link JsonServiceRegistry} instead of sending them, so that they can be
+ * returned to Spring Framework as a {@link ResponseEntity} of bytes. The body
+ * is collected in a pooled buffer, which {@link JsonServiceRegistry} writes
+ * to without holding the body back in a buffer of its own, and copied only
+ * once, into an array of its exact size. It is never decoded into a string.
+ * </p>
+ * <p>
+ * A response that is completed asynchronously, i.e. after the controller has
+ * returned, cannot be returned as an entity. Such a response is
+ * {@link #release() released}: what has been captured so far is passed on to
+ * the wrapped response and everything that follows goes straight to it.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+final class JsonServiceCapturedResponse extends HttpServletResponseWrapper {
+
+    /** Captured headers, including the content type. */
+    private final HttpHeaders headers = new HttpHeaders();
+
+    /** Captured body */
+    private final JsonServiceBufferPool.Output body = new JsonServiceBufferPool.Output();
+
+    private int status = HttpServletResponse.SC_OK;
+
+    /** Indicates that the response is passed on to the wrapped response. */
+    private boolean released = false;
+
+    /** Output stream of the wrapped response, once the response is released. */
+    private ServletOutputStream output;
+
+    /** Indicates that the body has been closed while it was captured. */
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     * 
+     * @param response HTTP response
+     */
+    JsonServiceCapturedResponse(HttpServletResponse response) {
+
+        super(response);
+    }
+
+    /**
+     * Returns captured response as an entity. The body is copied out of the
+     * pooled buffer, which is returned to the pool.
+     * 
+     * @param defaultContentType Content type of a response that has not set
+     *        one.
+     * @return Returns ResponseEntity to be used by Spring Framework.
+     */
+    synchronized ResponseEntity<byte[]> getResponseEntity(String defaultContentType) {
+
+        HttpHeaders entityHeaders = new HttpHeaders();
+        entityHeaders.putAll(headers);
+        if(!entityHeaders.containsKey("Content-Type")) {
+            entityHeaders.set("Content-Type", defaultContentType);
+        }
+        byte[] content = null;
+        if(status != HttpServletResponse.SC_NOT_MODIFIED) {
+            content = body.toByteArray();
+            entityHeaders.set("Content-Length", Integer.toString(content.length));
+        }
+        body.recycle();
+
+        return new ResponseEntity<byte[]>(content, entityHeaders, HttpStatus.valueOf(status));
+    }
+
+    /**
+     * Passes what has been captured on to the wrapped response. Anything
+     * written afterwards goes straight to the wrapped response.
+     * 
+     * @throws IOException
+     */
+    synchronized void release() throws IOException {
+
+        if(released) {
+            return;
+        }
+        released = true;
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        response.setStatus(status);
+        for(Map.Entry<String, List<String>> header: headers.entrySet()) {
+            for(String value: header.getValue()) {
+                response.addHeader(header.getKey(), value);
+            }
+        }
+        if(body.size() > 0 || closed) {
+            output = response.getOutputStream();
+            body.writeTo(output);
+            if(closed) {
+                output.close();
+            }
+        }
+        body.recycle();
+    }
+
+    @Override
+    public synchronized void setHeader(String name, String value) {
+
+        if(released) {
+            super.setHeader(name, value);
+        }
+        else {
+            headers.set(name, value);
+        }
+    }
+
+    @Override
+    public synchronized void addHeader(String name, String value) {
+
+        if(released) {
+            super.addHeader(name, value);
+        }
+        else {
+            headers.add(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+
+        setHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+
+        addHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public synchronized boolean containsHeader(String name) {
+
+        return released ? super.containsHeader(name) : headers.containsKey(name);
+    }
+
+    @Override
+    public synchronized String getHeader(String name) {
+
+        return released ? super.getHeader(name) : headers.getFirst(name);
+    }
+
+    @Override
+    public void setContentType(String type) {
+
+        setHeader("Content-Type", type);
+    }
+
+    @Override
+    public synchronized String getContentType() {
+
+        return released ? super.getContentType() : headers.getFirst("Content-Type");
+    }
+
+    @Override
+    public void setContentLength(int len) {
+
+        setHeader("Content-Length", Integer.toString(len));
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+
+        setHeader("Content-Length", Long.toString(len));
+    }
+
+    @Override
+    public synchronized void setStatus(int sc) {
+
+        if(released) {
+            super.setStatus(sc);
+        }
+        else {
+            status = sc;
+        }
+    }
+
+    @Override
+    public synchronized int getStatus() {
+
+        return released ? super.getStatus() : status;
+    }
+
+    @Override
+    public synchronized boolean isCommitted() {
+
+        return released && super.isCommitted();
+    }
+
+    @Override
+    public synchronized ServletOutputStream getOutputStream() throws IOException {
+
+        return released ? super.getOutputStream() : new CapturedOutputStream();
+    }
+
+    /**
+     * Stream of the captured body. It writes to the wrapped response once the
+     * response is released.
+     */
+    private final class CapturedOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+
+            synchronized(JsonServiceCapturedResponse.this) {
+                if(released) {
+                    target().write(b, off, len);
+                }
+                else {
+                    body.write(b, off, len);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+
+            synchronized(JsonServiceCapturedResponse.this) {
+                if(released) {
+                    target().flush();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            synchronized(JsonServiceCapturedResponse.this) {
+                if(released) {
+                    target().close();
+                }
+                else {
+                    closed = true;
+                }
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+
+            synchronized(JsonServiceCapturedResponse.this) {
+                return !released || output == null || output.isReady();
+            }
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+
+            // a non-blocking response is written after the controller has returned
+            try {
+                release();
+                target().setWriteListener(listener);
+            }
+            catch(IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private ServletOutputStream target() throws IOException {
+
+            if(output == null) {
+                output = getResponse().getOutputStream();
+            }
+
+            return output;
+        }
+
+    }
+
+}
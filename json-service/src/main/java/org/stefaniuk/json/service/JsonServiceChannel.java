@@ -0,0 +1,432 @@
+package org.stefaniuk.json.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ArrayNode;
+import org.codehaus.jackson.node.ObjectNode;
+
+/**
+ * <p>
+ * JSON service channel.
+ * </p>
+ * <p>
+ * Carries JSON-RPC messages of a single persistent connection, e.g. a
+ * WebSocket, in both directions. Each message received is a complete JSON-RPC
+ * request or batch, which is handled by {@link JsonServiceRegistry} exactly as
+ * the body of an HTTP request would be. Many messages can be in flight at the
+ * same time: they are run on an executor and the replies are sent either as
+ * soon as they are ready, in which case a client matches them by
+ * <code>id</code>, or in the order the messages have been received.
+ * </p>
+ * <p>
+ * The number of messages in flight is limited per channel. When the limit is
+ * reached, {@link #receive(byte[]) receive} blocks and
+ * {@link #offer(byte[]) offer} refuses the message, so a transport can stop
+ * reading from the connection until a reply has been sent. Messages are sent
+ * by one thread at a time, so a {@link Sender} does not need to be thread
+ * safe.
+ * </p>
+ * <p>
+ * The server can also send notifications to a client at any time with
+ * {@link #sendNotification(String, Object...) sendNotification}.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public class JsonServiceChannel {
+
+    /**
+     * This object provides functionality for conversion between Java objects
+     * and JSON.
+     */
+    private static ObjectMapper mapper = new ObjectMapper();
+
+    /** Registry the messages are handled by. */
+    private final JsonServiceRegistry registry;
+
+    /** Registered class */
+    private final Class<?> clazz;
+
+    /** Transport the messages are sent by. */
+    private final Sender sender;
+
+    /** Executor the messages are handled on or null to handle them at once. */
+    private volatile Executor executor;
+
+    /** Maximum number of messages in flight. */
+    private volatile int maxInFlight = 16;
+
+    /** Indicates that replies are sent in the order of the messages. */
+    private volatile boolean ordered = false;
+
+    /** Number of messages received and not replied to yet. */
+    private int inFlight = 0;
+
+    /** Sequence number of the next message received. */
+    private long received = 0;
+
+    /** Sequence number of the next reply to send in order. */
+    private long next = 0;
+
+    /** Replies waiting for the replies to earlier messages. */
+    private final Map<Long, byte[]> replies = new HashMap<Long, byte[]>();
+
+    /** Messages waiting to be sent. */
+    private final LinkedList<byte[]> outgoing = new LinkedList<byte[]>();
+
+    /** Indicates that a thread is sending the outgoing messages. */
+    private boolean sending = false;
+
+    /** Indicates that the channel has been closed. */
+    private boolean closed = false;
+
+    /**
+     * Transport of a channel.
+     * 
+     * @author Daniel Stefaniuk
+     */
+    public static interface Sender {
+
+        /**
+         * Sends message to a client. It is never called by more than one
+         * thread at a time.
+         * 
+         * @param message JSON-RPC message encoded in UTF-8.
+         * @throws IOException
+         */
+        void send(byte[] message) throws IOException;
+
+    }
+
+    /**
+     * Constructor. The messages are run on the
+     * {@link JsonServiceRegistry#setCallExecutor(Executor) call executor} or
+     * the {@link JsonServiceRegistry#setBatchExecutor(Executor) batch
+     * executor} of the registry, whichever is set.
+     * 
+     * @param registry Registry the messages are handled by.
+     * @param clazz Registered class
+     * @param sender Transport the messages are sent by.
+     */
+    public JsonServiceChannel(JsonServiceRegistry registry, Class<?> clazz, Sender sender) {
+
+        this.registry = registry;
+        this.clazz = clazz;
+        this.sender = sender;
+        this.executor = registry.getExecutor();
+    }
+
+    /**
+     * Sets executor the messages are handled on. Without an executor each
+     * message is handled by the thread that receives it, so there is only
+     * one message in flight at a time.
+     * 
+     * @param executor Executor or null.
+     * @return Returns {@link JsonServiceChannel} object.
+     */
+    public JsonServiceChannel setExecutor(Executor executor) {
+
+        this.executor = executor;
+
+        return this;
+    }
+
+    /**
+     * Sets maximum number of messages in flight. It defaults to 16.
+     * 
+     * @param maxInFlight Number of messages
+     * @return Returns {@link JsonServiceChannel} object.
+     */
+    public JsonServiceChannel setMaxInFlight(int maxInFlight) {
+
+        this.maxInFlight = Math.max(1, maxInFlight);
+
+        return this;
+    }
+
+    /**
+     * Sets order of the replies. By default they are sent as soon as they are
+     * ready. It has to be set before the first message is received.
+     * 
+     * @param ordered Indicates that replies are sent in the order of the
+     *        messages.
+     * @return Returns {@link JsonServiceChannel} object.
+     */
+    public JsonServiceChannel setOrdered(boolean ordered) {
+
+        this.ordered = ordered;
+
+        return this;
+    }
+
+    /**
+     * Receives message from a client. It blocks while the maximum number of
+     * messages is in flight.
+     * 
+     * @param message JSON-RPC request or batch encoded in UTF-8.
+     * @throws InterruptedException
+     */
+    public void receive(byte[] message) throws InterruptedException {
+
+        long sequence;
+        synchronized(this) {
+            while(!closed && inFlight >= maxInFlight) {
+                wait();
+            }
+            if(closed) {
+                return;
+            }
+            inFlight++;
+            sequence = received++;
+        }
+        dispatch(sequence, message);
+    }
+
+    /**
+     * Receives message from a client without blocking. A message received by
+     * a closed channel is discarded.
+     * 
+     * @param message JSON-RPC request or batch encoded in UTF-8.
+     * @return Returns false if the maximum number of messages is in flight and
+     *         the message has not been received.
+     */
+    public boolean offer(byte[] message) {
+
+        long sequence;
+        synchronized(this) {
+            if(closed) {
+                return true;
+            }
+            if(inFlight >= maxInFlight) {
+                return false;
+            }
+            inFlight++;
+            sequence = received++;
+        }
+        dispatch(sequence, message);
+
+        return true;
+    }
+
+    /**
+     * Sends notification to a client, i.e. a request without
+     * <code>id</code>, which is not answered.
+     * 
+     * @param method Method name
+     * @param params Parameters
+     * @throws IOException
+     */
+    public void sendNotification(String method, Object... params) throws IOException {
+
+        ObjectNode node = mapper.createObjectNode();
+        node.put("jsonrpc", "2.0");
+        node.put("method", method);
+        ArrayNode array = node.putArray("params");
+        for(Object param: params) {
+            array.addPOJO(param);
+        }
+        byte[] message = mapper.writeValueAsBytes(node);
+
+        synchronized(this) {
+            if(closed) {
+                return;
+            }
+            outgoing.add(message);
+            if(sending) {
+                return;
+            }
+            sending = true;
+        }
+        drain();
+    }
+
+    /**
+     * Indicates that the maximum number of messages is in flight.
+     * 
+     * @return Returns true or false.
+     */
+    public synchronized boolean isSaturated() {
+
+        return inFlight >= maxInFlight;
+    }
+
+    /**
+     * Returns number of messages received and not replied to yet.
+     * 
+     * @return Returns number of messages.
+     */
+    public synchronized int getInFlight() {
+
+        return inFlight;
+    }
+
+    /**
+     * Waits until all the messages received have been replied to, e.g.
+     * before a connection whose client has stopped sending is closed.
+     * 
+     * @param timeout Timeout in milliseconds
+     * @return Returns false if the timeout has elapsed first.
+     * @throws InterruptedException
+     */
+    public synchronized boolean awaitIdle(long timeout) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + timeout;
+        while(!closed && (inFlight > 0 || sending || !outgoing.isEmpty())) {
+            long remaining = deadline - System.currentTimeMillis();
+            if(remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+
+        return true;
+    }
+
+    /**
+     * Closes the channel. Replies that have not been sent yet are discarded.
+     * Closing a closed channel does nothing.
+     */
+    public void close() {
+
+        synchronized(this) {
+            if(closed) {
+                return;
+            }
+            closed = true;
+            replies.clear();
+            outgoing.clear();
+            notifyAll();
+        }
+        released();
+    }
+
+    /**
+     * Indicates that the channel has been closed.
+     * 
+     * @return Returns true or false.
+     */
+    public synchronized boolean isClosed() {
+
+        return closed;
+    }
+
+    /**
+     * Called whenever a message stops counting towards the maximum number of
+     * messages in flight, outside of any lock, so that a transport which has
+     * stopped reading can resume it.
+     */
+    protected void released() {
+
+    }
+
+    /**
+     * Handles message on the executor.
+     */
+    private void dispatch(final long sequence, final byte[] message) {
+
+        Runnable task = new Runnable() {
+
+            @Override
+            public void run() {
+
+                JsonServiceBufferPool.Output os = new JsonServiceBufferPool.Output();
+                registry.handle(new ByteArrayInputStream(message), os, clazz);
+                byte[] response = os.toByteArray();
+                os.recycle();
+                complete(sequence, response);
+            }
+
+        };
+
+        Executor executor = this.executor;
+        if(executor != null) {
+            try {
+                executor.execute(task);
+                return;
+            }
+            catch(RejectedExecutionException e) {
+                // run it on this thread
+            }
+        }
+        task.run();
+    }
+
+    /**
+     * Queues reply to a message and sends it unless another thread is
+     * sending already.
+     */
+    private void complete(long sequence, byte[] reply) {
+
+        boolean send = false;
+        synchronized(this) {
+            if(ordered) {
+                replies.put(sequence, reply);
+                byte[] r;
+                while((r = replies.remove(next)) != null) {
+                    next++;
+                    release(r);
+                }
+            }
+            else {
+                release(reply);
+            }
+            notifyAll();
+            if(!sending && !outgoing.isEmpty()) {
+                sending = true;
+                send = true;
+            }
+        }
+        if(send) {
+            drain();
+        }
+        released();
+    }
+
+    /**
+     * Takes reply out of flight. Nothing is sent in reply to notifications.
+     */
+    private void release(byte[] reply) {
+
+        if(inFlight > 0) {
+            inFlight--;
+        }
+        if(!closed && reply.length > 0) {
+            outgoing.add(reply);
+        }
+    }
+
+    /**
+     * Sends the outgoing messages until there are none left.
+     */
+    private void drain() {
+
+        while(true) {
+            byte[] message;
+            synchronized(this) {
+                message = closed ? null : outgoing.poll();
+                if(message == null) {
+                    sending = false;
+                    notifyAll();
+                    return;
+                }
+            }
+            try {
+                sender.send(message);
+            }
+            catch(IOException e) {
+                e.printStackTrace(System.err);
+                close();
+            }
+        }
+    }
+
+}
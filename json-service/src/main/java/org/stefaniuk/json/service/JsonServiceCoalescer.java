@@ -0,0 +1,205 @@
+package org.stefaniuk.json.service;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.codehaus.jackson.JsonNode;
+
+/**
+ * <p>
+ * JSON service coalescer.
+ * </p>
+ * <p>
+ * Coalesces identical calls of a single method declared with
+ * {@link JsonService#coalesce()}. While a call is in flight, any other call
+ * with the same parameters does not call the method but waits for the result
+ * of the first one, so a burst of identical requests, e.g. from a dashboard
+ * refreshed by many users, calls the method only once. The parameters are
+ * compared in the same canonical form as in {@link JsonServiceResultCache}.
+ * The result, or the error, is shared by all the calls and it is serialised
+ * only once.
+ * </p>
+ * <p>
+ * Unlike a cache, a coalescer never returns a result of a call that has
+ * completed before another one has started, so it is safe for methods whose
+ * result changes over time, as long as they have no side effects.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public final class JsonServiceCoalescer {
+
+    /** Calls in flight by their parameters. */
+    private final ConcurrentMap<JsonNode, Flight> flights = new ConcurrentHashMap<JsonNode, Flight>();
+
+    /** Number of calls that could have been coalesced. */
+    private final AtomicLong calls = new AtomicLong();
+
+    /** Number of calls that have waited for another one. */
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /** Number of calls waiting at the moment. */
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    /** Largest number of calls that have waited for a single one. */
+    private final AtomicInteger maxWaiters = new AtomicInteger();
+
+    /**
+     * Call in flight with the calls waiting for it.
+     */
+    private static final class Flight {
+
+        private final List<CompletableFuture<Object>> waiters = new ArrayList<CompletableFuture<Object>>();
+
+        private boolean landed = false;
+
+    }
+
+    /**
+     * Joins a call with the given parameters that is in flight, or starts a
+     * new flight if there is none.
+     * 
+     * @param key Key returned by {@link JsonServiceResultCache#key(Object[])}
+     * @return Returns future result of the call in flight, or null if the
+     *         caller has to call the method and then {@link #land(JsonNode,
+     *         JsonServiceCall) land} the flight.
+     */
+    CompletableFuture<Object> join(JsonNode key) {
+
+        calls.incrementAndGet();
+        Flight flight = new Flight();
+        while(true) {
+            Flight current = flights.putIfAbsent(key, flight);
+            if(current == null) {
+                return null;
+            }
+            synchronized(current) {
+                if(!current.landed) {
+                    CompletableFuture<Object> future = new CompletableFuture<Object>();
+                    current.waiters.add(future);
+                    coalesced.incrementAndGet();
+                    waiters.incrementAndGet();
+                    int count = current.waiters.size();
+                    int max;
+                    while(count > (max = maxWaiters.get()) && !maxWaiters.compareAndSet(max, count)) {
+                        // try again
+                    }
+                    return future;
+                }
+            }
+            // the flight has just landed, so the call starts a new one
+            flights.remove(key, current);
+        }
+    }
+
+    /**
+     * Completes calls waiting for a call that has completed.
+     * 
+     * @param key Key passed to {@link #join(JsonNode)}
+     * @param call Completed call
+     * @return Returns result shared by the calls or null if the call has
+     *         failed.
+     */
+    JsonServiceSharedResult land(JsonNode key, JsonServiceCall call) {
+
+        Flight flight = flights.remove(key);
+        if(flight == null) {
+            return null;
+        }
+        List<CompletableFuture<Object>> futures;
+        synchronized(flight) {
+            flight.landed = true;
+            futures = flight.waiters;
+        }
+        waiters.addAndGet(-futures.size());
+
+        JsonServiceSharedResult shared = null;
+        Throwable failure = null;
+        try {
+            JsonServiceError error = call.getError();
+            if(error != null) {
+                failure = new JsonServiceException(error);
+            }
+            else {
+                shared = new JsonServiceSharedResult(call.getResult());
+            }
+        }
+        catch(InvocationTargetException e) {
+            failure = e.getCause();
+        }
+        for(CompletableFuture<Object> future: futures) {
+            if(failure != null) {
+                future.completeExceptionally(failure);
+            }
+            else {
+                future.complete(shared);
+            }
+        }
+
+        return shared;
+    }
+
+    /**
+     * Returns number of calls that could have been coalesced, i.e. calls of
+     * the method with parameters that can be compared.
+     * 
+     * @return Returns number of calls.
+     */
+    public long getCallCount() {
+
+        return calls.get();
+    }
+
+    /**
+     * Returns number of calls that have waited for a result of another call
+     * instead of calling the method.
+     * 
+     * @return Returns number of calls.
+     */
+    public long getCoalescedCount() {
+
+        return coalesced.get();
+    }
+
+    /**
+     * Returns fraction of calls that have been coalesced.
+     * 
+     * @return Returns number between 0 and 1.
+     */
+    public double getCoalesceRate() {
+
+        long n = calls.get();
+
+        return n > 0 ? (double) coalesced.get() / n : 0;
+    }
+
+    /**
+     * Returns number of calls waiting for a result at the moment.
+     * 
+     * @return Returns number of calls.
+     */
+    public int getWaiterCount() {
+
+        return waiters.get();
+    }
+
+    /**
+     * Returns largest number of calls that have waited for a result of a
+     * single call.
+     * 
+     * @return Returns number of calls.
+     */
+    public int getMaxWaiterCount() {
+
+        return maxWaiters.get();
+    }
+
+}
@@ -0,0 +1,393 @@
+package org.stefaniuk.json.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * <p>
+ * JSON service compression.
+ * </p>
+ * <p>
+ * Compresses responses with <code>gzip</code> or <code>deflate</code>,
+ * whichever a client prefers in its <code>Accept-Encoding</code> header, and
+ * decompresses request bodies sent with a <code>Content-Encoding</code>.
+ * Responses smaller than a threshold are sent as they are, since compressing
+ * them costs more than it saves. {@link Deflater} objects hold native memory
+ * and are expensive to create, so they are pooled and reused.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public final class JsonServiceCompression {
+
+    /** gzip content coding (RFC 1952). */
+    public static final String GZIP = "gzip";
+
+    /** deflate content coding, i.e. zlib format (RFC 1950). */
+    public static final String DEFLATE = "deflate";
+
+    /** Maximum number of idle deflaters kept per coding. */
+    private static final int POOL_SIZE = 32;
+
+    /** Size of the buffer compressed output is collected in. */
+    private static final int BUFFER_SIZE = JsonServiceBufferPool.BUFFER_SIZE;
+
+    /** Header of a gzip member with no optional fields. */
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    /** Idle deflaters writing raw deflate data, wrapped in gzip format. */
+    private static final BlockingQueue<Deflater> gzipPool = new ArrayBlockingQueue<Deflater>(POOL_SIZE);
+
+    /** Idle deflaters writing zlib format. */
+    private static final BlockingQueue<Deflater> deflatePool = new ArrayBlockingQueue<Deflater>(POOL_SIZE);
+
+    private JsonServiceCompression() {
+
+    }
+
+    /**
+     * Chooses content coding of a response. The coding with the highest
+     * quality is chosen, <code>gzip</code> if they are equal.
+     * 
+     * @param acceptEncoding Value of the <code>Accept-Encoding</code> header
+     *        or null.
+     * @return Returns {@link #GZIP}, {@link #DEFLATE} or null if the response
+     *         is not compressed.
+     */
+    public static String negotiate(String acceptEncoding) {
+
+        if(acceptEncoding == null) {
+            return null;
+        }
+        // -1 stands for a coding that is not listed
+        float gzip = -1;
+        float deflate = -1;
+        float any = 0;
+        for(String coding: acceptEncoding.split(",")) {
+            String[] params = coding.split(";");
+            String name = params[0].trim().toLowerCase();
+            float q = 1;
+            for(int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if(param.startsWith("q=")) {
+                    try {
+                        q = Float.parseFloat(param.substring(2));
+                    }
+                    catch(NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if(name.equals(GZIP) || name.equals("x-gzip")) {
+                gzip = q;
+            }
+            else if(name.equals(DEFLATE)) {
+                deflate = q;
+            }
+            else if(name.equals("*")) {
+                any = q;
+            }
+        }
+        if(gzip < 0) {
+            gzip = any;
+        }
+        if(deflate < 0) {
+            deflate = any;
+        }
+
+        if(gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        }
+
+        return deflate > 0 ? DEFLATE : null;
+    }
+
+    /**
+     * Decompresses request body.
+     * 
+     * @param is Request body
+     * @param contentEncoding Value of the <code>Content-Encoding</code> header
+     *        or null.
+     * @return Returns input stream of the decompressed body.
+     * @throws IOException if the coding is not supported or the body is not
+     *         valid.
+     */
+    public static InputStream decode(InputStream is, String contentEncoding) throws IOException {
+
+        if(contentEncoding == null) {
+            return is;
+        }
+        String coding = contentEncoding.trim().toLowerCase();
+        if(coding.isEmpty() || coding.equals("identity")) {
+            return is;
+        }
+        else if(coding.equals(GZIP) || coding.equals("x-gzip")) {
+            return new GZIPInputStream(is, BUFFER_SIZE);
+        }
+        else if(coding.equals(DEFLATE)) {
+            return new InflaterInputStream(is);
+        }
+
+        throw new IOException("Unsupported content encoding: " + contentEncoding);
+    }
+
+    /**
+     * Compresses whole response body at once.
+     * 
+     * @param content Response body
+     * @param coding {@link #GZIP} or {@link #DEFLATE}
+     * @return Returns compressed body.
+     */
+    public static byte[] encode(byte[] content, String coding) {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream(content.length / 4 + 64);
+        Output output = new Output(os, coding, 0);
+        try {
+            output.write(content, 0, content.length);
+            output.finish();
+        }
+        catch(IOException e) {
+            // not thrown by a byte array
+            throw new IllegalStateException(e);
+        }
+
+        return os.toByteArray();
+    }
+
+    private static Deflater acquire(String coding) {
+
+        boolean gzip = coding.equals(GZIP);
+        Deflater deflater = (gzip ? gzipPool : deflatePool).poll();
+
+        return deflater != null ? deflater : new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+    }
+
+    private static void release(Deflater deflater, String coding) {
+
+        deflater.reset();
+        if(!(coding.equals(GZIP) ? gzipPool : deflatePool).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * <p>
+     * Output stream that compresses what is written to it once it exceeds a
+     * threshold. Up to the threshold the bytes are held back, and if the
+     * stream is finished before the threshold is reached they are written
+     * uncompressed. Beyond it the bytes are compressed as they come, so the
+     * body is never buffered as a whole.
+     * </p>
+     * <p>
+     * {@link #start(String) start} is called just before the first
+     * compressed byte is written, e.g. to set the
+     * <code>Content-Encoding</code> header. Flushing a stream that has not
+     * started compressing yet does nothing, so that a response is not sent
+     * uncompressed only because it has been flushed early.
+     * </p>
+     * 
+     * @author Daniel Stefaniuk
+     */
+    public static class Output extends OutputStream {
+
+        private final OutputStream os;
+
+        private final String coding;
+
+        private final int threshold;
+
+        /** Bytes held back until the threshold is reached. */
+        private byte[] pending;
+
+        private int count = 0;
+
+        private Deflater deflater;
+
+        /** Checksum of uncompressed data of a gzip stream. */
+        private CRC32 crc;
+
+        private byte[] buffer;
+
+        private boolean compressed = false;
+
+        private boolean finished = false;
+
+        /**
+         * Constructor
+         * 
+         * @param os Output stream the compressed bytes are written to.
+         * @param coding {@link JsonServiceCompression#GZIP} or
+         *        {@link JsonServiceCompression#DEFLATE}
+         * @param threshold Output is compressed once more than this number of
+         *        bytes has been written.
+         */
+        public Output(OutputStream os, String coding, int threshold) {
+
+            this.os = os;
+            this.coding = coding;
+            this.threshold = Math.max(0, threshold);
+            this.pending = new byte[Math.min(this.threshold, BUFFER_SIZE)];
+        }
+
+        /**
+         * Called before the first compressed byte is written.
+         * 
+         * @param coding Content coding
+         */
+        protected void start(String coding) {
+
+        }
+
+        /**
+         * Indicates that the output is being compressed.
+         * 
+         * @return Returns true or false.
+         */
+        public boolean isCompressed() {
+
+            return compressed;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+
+            if(finished) {
+                throw new IOException("Stream has been finished");
+            }
+            if(deflater == null) {
+                if(count + len <= threshold) {
+                    if(count + len > pending.length) {
+                        byte[] larger = new byte[Math.min(threshold, Math.max(count + len, pending.length * 2))];
+                        System.arraycopy(pending, 0, larger, 0, count);
+                        pending = larger;
+                    }
+                    System.arraycopy(b, off, pending, count, len);
+                    count += len;
+                    return;
+                }
+                begin();
+            }
+            deflate(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+
+            if(deflater != null && !finished) {
+                int n;
+                while((n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH)) > 0) {
+                    os.write(buffer, 0, n);
+                    if(n < buffer.length) {
+                        break;
+                    }
+                }
+                os.flush();
+            }
+        }
+
+        /**
+         * Writes what is held back and the end of the compressed data. It
+         * does not close the underlying stream.
+         * 
+         * @throws IOException
+         */
+        public void finish() throws IOException {
+
+            if(finished) {
+                return;
+            }
+            finished = true;
+            if(deflater == null) {
+                os.write(pending, 0, count);
+                pending = null;
+                os.flush();
+                return;
+            }
+            try {
+                deflater.finish();
+                while(!deflater.finished()) {
+                    int n = deflater.deflate(buffer);
+                    os.write(buffer, 0, n);
+                }
+                if(crc != null) {
+                    int value = (int) crc.getValue();
+                    int size = (int) deflater.getBytesRead();
+                    os.write(new byte[] { (byte) value, (byte) (value >> 8), (byte) (value >> 16),
+                        (byte) (value >> 24), (byte) size, (byte) (size >> 8), (byte) (size >> 16),
+                        (byte) (size >> 24) });
+                }
+                os.flush();
+            }
+            finally {
+                release(deflater, coding);
+                deflater = null;
+                JsonServiceBufferPool.release(buffer);
+                buffer = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            try {
+                finish();
+            }
+            finally {
+                os.close();
+            }
+        }
+
+        /**
+         * Starts compressing, beginning with the bytes held back.
+         */
+        private void begin() throws IOException {
+
+            start(coding);
+            compressed = true;
+            deflater = acquire(coding);
+            buffer = JsonServiceBufferPool.acquire();
+            if(coding.equals(GZIP)) {
+                crc = new CRC32();
+                os.write(GZIP_HEADER);
+            }
+            byte[] held = pending;
+            pending = null;
+            deflate(held, 0, count);
+        }
+
+        private void deflate(byte[] b, int off, int len) throws IOException {
+
+            if(len == 0) {
+                return;
+            }
+            if(crc != null) {
+                crc.update(b, off, len);
+            }
+            deflater.setInput(b, off, len);
+            while(!deflater.needsInput()) {
+                int n = deflater.deflate(buffer);
+                if(n > 0) {
+                    os.write(buffer, 0, n);
+                }
+            }
+        }
+
+    }
+
+}
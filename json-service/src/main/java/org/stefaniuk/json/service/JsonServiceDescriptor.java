@@ -0,0 +1,268 @@
+package org.stefaniuk.json.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ObjectNode;
+
+/**
+ * <p>
+ * JSON service descriptor.
+ * </p>
+ * <p>
+ * This is an immutable snapshot of a registered JSON-RPC class. It holds the
+ * instance of that class, the table of methods exposed to a client, the caches
+ * and coalescers of those methods and the Service Mapping Description. It is built by {@link JsonServiceInvoker} only
+ * once and published through a volatile field, so concurrent requests either
+ * see a complete descriptor or build it under a lock.
+ * </p>
+ * <p>
+ * The Service Mapping Description is rendered into bytes, and compressed with
+ * gzip, when the descriptor is built, so it is never serialised on a request.
+ * Its strong <code>ETag</code> is derived from the content, which lets a
+ * client revalidate it with a conditional request. A new descriptor is built
+ * whenever the class is registered again or the invoker settings change.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public final class JsonServiceDescriptor {
+
+    /** This is registered JSON-RPC object. */
+    private final Object context;
+
+    /** Collection of all JSON-RPC method exposed to a client. */
+    private final Map<String, JsonServiceMethod> methods;
+
+    /** Caches of the results of methods, by method name. */
+    private final Map<String, JsonServiceResultCache> caches;
+
+    /** Coalescers of identical calls of methods, by method name. */
+    private final Map<String, JsonServiceCoalescer> coalescers;
+
+    /** Service Mapping Description */
+    private final ObjectNode smd;
+
+    /** Service Mapping Description rendered as JSON. */
+    private final byte[] smdBytes;
+
+    /** Service Mapping Description rendered as JSON and compressed with gzip. */
+    private final byte[] smdGzipBytes;
+
+    /** Entity tag of {@link #smdBytes}, including quotes. */
+    private final String etag;
+
+    /** Entity tag of {@link #smdGzipBytes}, including quotes. */
+    private final String gzipEtag;
+
+    /**
+     * Constructor
+     * 
+     * @param context Instance of registered JSON-RPC class.
+     * @param methods Methods exposed to a client.
+     * @param smd Service Mapping Description
+     */
+    public JsonServiceDescriptor(Object context, Map<String, JsonServiceMethod> methods, ObjectNode smd) {
+
+        this(context, methods, null, null, smd);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param context Instance of registered JSON-RPC class.
+     * @param methods Methods exposed to a client.
+     * @param caches Caches of the results of methods or null.
+     * @param coalescers Coalescers of identical calls of methods or null.
+     * @param smd Service Mapping Description
+     */
+    public JsonServiceDescriptor(Object context, Map<String, JsonServiceMethod> methods,
+            Map<String, JsonServiceResultCache> caches, Map<String, JsonServiceCoalescer> coalescers, ObjectNode smd) {
+
+        this.context = context;
+        this.methods = Collections.unmodifiableMap(methods);
+        this.caches = caches != null ? Collections.unmodifiableMap(caches)
+            : Collections.<String, JsonServiceResultCache> emptyMap();
+        this.coalescers = coalescers != null ? Collections.unmodifiableMap(coalescers)
+            : Collections.<String, JsonServiceCoalescer> emptyMap();
+        this.smd = smd;
+
+        byte[] bytes = new byte[0];
+        try {
+            bytes = new ObjectMapper().writeValueAsBytes(smd);
+        }
+        catch(Exception e) {
+            e.printStackTrace(System.err);
+        }
+        String hash = hash(bytes);
+        this.smdBytes = bytes;
+        this.smdGzipBytes = JsonServiceCompression.encode(bytes, JsonServiceCompression.GZIP);
+        this.etag = "\"" + hash + "\"";
+        this.gzipEtag = "\"" + hash + "-gzip\"";
+    }
+
+    /**
+     * Returns first 16 bytes of SHA-256 digest of content as hexadecimal.
+     */
+    private static String hash(byte[] content) {
+
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(content);
+        }
+        catch(NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+        StringBuilder sb = new StringBuilder(32);
+        for(int i = 0; i < 16; i++) {
+            sb.append(Character.forDigit(digest[i] >> 4 & 0xf, 16)).append(Character.forDigit(digest[i] & 0xf, 16));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns instance of registered JSON-RPC class.
+     * 
+     * @return Returns object.
+     */
+    public Object getContext() {
+
+        return context;
+    }
+
+    /**
+     * Returns method exposed to a client.
+     * 
+     * @param name Method name
+     * @return Returns method or null if it does not exist.
+     */
+    public JsonServiceMethod getMethod(String name) {
+
+        return methods.get(name);
+    }
+
+    /**
+     * Returns all methods exposed to a client.
+     * 
+     * @return Returns read-only map of methods.
+     */
+    public Map<String, JsonServiceMethod> getMethods() {
+
+        return methods;
+    }
+
+    /**
+     * Returns cache of the results of a method.
+     * 
+     * @param name Method name
+     * @return Returns cache or null if the results of the method are not
+     *         cached.
+     */
+    public JsonServiceResultCache getCache(String name) {
+
+        return caches.get(name);
+    }
+
+    /**
+     * Returns caches of the results of all methods.
+     * 
+     * @return Returns read-only map of caches.
+     */
+    public Map<String, JsonServiceResultCache> getCaches() {
+
+        return caches;
+    }
+
+    /**
+     * Returns coalescer of identical calls of a method.
+     * 
+     * @param name Method name
+     * @return Returns coalescer or null if calls of the method are not
+     *         coalesced.
+     */
+    public JsonServiceCoalescer getCoalescer(String name) {
+
+        return coalescers.get(name);
+    }
+
+    /**
+     * Returns coalescers of identical calls of all methods.
+     * 
+     * @return Returns read-only map of coalescers.
+     */
+    public Map<String, JsonServiceCoalescer> getCoalescers() {
+
+        return coalescers;
+    }
+
+    /**
+     * Returns Service Mapping Description. The node must not be modified.
+     * 
+     * @return Returns JSON object.
+     */
+    public ObjectNode getServiceMap() {
+
+        return smd;
+    }
+
+    /**
+     * Returns Service Mapping Description rendered as JSON. The array must not
+     * be modified.
+     * 
+     * @param gzip Indicates that the content compressed with gzip is
+     *        returned.
+     * @return Returns content.
+     */
+    public byte[] getServiceMapBytes(boolean gzip) {
+
+        return gzip ? smdGzipBytes : smdBytes;
+    }
+
+    /**
+     * Returns strong entity tag of the Service Mapping Description.
+     * 
+     * @param gzip Indicates that the tag of the content compressed with gzip
+     *        is returned.
+     * @return Returns entity tag, including quotes.
+     */
+    public String getETag(boolean gzip) {
+
+        return gzip ? gzipEtag : etag;
+    }
+
+    /**
+     * Checks if a client already has the current Service Mapping Description,
+     * in either representation, so it can be answered with "304 Not
+     * Modified".
+     * 
+     * @param ifNoneMatch Value of the <code>If-None-Match</code> header or
+     *        null.
+     * @return Returns true or false.
+     */
+    public boolean isNotModified(String ifNoneMatch) {
+
+        if(ifNoneMatch == null) {
+            return false;
+        }
+        for(String tag: ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            // If-None-Match uses the weak comparison
+            if(tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if(tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+}
@@ -0,0 +1,171 @@
+package org.stefaniuk.json.service;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import javax.websocket.CloseReason;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.Session;
+import javax.websocket.server.ServerEndpointConfig;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * JSON service WebSocket endpoint.
+ * </p>
+ * <p>
+ * Speaks JSON-RPC over a WebSocket (JSR 356) against a
+ * {@link JsonServiceRegistry}. Each text message is a JSON-RPC request or batch
+ * and is answered by a text message, so a client can keep many calls in
+ * flight over a single connection instead of making an HTTP request for each
+ * of them. The messages of a session are carried by a
+ * {@link JsonServiceChannel}, which limits the number of calls in flight: once
+ * the limit is reached, the container thread delivering the next message
+ * waits, so the client is slowed down by the socket itself.
+ * </p>
+ * <p>
+ * The endpoint is deployed programmatically from a servlet context listener:
+ * </p>
+ * 
+ * <pre>
+ * ServerContainer container = (ServerContainer) context.getAttribute(&quot;javax.websocket.server.ServerContainer&quot;);
+ * container.addEndpoint(JsonServiceEndpoint.createConfig(&quot;/ws/example&quot;, registry, ExampleService.class));
+ * </pre>
+ * 
+ * <p>
+ * Notifications can be pushed to a client through the channel of its session,
+ * see {@link #getChannel(Session)}.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public class JsonServiceEndpoint extends Endpoint {
+
+    private final Logger logger = LoggerFactory.getLogger(JsonServiceEndpoint.class);
+
+    /** User property holding {@link JsonServiceRegistry}. */
+    public static final String REGISTRY = JsonServiceEndpoint.class.getName() + ".registry";
+
+    /** User property holding the registered class. */
+    public static final String CLASS = JsonServiceEndpoint.class.getName() + ".class";
+
+    /** User property holding {@link Executor} the messages are handled on. */
+    public static final String EXECUTOR = JsonServiceEndpoint.class.getName() + ".executor";
+
+    /** User property holding maximum number of messages in flight. */
+    public static final String MAX_IN_FLIGHT = JsonServiceEndpoint.class.getName() + ".maxInFlight";
+
+    /** User property indicating that replies are sent in order. */
+    public static final String ORDERED = JsonServiceEndpoint.class.getName() + ".ordered";
+
+    /** Session property holding {@link JsonServiceChannel}. */
+    public static final String CHANNEL = JsonServiceEndpoint.class.getName() + ".channel";
+
+    /** Messages are encoded in UTF-8. */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Creates configuration of the endpoint serving a registered class.
+     * 
+     * @param path Path, e.g. <code>/ws/example</code>
+     * @param registry Registry the messages are handled by.
+     * @param clazz Class
+     * @return Returns endpoint configuration, which further user properties
+     *         can be added to.
+     */
+    public static ServerEndpointConfig createConfig(String path, JsonServiceRegistry registry, Class<?> clazz) {
+
+        // the configurator looks up the container default only when a handshake needs it, whereas the builder
+        // looks it up straight away and fails outside a container
+        ServerEndpointConfig config = ServerEndpointConfig.Builder.create(JsonServiceEndpoint.class, path)
+            .configurator(new ServerEndpointConfig.Configurator()).build();
+        config.getUserProperties().put(REGISTRY, registry);
+        config.getUserProperties().put(CLASS, clazz);
+
+        return config;
+    }
+
+    /**
+     * Returns channel of a session opened by this endpoint.
+     * 
+     * @param session WebSocket session
+     * @return Returns {@link JsonServiceChannel} object or null.
+     */
+    public static JsonServiceChannel getChannel(Session session) {
+
+        return (JsonServiceChannel) session.getUserProperties().get(CHANNEL);
+    }
+
+    @Override
+    public void onOpen(final Session session, EndpointConfig config) {
+
+        Map<String, Object> properties = config.getUserProperties();
+        JsonServiceRegistry registry = (JsonServiceRegistry) properties.get(REGISTRY);
+        if(registry == null) {
+            registry = JsonServiceRegistry.getInstance();
+        }
+        Class<?> clazz = (Class<?>) properties.get(CLASS);
+        registry.register(clazz);
+
+        final JsonServiceChannel channel = new JsonServiceChannel(registry, clazz, new JsonServiceChannel.Sender() {
+
+            @Override
+            public void send(byte[] message) throws IOException {
+
+                session.getBasicRemote().sendText(new String(message, UTF_8));
+            }
+
+        });
+        if(properties.containsKey(EXECUTOR)) {
+            channel.setExecutor((Executor) properties.get(EXECUTOR));
+        }
+        if(properties.containsKey(MAX_IN_FLIGHT)) {
+            channel.setMaxInFlight((Integer) properties.get(MAX_IN_FLIGHT));
+        }
+        if(properties.containsKey(ORDERED)) {
+            channel.setOrdered((Boolean) properties.get(ORDERED));
+        }
+        session.getUserProperties().put(CHANNEL, channel);
+
+        session.addMessageHandler(new MessageHandler.Whole<String>() {
+
+            @Override
+            public void onMessage(String message) {
+
+                try {
+                    channel.receive(message.getBytes(UTF_8));
+                }
+                catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+        });
+        logger.debug("JSON-RPC WebSocket opened: " + session.getId());
+    }
+
+    @Override
+    public void onClose(Session session, CloseReason reason) {
+
+        JsonServiceChannel channel = getChannel(session);
+        if(channel != null) {
+            channel.close();
+        }
+        logger.debug("JSON-RPC WebSocket closed: " + session.getId());
+    }
+
+    @Override
+    public void onError(Session session, Throwable t) {
+
+        t.printStackTrace(System.err);
+    }
+
+}
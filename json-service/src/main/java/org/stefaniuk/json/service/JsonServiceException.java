@@ -28,6 +28,19 @@ public class JsonServiceException extends Exception {
         this.error = error;
     }
 
+    /**
+     * Constructor
+     * 
+     * @param error Error object
+     * @param message Message, e.g. as sent by a remote service.
+     */
+    public JsonServiceException(JsonServiceError error, String message) {
+
+        super(message);
+
+        this.error = error;
+    }
+
     /**
      * Returns error code.
      * 
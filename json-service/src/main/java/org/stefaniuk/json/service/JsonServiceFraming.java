@@ -0,0 +1,219 @@
+package org.stefaniuk.json.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * <p>
+ * JSON service framing.
+ * </p>
+ * <p>
+ * Splits a byte stream, e.g. a TCP or Unix domain socket, into JSON-RPC
+ * messages. Each message is a complete JSON-RPC request, batch or response.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public enum JsonServiceFraming {
+
+    /**
+     * Each message is followed by a line feed. Compact JSON never contains
+     * one, so a message can be written as it is. A carriage return before the
+     * line feed and empty lines are ignored, which makes it possible to talk
+     * to a server with a terminal.
+     */
+    NEWLINE,
+
+    /**
+     * Each message is preceded by its length, as a 4-byte big-endian
+     * integer.
+     */
+    LENGTH_PREFIXED;
+
+    /**
+     * Reads next message.
+     * 
+     * @param is Input stream, which should be buffered.
+     * @param maxMessageSize Maximum size of a message.
+     * @return Returns message or null at the end of the stream.
+     * @throws IOException if the message is too big or the stream ends in the
+     *         middle of it.
+     */
+    public byte[] read(InputStream is, int maxMessageSize) throws IOException {
+
+        if(this == NEWLINE) {
+            JsonServiceBufferPool.Output message = new JsonServiceBufferPool.Output();
+            try {
+                return readLine(is, message, maxMessageSize);
+            }
+            finally {
+                message.recycle();
+            }
+        }
+
+        int b = is.read();
+        if(b < 0) {
+            return null;
+        }
+        int length = b;
+        for(int i = 0; i < 3; i++) {
+            if((b = is.read()) < 0) {
+                throw new EOFException("Stream ended in the middle of a message");
+            }
+            length = length << 8 | b;
+        }
+        if(length < 0 || length > maxMessageSize) {
+            throw new IOException("Message is bigger than " + maxMessageSize + " bytes");
+        }
+        byte[] message = new byte[length];
+        int offset = 0;
+        while(offset < length) {
+            int n = is.read(message, offset, length - offset);
+            if(n < 0) {
+                throw new EOFException("Stream ended in the middle of a message");
+            }
+            offset += n;
+        }
+
+        return message;
+    }
+
+    /**
+     * Reads message terminated by a new line.
+     */
+    private static byte[] readLine(InputStream is, JsonServiceBufferPool.Output message, int maxMessageSize)
+            throws IOException {
+
+        int b;
+        while((b = is.read()) >= 0) {
+            if(b == '\n') {
+                byte[] line = message.toByteArray();
+                int length = line.length > 0 && line[line.length - 1] == '\r' ? line.length - 1 : line.length;
+                if(length == 0) {
+                    message.reset();
+                    continue;
+                }
+                if(length < line.length) {
+                    byte[] trimmed = new byte[length];
+                    System.arraycopy(line, 0, trimmed, 0, length);
+                    return trimmed;
+                }
+                return line;
+            }
+            if(message.size() >= maxMessageSize) {
+                throw new IOException("Message is bigger than " + maxMessageSize + " bytes");
+            }
+            message.write(b);
+        }
+        if(message.size() > 0) {
+            throw new EOFException("Stream ended in the middle of a message");
+        }
+
+        return null;
+    }
+
+    /**
+     * Writes message. The stream is not flushed.
+     * 
+     * @param os Output stream
+     * @param message Message
+     * @throws IOException
+     */
+    public void write(OutputStream os, byte[] message) throws IOException {
+
+        if(this == NEWLINE) {
+            os.write(message);
+            os.write('\n');
+        }
+        else {
+            int length = message.length;
+            os.write(length >>> 24);
+            os.write(length >>> 16);
+            os.write(length >>> 8);
+            os.write(length);
+            os.write(message);
+        }
+    }
+
+    /**
+     * Creates input stream of a blocking socket channel. Unlike
+     * {@link java.nio.channels.Channels#newInputStream(java.nio.channels.ReadableByteChannel)
+     * Channels.newInputStream}, it does not hold a lock while it waits for
+     * data, so another thread can write to the channel at the same time.
+     * 
+     * @param channel Socket channel
+     * @return Returns input stream.
+     */
+    static InputStream newInputStream(final SocketChannel channel) {
+
+        return new InputStream() {
+
+            @Override
+            public int read() throws IOException {
+
+                byte[] b = new byte[1];
+                int n;
+                while((n = read(b, 0, 1)) == 0) {
+                    // try again
+                }
+
+                return n < 0 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+
+                return len == 0 ? 0 : channel.read(ByteBuffer.wrap(b, off, len));
+            }
+
+            @Override
+            public void close() throws IOException {
+
+                channel.close();
+            }
+
+        };
+    }
+
+    /**
+     * Creates output stream of a blocking socket channel, see
+     * {@link #newInputStream(SocketChannel)}.
+     * 
+     * @param channel Socket channel
+     * @return Returns output stream.
+     */
+    static OutputStream newOutputStream(final SocketChannel channel) {
+
+        return new OutputStream() {
+
+            @Override
+            public void write(int b) throws IOException {
+
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                while(buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+
+                channel.close();
+            }
+
+        };
+    }
+
+}
@@ -1,28 +1,33 @@
 package org.stefaniuk.json.service;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 
 import javax.servlet.http.HttpServletRequest;
 
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonStreamContext;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.impl.Utf8Generator;
 import org.codehaus.jackson.map.JsonMappingException;
 import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.map.type.TypeFactory;
+import org.codehaus.jackson.map.SerializationConfig;
 import org.codehaus.jackson.node.ArrayNode;
 import org.codehaus.jackson.node.ObjectNode;
-import org.codehaus.jackson.node.POJONode;
+import org.codehaus.jackson.util.TokenBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,23 +51,29 @@ public class JsonServiceInvoker {
 
     private final Logger logger = LoggerFactory.getLogger(JsonServiceInvoker.class);
 
+    /** Suffix of the class name of an invoker generated at build time. */
+    private static final String GENERATED_SUFFIX = "_JsonServiceInvoker";
+
     /**
      * This object provides functionality for conversion between Java objects
-     * and JSON.
+     * and JSON. Results are written to a generator shared by the whole
+     * response, so it must not flush after each of them.
      */
-    private static ObjectMapper mapper = new ObjectMapper();
-
-    /** Indicates if object has been initialised. */
-    private boolean isInitialised = false;
+    private static ObjectMapper mapper = new ObjectMapper().configure(
+        SerializationConfig.Feature.FLUSH_AFTER_WRITE_VALUE, false);
 
     /** This is registered JSON-RPC class. */
     private final Class<?> clazz;
 
-    /** This is registered JSON-RPC object. */
+    /** This is registered JSON-RPC object, if it has been passed in. */
     private Object context;
 
-    /** Collection of all JSON-RPC method exposed to a client. */
-    private Map<String, Method> methods = new HashMap<String, Method>();
+    /**
+     * Methods and Service Mapping Description built once for the registered
+     * class. It is published through the volatile field, so a request never
+     * sees a partially built method table.
+     */
+    private volatile JsonServiceDescriptor descriptor;
 
     /**
      * The transport property defines the transport mechanism to be used to
@@ -82,8 +93,21 @@ public class JsonServiceInvoker {
     /** Version of Service Mapping Description */
     private Version version = Version.SMD_2_0;
 
-    /** Service Mapping Description */
-    private ObjectNode smd;
+    /** Permits limiting concurrent calls of the class or null. */
+    private volatile Semaphore bulkhead = null;
+
+    /**
+     * Caches of the results of methods, kept when the descriptor is built
+     * again, so cached results are discarded only by
+     * {@link #invalidateCaches()}.
+     */
+    private Map<String, JsonServiceResultCache> caches;
+
+    /**
+     * Coalescers of identical calls of methods, kept when the descriptor is
+     * built again, so calls running at that time are still joined.
+     */
+    private Map<String, JsonServiceCoalescer> coalescers;
 
     /**
      * JSON-RPC transport type.
@@ -110,14 +134,19 @@ public class JsonServiceInvoker {
     }
 
     /**
-     * JSON-RPC response content type.
+     * JSON-RPC response content type. Besides text JSON, requests and
+     * responses can be encoded in Smile, a binary format with the same data
+     * model, which is smaller and faster to parse, e.g. for large numeric
+     * payloads. The format is negotiated per request from the
+     * <code>Content-Type</code> and <code>Accept</code> headers.
      * 
      * @author Daniel Stefaniuk
      */
     public static enum ContentType {
 
         UNDEFINED(""),
-        APPLICATION_JSON("application/json");
+        APPLICATION_JSON("application/json"),
+        APPLICATION_SMILE("application/x-jackson-smile");
 
         private final String name;
 
@@ -126,6 +155,119 @@ public class JsonServiceInvoker {
             this.name = name;
         }
 
+        /**
+         * Indicates that the content is binary rather than text.
+         * 
+         * @return Returns true or false.
+         */
+        public boolean isBinary() {
+
+            return this == APPLICATION_SMILE;
+        }
+
+        /**
+         * Returns content type of a media type, e.g. the value of a
+         * <code>Content-Type</code> header. Parameters such as
+         * <code>charset</code> are ignored.
+         * 
+         * @param mediaType Media type
+         * @return Returns {@link ContentType} object or null if the media type
+         *         is not supported.
+         */
+        public static ContentType forMediaType(String mediaType) {
+
+            if(mediaType == null) {
+                return null;
+            }
+            int i = mediaType.indexOf(';');
+            String name = (i < 0 ? mediaType : mediaType.substring(0, i)).trim();
+            for(ContentType type: values()) {
+                if(type != UNDEFINED && type.name.equalsIgnoreCase(name)) {
+                    return type;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Returns content type of a request body.
+         * 
+         * @param contentType Value of the <code>Content-Type</code> header or
+         *        null.
+         * @return Returns {@link ContentType} object, JSON unless another
+         *         supported type is given.
+         */
+        public static ContentType forRequest(String contentType) {
+
+            ContentType type = forMediaType(contentType);
+
+            return type != null ? type : APPLICATION_JSON;
+        }
+
+        /**
+         * Returns content type of a response, which is the supported type
+         * with the highest quality in the <code>Accept</code> header. If none
+         * of them is supported, the response has the type of the request.
+         * 
+         * @param accept Value of the <code>Accept</code> header or null.
+         * @param request Content type of the request.
+         * @return Returns {@link ContentType} object.
+         */
+        public static ContentType forResponse(String accept, ContentType request) {
+
+            ContentType best = null;
+            float quality = 0;
+            if(accept != null) {
+                for(String range: accept.split(",")) {
+                    ContentType type = forMediaType(range);
+                    if(type == null) {
+                        continue;
+                    }
+                    float q = 1;
+                    for(String param: range.split(";")) {
+                        param = param.trim();
+                        if(param.startsWith("q=")) {
+                            try {
+                                q = Float.parseFloat(param.substring(2));
+                            }
+                            catch(NumberFormatException e) {
+                                q = 0;
+                            }
+                        }
+                    }
+                    if(q > quality) {
+                        best = type;
+                        quality = q;
+                    }
+                }
+            }
+
+            return best != null ? best : request;
+        }
+
+        /**
+         * Returns content type of a request body.
+         * 
+         * @param request HTTP request or null.
+         * @return Returns {@link ContentType} object.
+         */
+        public static ContentType forRequest(HttpServletRequest request) {
+
+            return forRequest(request != null ? request.getContentType() : null);
+        }
+
+        /**
+         * Returns content type of a response.
+         * 
+         * @param request HTTP request or null.
+         * @return Returns {@link ContentType} object.
+         */
+        public static ContentType forResponse(HttpServletRequest request) {
+
+            return request != null ? forResponse(request.getHeader("Accept"), forRequest(request)) : APPLICATION_JSON;
+        }
+
         @Override
         public String toString() {
 
@@ -204,10 +346,15 @@ public class JsonServiceInvoker {
 
         public static String getName(Class<?> clazz) {
 
+            return getName(clazz.getName());
+        }
+
+        public static String getName(String className) {
+
             // check all data types
             for(DataType type: DataType.values()) {
                 for(Class<?> c: type.classes) {
-                    if(clazz.equals(c)) {
+                    if(className.equals(c.getName())) {
                         return type.toString();
                     }
                 }
@@ -245,6 +392,91 @@ public class JsonServiceInvoker {
         this.context = obj;
     }
 
+    /**
+     * Creates invoker for a given class. An invoker generated at build time by
+     * {@link org.stefaniuk.json.service.processor.JsonServiceProcessor} is
+     * preferred, if it exists.
+     * 
+     * @param clazz Class
+     * @return Returns {@link JsonServiceInvoker} object.
+     */
+    public static JsonServiceInvoker create(Class<?> clazz) {
+
+        Constructor<?> ctor = getGeneratedConstructor(clazz);
+        if(ctor != null) {
+            try {
+                return (JsonServiceInvoker) ctor.newInstance();
+            }
+            catch(Exception e) {
+                e.printStackTrace(System.err);
+            }
+        }
+
+        return new JsonServiceInvoker(clazz);
+    }
+
+    /**
+     * Creates invoker for an already instantiated object. An invoker generated
+     * at build time by
+     * {@link org.stefaniuk.json.service.processor.JsonServiceProcessor} is
+     * preferred, if it exists.
+     * 
+     * @param obj Object
+     * @return Returns {@link JsonServiceInvoker} object.
+     */
+    public static JsonServiceInvoker create(Object obj) {
+
+        Constructor<?> ctor = getGeneratedConstructor(obj.getClass(), Object.class);
+        if(ctor != null) {
+            try {
+                return (JsonServiceInvoker) ctor.newInstance(obj);
+            }
+            catch(Exception e) {
+                e.printStackTrace(System.err);
+            }
+        }
+
+        return new JsonServiceInvoker(obj);
+    }
+
+    /**
+     * Returns binary name of the invoker generated for a given class.
+     * 
+     * @param name Binary name of JSON-RPC class.
+     * @return Returns class name.
+     */
+    public static String getGeneratedName(String name) {
+
+        int i = name.lastIndexOf('.');
+
+        return name.substring(0, i + 1) + name.substring(i + 1).replace('$', '_') + GENERATED_SUFFIX;
+    }
+
+    /**
+     * Looks up constructor of the invoker generated for a given class.
+     * 
+     * @param clazz Class
+     * @param types Constructor parameter types.
+     * @return Returns constructor or null if there is no generated invoker.
+     */
+    private static Constructor<?> getGeneratedConstructor(Class<?> clazz, Class<?>... types) {
+
+        try {
+            Class<?> generated = Class.forName(getGeneratedName(clazz.getName()), true, clazz.getClassLoader());
+            if(JsonServiceInvoker.class.isAssignableFrom(generated)) {
+                return generated.getConstructor(types);
+            }
+        }
+        catch(ClassNotFoundException e) {
+            // class has not been processed at build time
+        }
+        catch(NoSuchMethodException e) {
+            e.printStackTrace(System.err);
+        }
+
+        return null;
+    }
+
     /**
      * Sets transport.
      * 
@@ -254,6 +486,7 @@ public class JsonServiceInvoker {
     public JsonServiceInvoker setTransport(Transport transport) {
 
         this.transport = transport;
+        reset();
 
         return this;
     }
@@ -277,6 +510,7 @@ public class JsonServiceInvoker {
     public JsonServiceInvoker setContentType(ContentType contentType) {
 
         this.contentType = contentType;
+        reset();
 
         return this;
     }
@@ -300,6 +534,7 @@ public class JsonServiceInvoker {
     public JsonServiceInvoker setEnvelope(Envelope envelope) {
 
         this.envelope = envelope;
+        reset();
 
         return this;
     }
@@ -323,6 +558,7 @@ public class JsonServiceInvoker {
     public JsonServiceInvoker setVersion(Version version) {
 
         this.version = version;
+        reset();
 
         return this;
     }
@@ -337,98 +573,390 @@ public class JsonServiceInvoker {
         return version;
     }
 
+    /**
+     * Limits number of calls of the class running at the same time, across
+     * all requests. A call that exceeds the limit waits for a permit.
+     * 
+     * @param limit Maximum number of calls or 0 for no limit.
+     * @return Returns {@link JsonServiceInvoker} object.
+     */
+    public JsonServiceInvoker setConcurrencyLimit(int limit) {
+
+        this.bulkhead = limit > 0 ? new Semaphore(limit) : null;
+
+        return this;
+    }
+
+    /**
+     * Returns cache of the results of a method.
+     * 
+     * @param method Method name
+     * @return Returns {@link JsonServiceResultCache} object or null if the
+     *         results of the method are not cached.
+     */
+    public JsonServiceResultCache getCache(String method) {
+
+        return getDescriptor().getCache(method);
+    }
+
+    /**
+     * Returns coalescer of identical calls of a method, e.g. to read how many
+     * calls it has coalesced.
+     * 
+     * @param method Method name
+     * @return Returns {@link JsonServiceCoalescer} object or null if calls of
+     *         the method are not coalesced.
+     */
+    public JsonServiceCoalescer getCoalescer(String method) {
+
+        return getDescriptor().getCoalescer(method);
+    }
+
+    /**
+     * Discards cached results of all methods.
+     */
+    public void invalidateCaches() {
+
+        for(JsonServiceResultCache cache: getDescriptor().getCaches().values()) {
+            cache.invalidate();
+        }
+    }
+
+    /**
+     * Returns descriptor of registered JSON-RPC class. It is built only once,
+     * when it is requested for the first time. A descriptor that cannot be
+     * built is not kept, so it is built again on the next request.
+     * 
+     * @return Returns {@link JsonServiceDescriptor} object.
+     * @throws IllegalStateException if the descriptor cannot be built.
+     */
+    protected JsonServiceDescriptor getDescriptor() {
+
+        // enter synchronised block only if necessary
+        JsonServiceDescriptor d = descriptor;
+        if(d == null) {
+            synchronized(this) {
+                // needs to be check again due to possible race condition
+                d = descriptor;
+                if(d == null) {
+                    d = createDescriptor();
+                    logger.debug("JSON-RPC SMD: " + d.getServiceMap().toString());
+                    descriptor = d;
+                }
+            }
+        }
+
+        return d;
+    }
+
+    /**
+     * Discards descriptor, so it is built again on the next request. The
+     * instance of registered JSON-RPC class, the caches and the coalescers are
+     * preserved.
+     */
+    private synchronized void reset() {
+
+        if(descriptor != null) {
+            context = descriptor.getContext();
+            caches = descriptor.getCaches();
+            coalescers = descriptor.getCoalescers();
+            descriptor = null;
+        }
+    }
+
     /**
      * This method creates an instance of registered JSON-RPC class and produces
      * Service Mapping Description.
+     * 
+     * @return Returns {@link JsonServiceDescriptor} object.
+     * @throws IllegalStateException if the instance or the methods cannot be
+     *         created.
      */
-    private void init() {
+    private JsonServiceDescriptor createDescriptor() {
+
+        Object context = this.context;
+        Map<String, JsonServiceMethod> methods;
+        Map<String, JsonServiceResultCache> caches = this.caches;
+        Map<String, JsonServiceCoalescer> coalescers = this.coalescers;
+        ObjectNode smd;
 
         try {
 
             // create an instance
             if(context == null) {
-                Constructor<?> ctor = clazz.getConstructor();
-                context = ctor.newInstance();
+                context = createContext();
             }
 
             // get methods
-            for(Method method: clazz.getMethods()) {
-                if(isService(clazz, method)) {
-                    methods.put(method.getName(), method);
-                }
+            methods = createMethods(context);
+            if(caches == null) {
+                caches = createCaches();
+            }
+            if(coalescers == null) {
+                coalescers = createCoalescers();
             }
 
             // produce Service Mapping Description
-            smd = mapper.createObjectNode();
-            smd.put("transport", transport.toString());
-            smd.put("contentType", contentType.toString());
-            smd.put("envelope", envelope.toString());
-            smd.put("SMDVersion", version.toString());
-            smd.put("additionalParameters", false);
+            smd = createServiceMap();
+
+            // advertise all encodings a client can use
+            ArrayNode contentTypes = smd.putArray("contentTypes");
+            for(ContentType type: ContentType.values()) {
+                if(type != ContentType.UNDEFINED) {
+                    contentTypes.add(type.toString());
+                }
+            }
+        }
+        catch(Exception e) {
+            throw new IllegalStateException("Cannot build descriptor of " + clazz.getName(), e);
+        }
 
-            ObjectNode services = mapper.createObjectNode();
-            for(Method method: methods.values()) {
+        return new JsonServiceDescriptor(context, methods, caches, coalescers, smd);
+    }
 
-                ObjectNode temp = mapper.createObjectNode();
+    /**
+     * Creates an instance of registered JSON-RPC class.
+     * 
+     * @return Returns object.
+     * @throws Exception
+     */
+    protected Object createContext() throws Exception {
 
-                JsonService annotation = method.getAnnotation(JsonService.class);
-                if(annotation == null) {
-                    annotation = clazz.getAnnotation(JsonService.class);
-                }
+        Constructor<?> ctor = clazz.getConstructor();
 
-                // transport
-                Transport transport = annotation.transport();
-                if(transport != Transport.UNDEFINED && transport != this.transport) {
-                    temp.put("transport", transport.toString());
-                }
-                // contentType
-                ContentType contentType = annotation.contentType();
-                if(contentType != ContentType.UNDEFINED && contentType != this.contentType) {
-                    temp.put("contentType", contentType.toString());
-                }
-                // envelope
-                Envelope envelope = annotation.envelope();
-                if(envelope != Envelope.UNDEFINED && envelope != this.envelope) {
-                    temp.put("envelope", envelope.toString());
-                }
-                // target
-                String target = annotation.target();
-                if(!target.equals("")) {
-                    temp.put("target", target);
-                }
-                // description
-                String description = annotation.description();
-                if(!description.equals("")) {
-                    temp.put("description", description);
-                }
-                // parameters
-                ArrayNode parameters = mapper.createArrayNode();
-                for(Class<?> type: method.getParameterTypes()) {
-                    ObjectNode node = mapper.createObjectNode();
-                    node.put("type", DataType.getName(type));
-                    parameters.add(node);
-                }
-                temp.put("parameters", parameters);
-                // returns
-                Class<?> returnType = method.getReturnType();
-                if(!"void".equals(returnType.toString())) {
-                    ObjectNode node = mapper.createObjectNode();
-                    node.put("type", DataType.getName(returnType));
-                    temp.put("returns", node);
-                }
+        return ctor.newInstance();
+    }
+
+    /**
+     * Creates methods exposed to a client.
+     * 
+     * @param context Instance of registered JSON-RPC class.
+     * @return Returns map of methods.
+     * @throws Exception
+     */
+    protected Map<String, JsonServiceMethod> createMethods(Object context) throws Exception {
+
+        Map<String, JsonServiceMethod> methods = new HashMap<String, JsonServiceMethod>();
+        for(Method method: findMethods().values()) {
+            methods.put(method.getName(), JsonServiceMethod.create(context, method));
+        }
 
-                services.put(method.getName(), temp);
+        return methods;
+    }
+
+    /**
+     * Creates caches of the results of methods declared with
+     * {@link JsonService#cacheTtl()}.
+     * 
+     * @return Returns map of caches.
+     */
+    protected Map<String, JsonServiceResultCache> createCaches() {
+
+        Map<String, JsonServiceResultCache> caches = new HashMap<String, JsonServiceResultCache>();
+        for(Method method: findMethods().values()) {
+            JsonService annotation = getAnnotation(method);
+            if(annotation.cacheTtl() > 0 && isShareable(method)) {
+                caches.put(method.getName(), new JsonServiceResultCache(annotation.cacheTtl(), annotation.cacheSize()));
             }
-            smd.put("services", services);
+        }
 
+        return caches;
+    }
+
+    /**
+     * Creates coalescers of identical calls of methods declared with
+     * {@link JsonService#coalesce()}.
+     * 
+     * @return Returns map of coalescers.
+     */
+    protected Map<String, JsonServiceCoalescer> createCoalescers() {
+
+        Map<String, JsonServiceCoalescer> coalescers = new HashMap<String, JsonServiceCoalescer>();
+        for(Method method: findMethods().values()) {
+            if(getAnnotation(method).coalesce() && isShareable(method)) {
+                coalescers.put(method.getName(), new JsonServiceCoalescer());
+            }
         }
-        catch(Exception e) {
-            e.printStackTrace(System.err);
+
+        return coalescers;
+    }
+
+    /**
+     * Returns annotation of a method or, if the method is not annotated, of
+     * the registered class.
+     */
+    private JsonService getAnnotation(Method method) {
+
+        JsonService annotation = method.getAnnotation(JsonService.class);
+
+        return annotation != null ? annotation : clazz.getAnnotation(JsonService.class);
+    }
+
+    /**
+     * Checks if a result of a method may be returned to calls other than the
+     * one that has produced it. It may not if the method returns nothing or
+     * reads the HTTP request, which can differ between the calls.
+     */
+    private static boolean isShareable(Method method) {
+
+        return method.getReturnType() != void.class
+            && !Arrays.asList(method.getParameterTypes()).contains(HttpServletRequest.class);
+    }
+
+    /**
+     * Produces Service Mapping Description.
+     * 
+     * @return Returns JSON object.
+     * @throws Exception
+     */
+    protected ObjectNode createServiceMap() throws Exception {
+
+        ObjectNode smd = mapper.createObjectNode();
+
+        smd.put("transport", transport.toString());
+        smd.put("contentType", contentType.toString());
+        smd.put("envelope", envelope.toString());
+        smd.put("SMDVersion", version.toString());
+        smd.put("additionalParameters", false);
+
+        ObjectNode services = mapper.createObjectNode();
+        for(Method method: findMethods().values()) {
+
+            ObjectNode temp = mapper.createObjectNode();
+
+            JsonService annotation = method.getAnnotation(JsonService.class);
+            if(annotation == null) {
+                annotation = clazz.getAnnotation(JsonService.class);
+            }
+
+            // transport
+            Transport transport = annotation.transport();
+            if(transport != Transport.UNDEFINED && transport != this.transport) {
+                temp.put("transport", transport.toString());
+            }
+            // contentType
+            ContentType contentType = annotation.contentType();
+            if(contentType != ContentType.UNDEFINED && contentType != this.contentType) {
+                temp.put("contentType", contentType.toString());
+            }
+            // envelope
+            Envelope envelope = annotation.envelope();
+            if(envelope != Envelope.UNDEFINED && envelope != this.envelope) {
+                temp.put("envelope", envelope.toString());
+            }
+            // target
+            String target = annotation.target();
+            if(!target.equals("")) {
+                temp.put("target", target);
+            }
+            // description
+            String description = annotation.description();
+            if(!description.equals("")) {
+                temp.put("description", description);
+            }
+            // parameters
+            ArrayNode parameters = mapper.createArrayNode();
+            for(Class<?> type: method.getParameterTypes()) {
+                ObjectNode node = mapper.createObjectNode();
+                node.put("type", DataType.getName(type));
+                parameters.add(node);
+            }
+            temp.put("parameters", parameters);
+            // returns
+            Class<?> returnType = method.getReturnType();
+            if(!"void".equals(returnType.toString())) {
+                ObjectNode node = mapper.createObjectNode();
+                node.put("type", DataType.getName(returnType));
+                temp.put("returns", node);
+            }
+
+            services.put(method.getName(), temp);
         }
+        smd.put("services", services);
+
+        return smd;
+    }
+
+    /**
+     * Parses Service Mapping Description rendered at build time.
+     * 
+     * @param smd Service Mapping Description as JSON string.
+     * @return Returns JSON object.
+     * @throws IOException
+     */
+    protected static ObjectNode readServiceMap(String smd) throws IOException {
+
+        return (ObjectNode) mapper.readTree(smd);
     }
 
     /**
-     * Checks if a given method is defined as JSON-RPC method.
+     * Finds methods exposed to a client by reflection.
+     * 
+     * @return Returns map of methods.
+     */
+    private Map<String, Method> findMethods() {
+
+        Map<String, Method> methods = new HashMap<String, Method>();
+        for(Method method: clazz.getMethods()) {
+            if(isService(clazz, method)) {
+                Method overload = methods.get(method.getName());
+                if(overload == null || isPreferredOverload(getTypeNames(method), getTypeNames(overload))) {
+                    methods.put(method.getName(), method);
+                }
+            }
+        }
+
+        return methods;
+    }
+
+    /**
+     * Returns canonical names of parameter types of a method.
+     */
+    private static String[] getTypeNames(Method method) {
+
+        Class<?>[] types = method.getParameterTypes();
+        String[] names = new String[types.length];
+        for(int i = 0; i < types.length; i++) {
+            String name = types[i].getCanonicalName();
+            names[i] = name != null ? name : types[i].getName();
+        }
+
+        return names;
+    }
+
+    /**
+     * Checks if a method is exposed in preference to its overload. A client
+     * calls a method by its name only, so of overloaded methods the one with
+     * fewer parameters is exposed or, if they have as many, the one whose
+     * parameter type names come first. The annotation processor follows the
+     * same rule, so a class dispatches alike with or without it.
+     * 
+     * @param types Canonical names of parameter types of the method.
+     * @param overloadTypes Canonical names of parameter types of the
+     *        overload.
+     * @return Returns true or false.
+     */
+    public static boolean isPreferredOverload(String[] types, String[] overloadTypes) {
+
+        if(types.length != overloadTypes.length) {
+            return types.length < overloadTypes.length;
+        }
+        for(int i = 0; i < types.length; i++) {
+            int order = types[i].compareTo(overloadTypes[i]);
+            if(order != 0) {
+                return order < 0;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if a given method is defined as JSON-RPC method. Bridge methods
+     * generated by the compiler for a generic interface, e.g.
+     * <code>Store&lt;M&gt;</code>, are skipped, as their parameters are erased
+     * and would be bound to maps instead of model objects. Methods of
+     * {@link Object} are never exposed.
      * 
      * @param clazz Class
      * @param method Method
@@ -436,6 +964,10 @@ public class JsonServiceInvoker {
      */
     private boolean isService(Class<?> clazz, Method method) {
 
+        if(method.isBridge() || method.getDeclaringClass() == Object.class) {
+            return false;
+        }
+
         boolean hasAnnotation = clazz.getAnnotation(JsonService.class) != null
             || method.getAnnotation(JsonService.class) != null;
 
@@ -447,14 +979,9 @@ public class JsonServiceInvoker {
      * 
      * @return Returns JSON object.
      */
-    protected JsonNode getServiceMap() {
+    public JsonNode getServiceMap() {
 
-        if(!isInitialised) {
-            init();
-            logger.debug("JSON-RPC SMD: " + smd.toString());
-        }
-
-        return smd;
+        return getDescriptor().getServiceMap();
     }
 
     /**
@@ -462,291 +989,415 @@ public class JsonServiceInvoker {
      * 
      * @param request HTTP request
      * @param requestNode JSON-RPC request
-     * @return Returns JSON object.
+     * @return Returns JSON object or null if the request is a notification.
      * @throws IllegalAccessException
      * @throws InvocationTargetException
      * @throws JsonParseException
      * @throws JsonMappingException
      * @throws IOException
      */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     protected JsonNode process(HttpServletRequest request, ObjectNode requestNode) throws IllegalAccessException,
     InvocationTargetException, JsonParseException, JsonMappingException, IOException {
 
-        // TODO: improve error handling
+        if(logger.isDebugEnabled()) {
+            logger.debug("JSON-RPC request: " + requestNode.toString());
+        }
+
+        JsonParser parser = requestNode.traverse();
+        parser.nextToken();
+        TokenBuffer buffer = new TokenBuffer(mapper);
+        process(request, parser, buffer);
+
+        JsonParser response = buffer.asParser(mapper);
+        if(response.nextToken() == null) {
+            // notification
+            return null;
+        }
 
-        logger.debug("JSON-RPC request: " + requestNode.toString());
+        return mapper.readTree(response);
+    }
+
+    /**
+     * Processes JSON-RPC request read by a parser and writes the response to a
+     * generator.
+     * 
+     * @param request HTTP request
+     * @param parser Parser positioned at the start of JSON-RPC request object.
+     *        It is left at the end of the object.
+     * @param generator Generator the JSON-RPC response object is written to.
+     *        Nothing is written if the request is a notification.
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     * @throws JsonParseException
+     * @throws JsonMappingException
+     * @throws IOException
+     */
+    protected void process(HttpServletRequest request, JsonParser parser, JsonGenerator generator)
+            throws IllegalAccessException, InvocationTargetException, JsonParseException, JsonMappingException,
+            IOException {
+
+        JsonServiceCall call = read(request, parser);
+        if(call.isNotification()) {
+            call.run();
+        }
+        else {
+            write(generator, call.invoke());
+        }
+    }
+
+    /**
+     * <p>
+     * Reads JSON-RPC request.
+     * </p>
+     * <p>
+     * The request envelope is read token by token. Each element of
+     * <code>params</code> is bound straight to the type of the corresponding
+     * method parameter, so neither the request nor its parameters are turned
+     * into a tree. If <code>params</code> comes before <code>method</code>,
+     * its tokens are buffered until the method is known.
+     * </p>
+     * 
+     * @param request HTTP request
+     * @param parser Parser positioned at the start of JSON-RPC request object.
+     *        It is left at the end of the object.
+     * @return Returns {@link JsonServiceCall} object ready to be invoked.
+     * @throws JsonParseException
+     * @throws JsonMappingException
+     * @throws IOException
+     */
+    protected JsonServiceCall read(HttpServletRequest request, JsonParser parser) throws JsonParseException,
+            JsonMappingException, IOException {
+
+        // TODO: improve error handling
 
         // make sure this object has been initialised
-        if(!isInitialised) {
-            init();
+        JsonServiceDescriptor descriptor = getDescriptor();
+
+        Integer id = null;
+        boolean hasId = false;
+        String name = null;
+        JsonServiceMethod method = null;
+        Object[] args = null;
+        TokenBuffer params = null;
+        JsonServiceException failure = null;
+
+        // read request envelope
+        while(parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if("id".equals(field)) {
+                id = token == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+                hasId = true;
+                parser.skipChildren();
+            }
+            else if("method".equals(field)) {
+                name = token == JsonToken.VALUE_STRING ? parser.getText() : null;
+                method = name != null ? descriptor.getMethod(name) : null;
+                parser.skipChildren();
+            }
+            else if("params".equals(field) && method != null) {
+                try {
+                    args = bindArguments(request, method, parser);
+                }
+                catch(JsonServiceException e) {
+                    failure = e;
+                }
+            }
+            else if("params".equals(field) && name == null) {
+                // method is not known yet
+                params = new TokenBuffer(mapper);
+                params.copyCurrentStructure(parser);
+            }
+            else {
+                parser.skipChildren();
+            }
         }
 
-        JsonNode response = null;
+        // a valid request without id is a notification
+        boolean notification = !hasId && name != null;
 
         try {
 
             // get method name
-            if(!requestNode.has("method") || "".equals(requestNode.get("method"))) {
+            if(name == null) {
                 throw new JsonServiceException(JsonServiceError.INVALID_REQUEST);
             }
-            String name = requestNode.get("method").getTextValue();
 
             // get reference of the method
-            Method method = methods.get(name);
             if(method == null) {
                 throw new JsonServiceException(JsonServiceError.METHOD_NOT_FOUND);
             }
 
-            logger.debug("JSON-RPC method call: " + method.getDeclaringClass().getName() + "." + method.getName());
-
-            // get parameters
-            ArrayNode params = ArrayNode.class.cast(requestNode.get("params"));
-            ArrayList<Object> temp = new ArrayList<Object>();
-            Type[] types = method.getGenericParameterTypes();
-            int i = 0, count = 1;
-            for(Type type: types) {
-                if(type.equals(HttpServletRequest.class)) {
-                    logger.debug("JSON-RPC argument type " + count + ": " + request.getClass().getCanonicalName());
-                    temp.add(request);
-                }
-                else {
-                    JsonNode node = params.get(i++);
-                    Object obj = mapper.treeToValue(node, TypeFactory.rawClass(type));
-                    if(obj instanceof List) {
-                        List list = (List) obj;
-                        for(int j = 0; j < list.size(); j++) {
-                            try {
-                                // get class name of the generic type
-                                String className = ((ParameterizedType) type).getActualTypeArguments()[0].toString().replace("class ", "");
-                                // convert LinkedHasMap to POJO
-                                Object pojo = mapper.readValue(
-                                    JsonServiceUtil.toJson((Map<?, ?>) list.get(j)),
-                                    Class.forName(className));
-                                // replace LinkedHasMap by POJO
-                                list.set(j, pojo);
-                            }
-                            catch(ClassNotFoundException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                    }
-                    temp.add(obj);
-                    logger.debug("JSON-RPC argument " + count + " type: " + obj.getClass().getCanonicalName());
-                    logger.debug("JSON-RPC argument " + count + " value: " + obj.toString());
-                }
-                count++;
+            if(logger.isDebugEnabled()) {
+                logger.debug("JSON-RPC method call: " + clazz.getName() + "." + method.getName());
             }
-            Object[] args = new Object[temp.size()];
-            temp.toArray(args);
 
-            // invoke method
-            try {
-                response = getJsonRpcSuccessResponse(requestNode.get("id").getIntValue(), method.invoke(context, args));
-            }
-            catch(IllegalArgumentException e) {
-                throw new JsonServiceException(JsonServiceError.INVALID_PARAMS);
+            // get parameters
+            if(failure != null) {
+                throw failure;
             }
-        }
-        catch(InvocationTargetException e) {
-            Throwable t = e.getCause();
-            if(t instanceof JsonServiceException) {
-                JsonServiceException jse = (JsonServiceException) t;
-                response = getJsonRpcErrorResponse(requestNode.get("id").getIntValue(), jse.getError());
+            if(args == null) {
+                JsonParser buffered = null;
+                if(params != null) {
+                    buffered = params.asParser(mapper);
+                    buffered.nextToken();
+                }
+                args = bindArguments(request, method, buffered);
             }
-            else {
-                throw e;
+            if(logger.isDebugEnabled()) {
+                for(int i = 0; i < args.length; i++) {
+                    logger.debug("JSON-RPC argument " + (i + 1) + ": " + args[i]);
+                }
             }
         }
         catch(JsonServiceException e) {
-            response = getJsonRpcErrorResponse(requestNode.get("id").getIntValue(), e.getError());
+            return new JsonServiceCall(id, notification, e.getError());
         }
 
-        logger.debug("JSON-RPC response: " + response.toString());
-
-        return response;
+        return new JsonServiceCall(id, notification, method, args, bulkhead, descriptor.getCache(method.getName()),
+            descriptor.getCoalescer(method.getName()));
     }
 
     /**
-     * Processes request.
+     * Writes JSON-RPC response of a completed call. The result is serialised
+     * straight to the generator, so no intermediate tree is built, even for
+     * large collections.
      * 
-     * @param request HTTP request
-     * @param method Method name
-     * @return Returns JSON object.
-     * @throws IllegalAccessException
-     * @throws InvocationTargetException
-     * @throws JsonParseException
-     * @throws JsonMappingException
+     * @param generator Generator the JSON-RPC response object is written to.
+     * @param call Completed call
+     * @throws InvocationTargetException if the method has thrown an exception
+     *         other than {@link JsonServiceException}
      * @throws IOException
      */
-    protected JsonNode process(HttpServletRequest request, String method, Object... args) throws IllegalAccessException,
-    InvocationTargetException, JsonParseException, JsonMappingException, IOException {
+    protected void write(JsonGenerator generator, JsonServiceCall call) throws InvocationTargetException,
+            IOException {
 
-        // TODO: improve error handling
+        Object result = call.getResult();
+        JsonServiceError error = call.getError();
 
-        // make sure this object has been initialised
-        if(!isInitialised) {
-            init();
+        if(logger.isDebugEnabled()) {
+            logger.debug("JSON-RPC response: " + (error == null ? "result " + result : "error " + error.getCode()));
         }
 
-        JsonNode response = null;
-
-        try {
+        generator.writeStartObject();
 
-            // get reference of the method
-            Method m = methods.get(method);
-            if(m == null) {
-                throw new JsonServiceException(JsonServiceError.METHOD_NOT_FOUND);
-            }
-
-            logger.debug("JSON-RPC call method: " + m.getDeclaringClass().getName() + "." + m.getName());
+        // set id
+        Integer id = call.getId();
+        if(id != null) {
+            generator.writeNumberField("id", id);
+        }
+        else {
+            generator.writeNullField("id");
+        }
 
-            // get parameters
-            ArrayList<Object> temp = new ArrayList<Object>();
-            Type[] types = m.getGenericParameterTypes();
-            int i = 0, count = 1;
-            for(Type type: types) {
-                if(type.equals(HttpServletRequest.class)) {
-                    logger.debug("JSON-RPC argument " + count + ": " + request.getClass().getCanonicalName());
-                    temp.add(request);
-                }
-                else {
-                    logger.debug("JSON-RPC argument " + count + ": " + args[i++].getClass().getCanonicalName());
-                    temp.add(args[i++]);
-                }
-                count++;
+        // set result or error
+        generator.writeFieldName("result");
+        if(error == null) {
+            JsonServiceSharedResult shared = call.getSharedResult();
+            if(shared == null) {
+                mapper.writeValue(generator, result);
             }
-            Object[] arguments = new Object[temp.size()];
-            temp.toArray(arguments);
-
-            // invoke method
-            try {
-                response = getJsonSuccessResponse(m.invoke(context, arguments));
-            }
-            catch(IllegalArgumentException e) {
-                throw new JsonServiceException(JsonServiceError.INVALID_PARAMS);
-            }
-        }
-        catch(InvocationTargetException e) {
-            Throwable t = e.getCause();
-            if(t instanceof JsonServiceException) {
-                JsonServiceException jse = (JsonServiceException) t;
-                response = getJsonErrorResponse(jse.getError());
+            else if(generator instanceof Utf8Generator) {
+                // serialised once for all calls that share the result
+                writeBytes((Utf8Generator) generator, shared.getJson(mapper));
             }
             else {
-                throw e;
+                shared.getTokens(mapper).serialize(generator);
             }
+            generator.writeNullField("error");
         }
-        catch(JsonServiceException e) {
-            response = getJsonErrorResponse(e.getError());
+        else {
+            generator.writeNull();
+            writeError(generator, error);
         }
 
-        logger.debug("JSON-RPC response: " + response.toString());
+        generator.writeStringField("jsonrpc", envelope.toString());
+        generator.writeEndObject();
+    }
 
-        return response;
+    /**
+     * Writes value serialised in advance. The generator writes the separator
+     * of an empty raw value, then its buffer is drained and the bytes are
+     * copied straight into its stream.
+     * 
+     * @param generator Generator that writes JSON encoded in UTF-8.
+     * @param value Value encoded in UTF-8.
+     * @throws IOException
+     */
+    private static void writeBytes(Utf8Generator generator, byte[] value) throws IOException {
+
+        generator.writeRawValue("");
+        drain(generator);
+        ((OutputStream) generator.getOutputTarget()).write(value);
     }
 
     /**
-     * Returns response.
+     * Writes what the generator has buffered to its stream without flushing
+     * the stream. A flush of {@link JsonServiceResponseBody} sends the body
+     * at once, without its length, so it is left to the writers that want the
+     * bytes to reach the client before the response is complete.
      * 
-     * @param result Result object
-     * @return Returns response object as JSON.
+     * @param generator Generator
+     * @throws IOException
      */
-    private JsonNode getJsonSuccessResponse(Object result) {
+    static void drain(JsonGenerator generator) throws IOException {
 
-        // set result
-        if(result instanceof Map<?, ?>) {
-            return JsonServiceUtil.toJson((Map<?, ?>) result);
+        boolean passed = generator.isEnabled(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        try {
+            generator.flush();
         }
-        else {
-            return new POJONode(result);
+        finally {
+            generator.configure(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM, passed);
         }
     }
 
     /**
-     * Returns error response.
+     * Binds method arguments to the elements of <code>params</code> array.
+     * Missing elements are reported as invalid parameters and the remaining
+     * ones are ignored. The array is always read to the end.
      * 
-     * @param error Error object
-     * @return Returns response object as JSON.
+     * @param request HTTP request
+     * @param method Method
+     * @param parser Parser positioned at the start of <code>params</code> array
+     *        or null if there are no parameters.
+     * @return Returns arguments.
+     * @throws JsonServiceException
+     * @throws IOException
      */
-    private JsonNode getJsonErrorResponse(JsonServiceError error) {
+    private Object[] bindArguments(HttpServletRequest request, JsonServiceMethod method, JsonParser parser)
+            throws JsonServiceException, IOException {
+
+        // only positional parameters are supported
+        if(parser != null && parser.getCurrentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            throw new JsonServiceException(JsonServiceError.INVALID_REQUEST);
+        }
+
+        JsonStreamContext context = parser != null ? parser.getParsingContext() : null;
+        JsonToken token = parser != null ? parser.nextToken() : JsonToken.END_ARRAY;
+        JsonServiceParameter[] parameters = method.getParameters();
+        Object[] args = new Object[parameters.length];
+        for(int i = 0; i < parameters.length; i++) {
+            JsonServiceParameter parameter = parameters[i];
+            if(parameter.isInjected() || token == null || token == JsonToken.END_ARRAY) {
+                args[i] = parameter.bind(request, null);
+            }
+            else {
+                try {
+                    args[i] = parameter.bind(request, parser);
+                }
+                catch(JsonMappingException e) {
+                    // leave the parser where the next request of a batch can be read
+                    while(parser.getParsingContext() != context && parser.nextToken() != null) {
+                    }
+                    skipElements(parser, parser.getCurrentToken());
+                    throw new JsonServiceException(JsonServiceError.INVALID_PARAMS);
+                }
+                token = parser.nextToken();
+            }
+        }
+        skipElements(parser, token);
 
-        ObjectNode errorNode = mapper.createObjectNode();
-        errorNode.put("code", error.getCode());
-        errorNode.put("message", error.getMessage());
+        return args;
+    }
 
-        ObjectNode responseNode = mapper.createObjectNode();
-        responseNode.put("error", errorNode);
+    /**
+     * Skips the remaining elements of an array, leaving the parser at its end.
+     * 
+     * @param parser Parser positioned at an element of the array.
+     * @param token Current token
+     * @throws IOException
+     */
+    private static void skipElements(JsonParser parser, JsonToken token) throws IOException {
 
-        return responseNode;
+        while(token != null && token != JsonToken.END_ARRAY) {
+            parser.skipChildren();
+            token = parser.nextToken();
+        }
     }
 
     /**
-     * Returns successful JSON-RPC response.
+     * Processes request and writes the result to a generator.
      * 
-     * @param id JSON-RPC request ID
-     * @param result Result object
-     * @return Returns response object as JSON.
+     * @param request HTTP request
+     * @param generator Generator the result is written to.
+     * @param method Method name
+     * @param args Arguments passed to the method.
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     * @throws JsonParseException
+     * @throws JsonMappingException
+     * @throws IOException
      */
-    private JsonNode getJsonRpcSuccessResponse(Integer id, Object result) {
+    protected void process(HttpServletRequest request, JsonGenerator generator, String method, Object... args)
+            throws IllegalAccessException, InvocationTargetException, JsonParseException, JsonMappingException,
+            IOException {
 
-        ObjectNode responseNode = mapper.createObjectNode();
+        // TODO: improve error handling
 
-        // set id
-        if(id != null) {
-            responseNode.put("id", id);
-        }
-        else {
-            responseNode.putNull("id");
-        }
+        // make sure this object has been initialised
+        JsonServiceDescriptor descriptor = getDescriptor();
 
-        // set result
-        if(result instanceof List<?>) {
-            responseNode.put("result", JsonServiceUtil.toJson((List<?>) result));
-        }
-        else if(result instanceof Map<?, ?>) {
-            responseNode.put("result", JsonServiceUtil.toJson((Map<?, ?>) result));
-        }
-        else {
-            try {
-                responseNode.put("result", new POJONode(result));
+        try {
+
+            // get reference of the method
+            JsonServiceMethod m = descriptor.getMethod(method);
+            if(m == null) {
+                throw new JsonServiceException(JsonServiceError.METHOD_NOT_FOUND);
             }
-            catch(Exception e) {
-                responseNode.put("result", result != null ? result.toString() : null);
+
+            if(logger.isDebugEnabled()) {
+                logger.debug("JSON-RPC call method: " + clazz.getName() + "." + m.getName());
             }
-        }
 
-        responseNode.putNull("error");
-        responseNode.put("jsonrpc", envelope.toString());
+            // get parameters
+            JsonServiceParameter[] parameters = m.getParameters();
+            Object[] arguments = new Object[parameters.length];
+            for(int i = 0, j = 0; i < parameters.length; i++) {
+                arguments[i] = parameters[i].isInjected() ? request : args[j++];
+            }
+            if(logger.isDebugEnabled()) {
+                for(int i = 0; i < arguments.length; i++) {
+                    logger.debug("JSON-RPC argument " + (i + 1) + ": " + arguments[i]);
+                }
+            }
 
-        return responseNode;
+            // invoke method
+            mapper.writeValue(generator, m.invoke(arguments));
+        }
+        catch(JsonServiceException e) {
+            writeJsonErrorResponse(generator, e.getError());
+        }
     }
 
     /**
-     * Returns error JSON-RPC response.
+     * Writes error response.
      * 
-     * @param id JSON-RPC request ID
+     * @param generator Generator
      * @param error Error object
-     * @return Returns response object as JSON.
+     * @throws IOException
      */
-    private JsonNode getJsonRpcErrorResponse(Integer id, JsonServiceError error) {
+    private void writeJsonErrorResponse(JsonGenerator generator, JsonServiceError error) throws IOException {
 
-        ObjectNode errorNode = mapper.createObjectNode();
-        errorNode.put("code", error.getCode());
-        errorNode.put("message", error.getMessage());
+        generator.writeStartObject();
+        writeError(generator, error);
+        generator.writeEndObject();
+    }
 
-        ObjectNode responseNode = mapper.createObjectNode();
-        if(id != null) {
-            responseNode.put("id", id);
-        }
-        else {
-            responseNode.putNull("id");
-        }
-        responseNode.putNull("result");
-        responseNode.put("error", errorNode);
-        responseNode.put("jsonrpc", envelope.toString());
+    /**
+     * Writes error field.
+     * 
+     * @param generator Generator
+     * @param error Error object
+     * @throws IOException
+     */
+    private static void writeError(JsonGenerator generator, JsonServiceError error) throws IOException {
 
-        return responseNode;
+        generator.writeObjectFieldStart("error");
+        generator.writeNumberField("code", error.getCode());
+        generator.writeStringField("message", error.getMessage());
+        generator.writeEndObject();
     }
 
 }
@@ -0,0 +1,409 @@
+package org.stefaniuk.json.service;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+
+/**
+ * <p>
+ * JSON service method.
+ * </p>
+ * <p>
+ * This class represents a single method exposed to a JSON-RPC client. It is
+ * resolved only once, when {@link JsonServiceDescriptor} is built, so calling
+ * it does not require any further lookups. Methods found by reflection are
+ * dispatched through a {@link MethodHandle} bound to the instance of
+ * registered class, which avoids access checks and argument wrapping performed
+ * by {@link Method#invoke(Object, Object...)} on every call. Where possible
+ * the handle is turned into a generated implementation of a functional
+ * interface by {@link LambdaMetafactory}, so the JIT compiler can inline the
+ * call like any other virtual call.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public abstract class JsonServiceMethod {
+
+    /** Method name. */
+    private final String name;
+
+    /** Generic types of the method parameters. */
+    private final Type[] parameterTypes;
+
+    /** Binders of the method parameters. */
+    private final JsonServiceParameter[] parameters;
+
+    /** Boxed raw types of the method parameters. */
+    private final Class<?>[] types;
+
+    /** Indicates which of the parameters are primitive. */
+    private final boolean[] primitives;
+
+    /** Indicates that the method must not run concurrently within a batch. */
+    private final boolean sequential;
+
+    /** Indicates that the HTTP request is passed to the method. */
+    private final boolean requestInjected;
+
+    /**
+     * Constructor
+     * 
+     * @param name Method name
+     * @param parameterTypes Generic types of the method parameters.
+     */
+    protected JsonServiceMethod(String name, Type[] parameterTypes) {
+
+        this(name, parameterTypes, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param name Method name
+     * @param parameterTypes Generic types of the method parameters.
+     * @param context Class the type variables of the parameters are resolved
+     *        against or null.
+     */
+    protected JsonServiceMethod(String name, Type[] parameterTypes, Class<?> context) {
+
+        this(name, parameterTypes, context, false);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param name Method name
+     * @param parameterTypes Generic types of the method parameters.
+     * @param context Class the type variables of the parameters are resolved
+     *        against or null.
+     * @param sequential Indicates that the method must not run concurrently
+     *        with other calls of the same batch request.
+     */
+    protected JsonServiceMethod(String name, Type[] parameterTypes, Class<?> context, boolean sequential) {
+
+        this.name = name;
+        this.sequential = sequential;
+        this.parameterTypes = parameterTypes;
+
+        parameters = new JsonServiceParameter[parameterTypes.length];
+        types = new Class<?>[parameterTypes.length];
+        primitives = new boolean[parameterTypes.length];
+        boolean injected = false;
+        for(int i = 0; i < parameterTypes.length; i++) {
+            parameters[i] = JsonServiceParameter.create(parameterTypes[i], context);
+            Class<?> type = parameters[i].getRawClass();
+            types[i] = box(type);
+            primitives[i] = type.isPrimitive();
+            injected |= parameters[i].isInjected();
+        }
+        requestInjected = injected;
+    }
+
+    /**
+     * Creates method dispatched through a method handle.
+     * 
+     * @param context Instance of registered JSON-RPC class.
+     * @param method Method
+     * @return Returns {@link JsonServiceMethod} object.
+     * @throws IllegalAccessException
+     */
+    public static JsonServiceMethod create(Object context, Method method) throws IllegalAccessException {
+
+        return new Handle(context, method);
+    }
+
+    /**
+     * Method with no parameters called through a generated class.
+     */
+    interface Call0 {
+
+        Object call();
+    }
+
+    /**
+     * Method with one parameter called through a generated class.
+     */
+    interface Call1 {
+
+        Object call(Object a1);
+    }
+
+    /**
+     * Method with two parameters called through a generated class.
+     */
+    interface Call2 {
+
+        Object call(Object a1, Object a2);
+    }
+
+    /**
+     * Method with three parameters called through a generated class.
+     */
+    interface Call3 {
+
+        Object call(Object a1, Object a2, Object a3);
+    }
+
+    /**
+     * Returns method name.
+     * 
+     * @return Returns method name.
+     */
+    public String getName() {
+
+        return name;
+    }
+
+    /**
+     * Returns generic types of the method parameters. The array must not be
+     * modified.
+     * 
+     * @return Returns array of types.
+     */
+    public Type[] getParameterTypes() {
+
+        return parameterTypes;
+    }
+
+    /**
+     * Indicates that the method must not run concurrently with other calls of
+     * the same batch request.
+     * 
+     * @return Returns true or false.
+     */
+    public boolean isSequential() {
+
+        return sequential;
+    }
+
+    /**
+     * Indicates that the HTTP request is passed to the method. The request is
+     * valid only until the response has been completed, so the method must
+     * not be called later than that.
+     * 
+     * @return Returns true or false.
+     */
+    public boolean isRequestInjected() {
+
+        return requestInjected;
+    }
+
+    /**
+     * Returns binders of the method parameters. The array must not be
+     * modified.
+     * 
+     * @return Returns array of parameters.
+     */
+    public JsonServiceParameter[] getParameters() {
+
+        return parameters;
+    }
+
+    /**
+     * Calls the method.
+     * 
+     * @param args Arguments passed to the method.
+     * @return Returns result of the method call.
+     * @throws JsonServiceException if the method has thrown it or arguments do
+     *         not match the method signature
+     * @throws InvocationTargetException if the method has thrown any other
+     *         exception
+     */
+    public abstract Object invoke(Object[] args) throws JsonServiceException, InvocationTargetException;
+
+    /**
+     * Checks if arguments match the method signature.
+     * 
+     * @param args Arguments passed to the method.
+     * @throws JsonServiceException if they do not match
+     */
+    protected void checkArguments(Object[] args) throws JsonServiceException {
+
+        if(args.length != types.length) {
+            throw new JsonServiceException(JsonServiceError.INVALID_PARAMS);
+        }
+        for(int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if(arg == null ? primitives[i] : !types[i].isInstance(arg)) {
+                throw new JsonServiceException(JsonServiceError.INVALID_PARAMS);
+            }
+        }
+    }
+
+    /**
+     * Returns wrapper class of a primitive type.
+     * 
+     * @param type Class
+     * @return Returns wrapper class or the same class if it is not primitive.
+     */
+    private static Class<?> box(Class<?> type) {
+
+        if(!type.isPrimitive()) {
+            return type;
+        }
+        else if(type == int.class) {
+            return Integer.class;
+        }
+        else if(type == long.class) {
+            return Long.class;
+        }
+        else if(type == double.class) {
+            return Double.class;
+        }
+        else if(type == boolean.class) {
+            return Boolean.class;
+        }
+        else if(type == float.class) {
+            return Float.class;
+        }
+        else if(type == short.class) {
+            return Short.class;
+        }
+        else if(type == byte.class) {
+            return Byte.class;
+        }
+        else if(type == char.class) {
+            return Character.class;
+        }
+
+        return Void.class;
+    }
+
+    /**
+     * Method dispatched through a method handle.
+     * 
+     * @author Daniel Stefaniuk
+     */
+    private static final class Handle extends JsonServiceMethod {
+
+        /** Functional interfaces for the most common arities. */
+        private static final Class<?>[] CALLS = { Call0.class, Call1.class, Call2.class, Call3.class };
+
+        /** Method handle with all types erased to Object. */
+        private final MethodHandle handle;
+
+        /** Method handle of type (Object[])Object. */
+        private final MethodHandle spreader;
+
+        /** Generated implementation of one of the {@link #CALLS} interfaces. */
+        private final Object call;
+
+        private Handle(Object context, Method method) throws IllegalAccessException {
+
+            super(method.getName(), method.getGenericParameterTypes(), context.getClass(), isSequential(context,
+                method));
+
+            boolean isStatic = Modifier.isStatic(method.getModifiers());
+            MethodHandle mh;
+            try {
+                mh = MethodHandles.lookup().unreflect(method);
+            }
+            catch(IllegalAccessException e) {
+                // public method declared by a non-public class
+                method.setAccessible(true);
+                mh = MethodHandles.lookup().unreflect(method);
+            }
+            call = spin(context, method, mh, isStatic);
+            if(!isStatic) {
+                mh = mh.bindTo(context);
+            }
+            handle = mh.asType(mh.type().generic());
+            spreader = handle.asSpreader(Object[].class, method.getParameterTypes().length);
+        }
+
+        /**
+         * Reads {@link JsonService#sequential()} of the method or, if the method
+         * is not annotated, of the registered class.
+         */
+        private static boolean isSequential(Object context, Method method) {
+
+            JsonService annotation = method.getAnnotation(JsonService.class);
+            if(annotation == null) {
+                annotation = context.getClass().getAnnotation(JsonService.class);
+            }
+
+            return annotation != null && annotation.sequential();
+        }
+
+        /**
+         * Generates implementation of a functional interface which calls the
+         * method directly.
+         * 
+         * @return Returns the implementation or null if it cannot be generated
+         *         for this method.
+         */
+        private static Object spin(Object context, Method method, MethodHandle mh, boolean isStatic) {
+
+            int arity = method.getParameterTypes().length;
+            if(arity >= CALLS.length || method.getReturnType() == void.class
+                || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                return null;
+            }
+
+            try {
+                MethodType type = MethodType.methodType(method.getReturnType(), method.getParameterTypes()).wrap();
+                MethodType factory = isStatic
+                    ? MethodType.methodType(CALLS[arity])
+                    : MethodType.methodType(CALLS[arity], method.getDeclaringClass());
+                MethodHandle target = LambdaMetafactory.metafactory(MethodHandles.lookup(), "call", factory,
+                    MethodType.genericMethodType(arity), mh, type).getTarget();
+
+                return isStatic ? target.invoke() : target.invoke(context);
+            }
+            catch(Throwable t) {
+                // fall back to the method handle
+                return null;
+            }
+        }
+
+        @Override
+        public Object invoke(Object[] args) throws JsonServiceException, InvocationTargetException {
+
+            // check arguments, as the handle would throw ClassCastException
+            checkArguments(args);
+
+            try {
+                if(call != null) {
+                    switch(args.length) {
+                        case 0:
+                            return ((Call0) call).call();
+                        case 1:
+                            return ((Call1) call).call(args[0]);
+                        case 2:
+                            return ((Call2) call).call(args[0], args[1]);
+                        default:
+                            return ((Call3) call).call(args[0], args[1], args[2]);
+                    }
+                }
+                // avoid spreading the arguments for the most common arities
+                switch(args.length) {
+                    case 0:
+                        return (Object) handle.invokeExact();
+                    case 1:
+                        return (Object) handle.invokeExact(args[0]);
+                    case 2:
+                        return (Object) handle.invokeExact(args[0], args[1]);
+                    case 3:
+                        return (Object) handle.invokeExact(args[0], args[1], args[2]);
+                    default:
+                        return (Object) spreader.invokeExact(args);
+                }
+            }
+            catch(JsonServiceException e) {
+                throw e;
+            }
+            catch(Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+    }
+
+}
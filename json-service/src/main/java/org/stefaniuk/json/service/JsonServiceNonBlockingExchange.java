@@ -0,0 +1,266 @@
+package org.stefaniuk.json.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * <p>
+ * JSON service non-blocking exchange.
+ * </p>
+ * <p>
+ * Handles HTTP request with Servlet 3.1 non-blocking I/O. The request body is
+ * collected by a {@link ReadListener} as the bytes arrive, so no thread waits
+ * for a slow client. Jackson 1.x has no non-blocking parser, therefore the
+ * body is parsed, the method called and the response serialised only once
+ * the whole body has been read, by the same streaming code as in the blocking
+ * mode. The serialised response is then drained by a {@link WriteListener},
+ * again without waiting for the client.
+ * </p>
+ * <p>
+ * The pooled buffers are returned once the request body has been read, or
+ * when the exchange fails or times out before that.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+final class JsonServiceNonBlockingExchange implements ReadListener, WriteListener, AsyncListener {
+
+    /** Size of the chunks the body is read and written in. */
+    private static final int CHUNK_SIZE = 8192;
+
+    /** Registry the request is handled by. */
+    private final JsonServiceRegistry registry;
+
+    /** Registered class */
+    private final Class<?> clazz;
+
+    /** HTTP request */
+    private final HttpServletRequest request;
+
+    /** HTTP response */
+    private final HttpServletResponse response;
+
+    /** Asynchronous processing of the request. */
+    private AsyncContext context;
+
+    /** Request body stream. */
+    private ServletInputStream input;
+
+    /** Response body stream. */
+    private ServletOutputStream output;
+
+    /** Request body read so far. */
+    private final JsonServiceBufferPool.Output body = new JsonServiceBufferPool.Output();
+
+    /** Buffer the request body is read into, taken from the pool. */
+    private byte[] chunk = JsonServiceBufferPool.acquire();
+
+    /** Serialised response. */
+    private byte[] content;
+
+    /** Number of the response bytes written so far. */
+    private int written = 0;
+
+    /**
+     * Constructor
+     * 
+     * @param registry Registry the request is handled by.
+     * @param clazz Registered class
+     * @param request HTTP request
+     * @param response HTTP response
+     */
+    JsonServiceNonBlockingExchange(JsonServiceRegistry registry, Class<?> clazz, HttpServletRequest request,
+            HttpServletResponse response) {
+
+        this.registry = registry;
+        this.clazz = clazz;
+        this.request = request;
+        this.response = response;
+    }
+
+    /**
+     * Starts asynchronous processing and returns at once.
+     * 
+     * @param timeout Maximum time of the exchange in milliseconds or 0.
+     * @throws IOException
+     */
+    void start(long timeout) throws IOException {
+
+        context = request.startAsync();
+        context.setTimeout(timeout);
+        context.addListener(this);
+        input = request.getInputStream();
+        input.setReadListener(this);
+    }
+
+    @Override
+    public synchronized void onDataAvailable() throws IOException {
+
+        while(chunk != null && input.isReady()) {
+            int length = input.read(chunk);
+            if(length < 0) {
+                break;
+            }
+            body.write(chunk, 0, length);
+        }
+    }
+
+    @Override
+    public void onAllDataRead() throws IOException {
+
+        byte[] message;
+        synchronized(this) {
+            message = body.toByteArray();
+            release();
+        }
+
+        JsonServiceBufferPool.Output os = new JsonServiceBufferPool.Output();
+        try {
+            registry.handle(new BufferedRequest(request, message), os, clazz);
+            content = os.toByteArray();
+        }
+        finally {
+            os.recycle();
+        }
+
+        int threshold = registry.getCompressionThreshold();
+        if(threshold >= 0 && content.length > threshold) {
+            String coding = JsonServiceCompression.negotiate(request.getHeader("Accept-Encoding"));
+            if(coding != null) {
+                response.addHeader("Vary", "Accept-Encoding");
+                content = JsonServiceCompression.encode(content, coding);
+                response.setHeader("Content-Encoding", coding);
+            }
+        }
+        response.setContentLength(content.length);
+        output = response.getOutputStream();
+        output.setWriteListener(this);
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+
+        while(output.isReady()) {
+            if(written == content.length) {
+                context.complete();
+                return;
+            }
+            int length = Math.min(CHUNK_SIZE, content.length - written);
+            output.write(content, written, length);
+            written += length;
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+
+        t.printStackTrace(System.err);
+        release();
+        context.complete();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+
+        release();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+
+        release();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+
+        release();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+
+        // not restarted
+    }
+
+    /**
+     * Returns buffers of the request body to the pool, if they have not been
+     * returned yet.
+     */
+    private synchronized void release() {
+
+        if(chunk != null) {
+            JsonServiceBufferPool.release(chunk);
+            chunk = null;
+        }
+        body.recycle();
+    }
+
+    /**
+     * Request which body has already been read.
+     */
+    private static final class BufferedRequest extends HttpServletRequestWrapper {
+
+        /** Request body */
+        private final ByteArrayInputStream is;
+
+        private BufferedRequest(HttpServletRequest request, byte[] body) {
+
+            super(request);
+            is = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+
+            return new ServletInputStream() {
+
+                @Override
+                public int read() {
+
+                    return is.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+
+                    return is.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+
+                    return is.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+
+                    throw new IllegalStateException();
+                }
+
+            };
+        }
+
+    }
+
+}
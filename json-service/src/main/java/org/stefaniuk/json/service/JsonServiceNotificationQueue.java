@@ -0,0 +1,289 @@
+package org.stefaniuk.json.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * JSON service notification queue.
+ * </p>
+ * <p>
+ * A notification is a JSON-RPC request without <code>id</code>, which a
+ * client does not expect any response to. Once a notification is added to
+ * this queue the request is finished, while the method is called later by one
+ * of the worker threads. The queue is bounded; when it is full a notification
+ * is handled according to the {@link OverflowPolicy overflow policy}.
+ * </p>
+ * <p>
+ * A notification of a method that takes the HTTP request is not queued but
+ * executed by the thread that handles the request, as the container recycles
+ * the request object once the request is finished.
+ * </p>
+ * <p>
+ * The queue is set on a registry by calling
+ * {@link JsonServiceRegistry#setNotificationQueue(JsonServiceNotificationQueue)
+ * setNotificationQueue}. Its depth, the time notifications wait in it and the
+ * number of dropped notifications can be monitored by calling the getters of
+ * this class.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public class JsonServiceNotificationQueue {
+
+    private final Logger logger = LoggerFactory.getLogger(JsonServiceNotificationQueue.class);
+
+    /** Queue of the notifications waiting for a worker. */
+    private final BlockingQueue<Runnable> queue;
+
+    /** Worker threads. */
+    private final ThreadPoolExecutor executor;
+
+    /** Policy applied when the queue is full. */
+    private final OverflowPolicy policy;
+
+    /** Number of notifications dropped. */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /** Number of notifications executed. */
+    private final AtomicLong executed = new AtomicLong();
+
+    /** Total time notifications have waited in the queue, in nanoseconds. */
+    private final AtomicLong waitTime = new AtomicLong();
+
+    /** Longest time a notification has waited in the queue, in nanoseconds. */
+    private final AtomicLong maxWaitTime = new AtomicLong();
+
+    /**
+     * Policy applied to a notification when the queue is full.
+     */
+    public static enum OverflowPolicy {
+
+        /** The new notification is dropped. */
+        REJECT,
+
+        /** The oldest notification in the queue is dropped. */
+        DROP_OLDEST,
+
+        /** The new notification is executed by the thread that handles the request. */
+        CALLER_RUNS;
+
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param workers Number of worker threads.
+     * @param capacity Maximum number of notifications waiting in the queue.
+     * @param policy Policy applied when the queue is full.
+     */
+    public JsonServiceNotificationQueue(int workers, int capacity, OverflowPolicy policy) {
+
+        this.policy = policy;
+
+        queue = new ArrayBlockingQueue<Runnable>(capacity);
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, queue, new ThreadFactory() {
+
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+
+                Thread thread = new Thread(r, "json-service-notification-" + count.incrementAndGet());
+                thread.setDaemon(true);
+
+                return thread;
+            }
+
+        }, new RejectedExecutionHandler() {
+
+            @Override
+            public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+
+                overflow((Task) r, executor);
+            }
+
+        });
+    }
+
+    /**
+     * Adds notification to the queue. It does not wait for the notification
+     * to be executed, unless the queue is full and the policy is
+     * {@link OverflowPolicy#CALLER_RUNS} or the method takes the HTTP
+     * request.
+     * 
+     * @param call Notification
+     */
+    public void execute(JsonServiceCall call) {
+
+        // a notification of an unknown method has nothing to run
+        if(call.isCompleted()) {
+            return;
+        }
+
+        if(call.getMethod().isRequestInjected()) {
+            call.run();
+        }
+        else {
+            executor.execute(new Task(call));
+        }
+    }
+
+    /**
+     * Handles notification that does not fit in the queue.
+     */
+    private void overflow(Task task, ThreadPoolExecutor executor) {
+
+        if(executor.isShutdown()) {
+            drop(task);
+        }
+        else if(policy == OverflowPolicy.CALLER_RUNS) {
+            task.run();
+        }
+        else if(policy == OverflowPolicy.DROP_OLDEST) {
+            Runnable oldest = queue.poll();
+            if(oldest != null) {
+                drop((Task) oldest);
+            }
+            executor.execute(task);
+        }
+        else {
+            drop(task);
+        }
+    }
+
+    /**
+     * Drops notification.
+     */
+    private void drop(Task task) {
+
+        dropped.incrementAndGet();
+        logger.warn("JSON-RPC notification dropped: " + task.call.getMethod().getName());
+    }
+
+    /**
+     * Returns number of notifications waiting in the queue.
+     * 
+     * @return Returns queue depth.
+     */
+    public int getQueueDepth() {
+
+        return queue.size();
+    }
+
+    /**
+     * Returns number of notifications dropped because the queue was full or
+     * it had been shut down.
+     * 
+     * @return Returns number of notifications.
+     */
+    public long getDroppedCount() {
+
+        return dropped.get();
+    }
+
+    /**
+     * Returns number of notifications executed so far.
+     * 
+     * @return Returns number of notifications.
+     */
+    public long getExecutedCount() {
+
+        return executed.get();
+    }
+
+    /**
+     * Returns average time the executed notifications have waited in the
+     * queue.
+     * 
+     * @param unit Time unit of the result.
+     * @return Returns wait time.
+     */
+    public long getAverageWaitTime(TimeUnit unit) {
+
+        long count = executed.get();
+
+        return count == 0 ? 0 : unit.convert(waitTime.get() / count, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns longest time a notification has waited in the queue.
+     * 
+     * @param unit Time unit of the result.
+     * @return Returns wait time.
+     */
+    public long getMaxWaitTime(TimeUnit unit) {
+
+        return unit.convert(maxWaitTime.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops accepting notifications. Notifications already in the queue are
+     * still executed.
+     */
+    public void shutdown() {
+
+        executor.shutdown();
+    }
+
+    /**
+     * Waits until all notifications have been executed after a shutdown.
+     * 
+     * @param timeout Maximum time to wait.
+     * @param unit Time unit of the timeout.
+     * @return Returns true if all notifications have been executed or false
+     *         if the timeout has elapsed.
+     * @throws InterruptedException
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Notification waiting in the queue.
+     */
+    private final class Task implements Runnable {
+
+        /** Notification */
+        private final JsonServiceCall call;
+
+        /** Time the notification has been added to the queue. */
+        private final long queued = System.nanoTime();
+
+        private Task(JsonServiceCall call) {
+
+            this.call = call;
+        }
+
+        @Override
+        public void run() {
+
+            long wait = System.nanoTime() - queued;
+            waitTime.addAndGet(wait);
+            long max = maxWaitTime.get();
+            while(wait > max && !maxWaitTime.compareAndSet(max, wait)) {
+                max = maxWaitTime.get();
+            }
+            try {
+                call.run();
+            }
+            finally {
+                executed.incrementAndGet();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,183 @@
+package org.stefaniuk.json.service;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.ObjectReader;
+import org.codehaus.jackson.type.JavaType;
+
+/**
+ * <p>
+ * JSON service parameter.
+ * </p>
+ * <p>
+ * This class binds a single argument of a JSON-RPC method. The type of the
+ * parameter is resolved only once, together with {@link JsonServiceMethod}, so
+ * binding an argument on each call does not involve any type lookups or class
+ * loading. A parameter of type {@link HttpServletRequest} is not read from the
+ * request parameters; the current HTTP request is injected instead.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public abstract class JsonServiceParameter {
+
+    /**
+     * This object provides functionality for conversion between Java objects
+     * and JSON.
+     */
+    private static ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Creates parameter for a given type.
+     * 
+     * @param type Generic type of the parameter.
+     * @return Returns {@link JsonServiceParameter} object.
+     */
+    public static JsonServiceParameter create(Type type) {
+
+        return create(type, null);
+    }
+
+    /**
+     * Creates parameter for a given type. Type variables, e.g. <code>M</code>
+     * of a method inherited from <code>Store&lt;M&gt;</code>, are resolved
+     * against the class that has been registered, so the argument is bound to
+     * the actual model class rather than to a map.
+     * 
+     * @param type Generic type of the parameter.
+     * @param context Class the type variables are resolved against or null.
+     * @return Returns {@link JsonServiceParameter} object.
+     */
+    public static JsonServiceParameter create(Type type, Class<?> context) {
+
+        if(type.equals(HttpServletRequest.class)) {
+            return new Request();
+        }
+
+        return new Value(mapper.getTypeFactory().constructType(type, context));
+    }
+
+    /**
+     * Indicates if this parameter is injected rather than read from the request
+     * parameters.
+     * 
+     * @return Returns true or false.
+     */
+    public abstract boolean isInjected();
+
+    /**
+     * Returns resolved type of the parameter.
+     * 
+     * @return Returns {@link JavaType} object or null if the parameter is
+     *         injected.
+     */
+    public abstract JavaType getType();
+
+    /**
+     * Returns raw class of the parameter.
+     * 
+     * @return Returns class.
+     */
+    public abstract Class<?> getRawClass();
+
+    /**
+     * Binds argument. The value is read straight from the request tokens, so
+     * no intermediate tree is built.
+     * 
+     * @param request HTTP request
+     * @param parser Parser positioned at the first token of JSON-RPC parameter
+     *        or null if the parameter is missing or injected.
+     * @return Returns argument value.
+     * @throws JsonServiceException if the parameter is missing
+     * @throws IOException if the value cannot be converted
+     */
+    public abstract Object bind(HttpServletRequest request, JsonParser parser) throws JsonServiceException, IOException;
+
+    /**
+     * Parameter injected with the current HTTP request.
+     * 
+     * @author Daniel Stefaniuk
+     */
+    private static final class Request extends JsonServiceParameter {
+
+        @Override
+        public boolean isInjected() {
+
+            return true;
+        }
+
+        @Override
+        public JavaType getType() {
+
+            return null;
+        }
+
+        @Override
+        public Class<?> getRawClass() {
+
+            return HttpServletRequest.class;
+        }
+
+        @Override
+        public Object bind(HttpServletRequest request, JsonParser parser) {
+
+            return request;
+        }
+
+    }
+
+    /**
+     * Parameter read from the request parameters.
+     * 
+     * @author Daniel Stefaniuk
+     */
+    private static final class Value extends JsonServiceParameter {
+
+        private final JavaType type;
+
+        private final ObjectReader reader;
+
+        private Value(JavaType type) {
+
+            this.type = type;
+            this.reader = mapper.reader(type);
+        }
+
+        @Override
+        public boolean isInjected() {
+
+            return false;
+        }
+
+        @Override
+        public JavaType getType() {
+
+            return type;
+        }
+
+        @Override
+        public Class<?> getRawClass() {
+
+            return type.getRawClass();
+        }
+
+        @Override
+        public Object bind(HttpServletRequest request, JsonParser parser) throws JsonServiceException, IOException {
+
+            if(parser == null) {
+                throw new JsonServiceException(JsonServiceError.INVALID_PARAMS);
+            }
+
+            return reader.readValue(parser);
+        }
+
+    }
+
+}
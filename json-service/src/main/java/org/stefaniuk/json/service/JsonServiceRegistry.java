@@ -1,6 +1,5 @@
 package org.stefaniuk.json.service;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -8,18 +7,24 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.codehaus.jackson.JsonEncoding;
 import org.codehaus.jackson.JsonGenerationException;
-import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.map.JsonMappingException;
 import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.node.ArrayNode;
 import org.codehaus.jackson.node.ObjectNode;
+import org.codehaus.jackson.smile.SmileFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.stefaniuk.json.service.JsonServiceInvoker.ContentType;
 
 /**
  * <p>
@@ -79,10 +84,53 @@ public class JsonServiceRegistry {
      */
     private static ObjectMapper mapper = new ObjectMapper();
 
+    /** This object reads and writes Smile, a binary encoding of JSON. */
+    private static ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
     /** Collection of all the registered JSON-RPC classes. */
     private Map<String, JsonServiceInvoker> registry =
         Collections.synchronizedMap(new HashMap<String, JsonServiceInvoker>());
 
+    /** Executor running calls of a batch request or null to run them one by one. */
+    private volatile Executor batchExecutor = null;
+
+    /** Maximum number of calls of a single batch request running at once. */
+    private volatile int batchParallelism = 8;
+
+    /** Order of the responses to a batch request. */
+    private volatile BatchOrder batchOrder = BatchOrder.REQUEST;
+
+    /** Queue notifications are executed from or null to execute them at once. */
+    private volatile JsonServiceNotificationQueue notificationQueue = null;
+
+    /** Indicates that future results are waited for asynchronously. */
+    private volatile boolean async = false;
+
+    /** Maximum time to wait for a future result in milliseconds. */
+    private volatile long asyncTimeout = 30000;
+
+    /** Indicates that request and response bodies are transferred without blocking. */
+    private volatile boolean nonBlocking = false;
+
+    /** Executor each method call is run on or null to run it on the request thread. */
+    private volatile Executor callExecutor = null;
+
+    /** Responses larger than this are compressed or -1 not to compress them. */
+    private volatile int compressionThreshold = 1024;
+
+    /**
+     * Order of the responses to a batch request.
+     */
+    public static enum BatchOrder {
+
+        /** Responses are written in the order of the requests. */
+        REQUEST,
+
+        /** Responses are written as soon as the calls complete. */
+        COMPLETION;
+
+    }
+
     /**
      * Constructor
      */
@@ -130,7 +178,7 @@ public class JsonServiceRegistry {
 
         String name = clazz.getName();
         if(!registry.containsKey(name)) {
-            registry.put(name, new JsonServiceInvoker(clazz));
+            registry.put(name, JsonServiceInvoker.create(clazz));
             logger.info("JSON-RPC registered class: " + name);
         }
 
@@ -148,7 +196,7 @@ public class JsonServiceRegistry {
 
         String name = obj.getClass().getName();
         if(!registry.containsKey(name)) {
-            registry.put(name, new JsonServiceInvoker(obj));
+            registry.put(name, JsonServiceInvoker.create(obj));
             logger.info("JSON-RPC registered class: " + name);
         }
 
@@ -219,6 +267,297 @@ public class JsonServiceRegistry {
         return this;
     }
 
+    /**
+     * Sets executor used to run calls of a batch request in parallel. By
+     * default there is no executor and the calls run one after another on the
+     * thread that handles the request. Note that an injected
+     * {@link HttpServletRequest} is then accessed from the executor threads.
+     * 
+     * @param executor Executor or null.
+     * @return Returns {@link JsonServiceRegistry} object.
+     */
+    public JsonServiceRegistry setBatchExecutor(Executor executor) {
+
+        this.batchExecutor = executor;
+
+        return this;
+    }
+
+    /**
+     * Sets maximum number of calls of a single batch request running at once.
+     * It defaults to 8.
+     * 
+     * @param parallelism Number of calls
+     * @return Returns {@link JsonServiceRegistry} object.
+     */
+    public JsonServiceRegistry setBatchParallelism(int parallelism) {
+
+        this.batchParallelism = parallelism;
+
+        return this;
+    }
+
+    /**
+     * Sets order of the responses to a batch request executed in parallel.
+     * 
+     * @param order Order
+     * @return Returns {@link JsonServiceRegistry} object.
+     */
+    public JsonServiceRegistry setBatchOrder(BatchOrder order) {
+
+        this.batchOrder = order;
+
+        return this;
+    }
+
+    /**
+     * Sets queue notifications are executed from. A notification added to the
+     * queue is acknowledged at once, without waiting for the method to be
+     * called. By default there is no queue and a notification is executed by
+     * the thread that handles the request, but still nothing is written in
+     * response to it.
+     * 
+     * @param queue Notification queue or null.
+     * @return Returns {@link JsonServiceRegistry} object.
+     */
+    public JsonServiceRegistry setNotificationQueue(JsonServiceNotificationQueue queue) {
+
+        this.notificationQueue = queue;
+
+        return this;
+    }
+
+    /**
+     * <p>
+     * Enables asynchronous mode. A method may return a
+     * {@link java.util.concurrent.CompletionStage CompletionStage} or a
+     * {@link java.util.concurrent.Future Future} instead of the value itself.
+     * In asynchronous mode such a result of a single request makes the
+     * registry call {@link HttpServletRequest#startAsync()}, so the container
+     * thread is released while the result is pending, and the response is
+     * written when it arrives. Otherwise, or if the servlet does not support
+     * asynchronous processing, the result is waited for by the thread that
+     * handles the request.
+     * </p>
+     * <p>
+     * Once asynchronous processing has started, the caller must not write to
+     * the response any more.
+     * </p>
+     * 
+     * @param async Indicates that future results are waited for
+     *        asynchronously.
+     * @return Returns {@link JsonServiceRegistry} object.
+     */
+    public JsonServiceRegistry setAsync(boolean async) {
+
+        this.async = async;
+
+        return this;
+    }
+
+    /**
+     * Sets maximum time to wait for a future result, after which "Server
+     * error" is returned. It defaults to 30 seconds.
+     * 
+     * @param timeout Time in milliseconds or 0 to wait without any time limit.
+     * @return Returns {@link JsonServiceRegistry} object.
+     */
+    public JsonServiceRegistry setAsyncTimeout(long timeout) {
+
+        this.asyncTimeout = timeout;
+
+        return this;
+    }
+
+    /**
+     * Enables non-blocking mode. In this mode
+     * {@link #handle(HttpServletRequest, HttpServletResponse, Class) handle}
+     * reads the body of a JSON-RPC request and writes the response with
+     * Servlet 3.1 non-blocking I/O, so a slow client does not hold a thread
+     * while the bytes are transferred. The whole body is buffered before the
+     * method is called, and the whole response before it is sent. It has no
+     * effect if the servlet does not support asynchronous processing. The
+     * exchange is limited by the {@link #setAsyncTimeout(long) timeout}.
+     * 
+     * @param nonBlocking Indicates that non-blocking I/O is used.
+     * @return Returns {@link JsonServiceRegistry} object.
+     */
+    public JsonServiceRegistry setNonBlocking(boolean nonBlocking) {
+
+        this.nonBlocking = nonBlocking;
+
+        return this;
+    }
+
+    /**
+     * Sets size above which a response is compressed with <code>gzip</code>
+     * or <code>deflate</code>, if the client accepts either of them. The
+     * response is compressed as it is written, without being buffered first.
+     * It defaults to 1024 bytes.
+     * 
+     * @param compressionThreshold Size in bytes or -1 not to compress
+     *        responses.
+     * @return Returns {@link JsonServiceRegistry} object.
+     */
+    public JsonServiceRegistry setCompressionThreshold(int compressionThreshold) {
+
+        this.compressionThreshold = compressionThreshold;
+
+        return this;
+    }
+
+    /**
+     * Returns size above which a response is compressed.
+     * 
+     * @return Returns size in bytes or -1 if responses are not compressed.
+     */
+    public int getCompressionThreshold() {
+
+        return compressionThreshold;
+    }
+
+    /**
+     * <p>
+     * Sets executor each method call is run on. A single request is then
+     * processed asynchronously, so the container thread is released while
+     * the method runs, and calls of a batch request run on this executor
+     * unless a {@link #setBatchExecutor(Executor) batch executor} is set. It
+     * has no effect on a single request if the servlet does not support
+     * asynchronous processing.
+     * </p>
+     * <p>
+     * The executor should start a new thread for each call cheaply, as an
+     * executor of virtual threads does; see
+     * {@link #setVirtualThreads(boolean)}. The number of calls of a class
+     * running at once can be limited by
+     * {@link #setConcurrencyLimit(Class, int)}.
+     * </p>
+     * 
+     * @param executor Executor or null.
+     * @return Returns {@link JsonServiceRegistry} object.
+     */
+    public JsonServiceRegistry setCallExecutor(Executor executor) {
+
+        this.callExecutor = executor;
+
+        return this;
+    }
+
+    /**
+     * Runs each method call on a new virtual thread. Virtual threads are
+     * looked up at runtime, so on a Java runtime without them the calls keep
+     * running on the request thread and a warning is logged.
+     * 
+     * @param virtual Indicates that virtual threads are used.
+     * @return Returns {@link JsonServiceRegistry} object.
+     */
+    public JsonServiceRegistry setVirtualThreads(boolean virtual) {
+
+        Executor executor = null;
+        if(virtual) {
+            executor = JsonServiceUtil.newVirtualThreadExecutor();
+            if(executor == null) {
+                logger.warn("JSON-RPC virtual threads are not supported by this Java runtime");
+            }
+        }
+
+        return setCallExecutor(executor);
+    }
+
+    /**
+     * Limits number of calls of a class running at the same time, across all
+     * requests, so that many threads cannot overload the resources the class
+     * uses. A call that exceeds the limit waits for one of the running calls
+     * to complete.
+     * 
+     * @param clazz Class
+     * @param limit Maximum number of calls or 0 for no limit.
+     * @return Returns {@link JsonServiceRegistry} object.
+     */
+    public JsonServiceRegistry setConcurrencyLimit(Class<?> clazz, int limit) {
+
+        register(clazz);
+        lookup(clazz).setConcurrencyLimit(limit);
+
+        return this;
+    }
+
+    /**
+     * Returns cache of the results of a method declared with
+     * {@link JsonService#cacheTtl()}, e.g. to read its hit and miss counts.
+     * 
+     * @param clazz Class
+     * @param method Method name
+     * @return Returns {@link JsonServiceResultCache} object or null if the
+     *         results of the method are not cached.
+     */
+    public JsonServiceResultCache getCache(Class<?> clazz, String method) {
+
+        register(clazz);
+
+        return lookup(clazz).getCache(method);
+    }
+
+    /**
+     * Returns coalescer of identical calls of a method declared with
+     * {@link JsonService#coalesce()}, e.g. to read its coalesce rate and
+     * number of waiting calls.
+     * 
+     * @param clazz Class
+     * @param method Method name
+     * @return Returns {@link JsonServiceCoalescer} object or null if calls of
+     *         the method are not coalesced.
+     */
+    public JsonServiceCoalescer getCoalescer(Class<?> clazz, String method) {
+
+        register(clazz);
+
+        return lookup(clazz).getCoalescer(method);
+    }
+
+    /**
+     * Discards cached results of a method, e.g. after the data it reads has
+     * changed.
+     * 
+     * @param clazz Class
+     * @param method Method name
+     * @return Returns {@link JsonServiceRegistry} object.
+     */
+    public JsonServiceRegistry invalidateCache(Class<?> clazz, String method) {
+
+        JsonServiceResultCache cache = getCache(clazz, method);
+        if(cache != null) {
+            cache.invalidate();
+        }
+
+        return this;
+    }
+
+    /**
+     * Discards cached results of all methods of a class.
+     * 
+     * @param clazz Class
+     * @return Returns {@link JsonServiceRegistry} object.
+     */
+    public JsonServiceRegistry invalidateCache(Class<?> clazz) {
+
+        register(clazz);
+        lookup(clazz).invalidateCaches();
+
+        return this;
+    }
+
+    /**
+     * Returns executor messages of a {@link JsonServiceChannel} are handled on
+     * by default.
+     * 
+     * @return Returns call executor, batch executor or null if neither is set.
+     */
+    Executor getExecutor() {
+
+        return callExecutor != null ? callExecutor : batchExecutor;
+    }
+
     /**
      * Looks up class in registry.
      * 
@@ -233,7 +572,22 @@ public class JsonServiceRegistry {
     }
 
     /**
-     * Produces Service Mapping Description for a given JSON-RPC class.
+     * Returns descriptor of a JSON-RPC class, which holds its Service Mapping
+     * Description rendered in advance.
+     * 
+     * @param clazz Class
+     * @return Returns {@link JsonServiceDescriptor} object.
+     */
+    public JsonServiceDescriptor getDescriptor(Class<?> clazz) {
+
+        register(clazz);
+
+        return lookup(clazz).getDescriptor();
+    }
+
+    /**
+     * Produces Service Mapping Description for a given JSON-RPC class. It is
+     * rendered only once, so no serialisation takes place.
      * 
      * @param clazz Class
      * @param os Output stream
@@ -242,7 +596,9 @@ public class JsonServiceRegistry {
     public OutputStream getServiceMap(Class<?> clazz, OutputStream os) {
 
         try {
-            mapper.writeValue(os, lookup(clazz).getServiceMap());
+            // rendered when the class has been registered
+            os.write(lookup(clazz).getDescriptor().getServiceMapBytes(false));
+            os.close();
         }
         catch(Exception e) {
             e.printStackTrace(System.err);
@@ -282,8 +638,24 @@ public class JsonServiceRegistry {
      */
     public OutputStream handle(InputStream is, OutputStream os, Class<?> clazz) {
 
+        return handle(is, os, clazz, ContentType.APPLICATION_JSON, ContentType.APPLICATION_JSON);
+    }
+
+    /**
+     * Handles request as an input stream encoded in a given content type.
+     * 
+     * @param is Input stream
+     * @param os Output stream
+     * @param clazz Class
+     * @param requestType Content type of the request.
+     * @param responseType Content type of the response.
+     * @return Returns output stream.
+     */
+    public OutputStream handle(InputStream is, OutputStream os, Class<?> clazz, ContentType requestType,
+            ContentType responseType) {
+
         try {
-            handleNode(null, mapper.readValue(is, JsonNode.class), os, lookup(clazz));
+            handleStream(null, is, os, lookup(clazz), requestType, responseType);
         }
         catch(Exception e) {
             e.printStackTrace(System.err);
@@ -292,7 +664,7 @@ public class JsonServiceRegistry {
                 ObjectNode response = JsonServiceUtil.getJsonServiceErrorNode(JsonServiceError.INVALID_REQUEST);
                 logger.debug("JSON-RPC response: " + response.toString());
                 mapper.createObjectNode();
-                mapper.writeValue(os, response);
+                getMapper(responseType).writeValue(os, response);
             }
             catch(Exception ex) {
                 ex.printStackTrace(System.err);
@@ -340,34 +712,50 @@ public class JsonServiceRegistry {
      * @param request HTTP request
      * @param response HTTP response
      * @param clazz Class
-     * @return Returns output stream.
+     * @return Returns {@link JsonServiceResponseBody} the response has been
+     *         written to or null if it is written with non-blocking I/O.
      */
     public OutputStream handle(HttpServletRequest request, HttpServletResponse response, Class<?> clazz) {
 
-        BufferedOutputStream bos = null;
+        JsonServiceResponseBody body = null;
 
         try {
 
             // make sure class is registered, so there is no need to do this manually
             register(clazz);
 
-            // get output stream
-            bos = new BufferedOutputStream(response.getOutputStream());
-
             // return SMD or call a method
             String method = request.getMethod();
             if(method.equals("GET")) {
-                getServiceMap(clazz, bos);
+                body = getResponseBody(response);
+                getServiceMap(clazz, request, response, body);
             }
             else {
-                handle(request, bos, clazz);
+                ContentType type = ContentType.forResponse(request);
+                if(type.isBinary()) {
+                    response.setContentType(type.toString());
+                }
+                if(nonBlocking && request.isAsyncSupported()) {
+                    // the exchange buffers and compresses the response itself
+                    new JsonServiceNonBlockingExchange(this, clazz, request, response).start(asyncTimeout);
+                }
+                else {
+                    // get output stream, compressed if the client accepts it
+                    body = getResponseBody(response);
+                    OutputStream os = getOutputStream(request, response, body);
+                    handle(request, os, clazz);
+                    if(!request.isAsyncStarted()) {
+                        // sends the body with its length unless the generator has done so already
+                        os.close();
+                    }
+                }
             }
         }
         catch(Exception e) {
             e.printStackTrace(System.err);
         }
 
-        return bos;
+        return body;
     }
 
     /**
@@ -376,35 +764,51 @@ public class JsonServiceRegistry {
      * @param request HTTP request
      * @param response HTTP response
      * @param obj Already instantiated object
-     * @return Returns output stream.
+     * @return Returns {@link JsonServiceResponseBody} the response has been
+     *         written to or null if it is written with non-blocking I/O.
      */
     public OutputStream handle(HttpServletRequest request, HttpServletResponse response, Object obj) {
 
-        BufferedOutputStream bos = null;
+        JsonServiceResponseBody body = null;
 
         try {
 
             // make sure object is registered
             register(obj);
 
-            // get output stream
-            bos = new BufferedOutputStream(response.getOutputStream());
-
             // return SMD or call a method
             Class<?> clazz = obj.getClass();
             String method = request.getMethod();
             if(method.equals("GET")) {
-                getServiceMap(clazz, bos);
+                body = getResponseBody(response);
+                getServiceMap(clazz, request, response, body);
             }
             else {
-                handle(request, bos, clazz);
+                ContentType type = ContentType.forResponse(request);
+                if(type.isBinary()) {
+                    response.setContentType(type.toString());
+                }
+                if(nonBlocking && request.isAsyncSupported()) {
+                    // the exchange buffers and compresses the response itself
+                    new JsonServiceNonBlockingExchange(this, clazz, request, response).start(asyncTimeout);
+                }
+                else {
+                    // get output stream, compressed if the client accepts it
+                    body = getResponseBody(response);
+                    OutputStream os = getOutputStream(request, response, body);
+                    handle(request, os, clazz);
+                    if(!request.isAsyncStarted()) {
+                        // sends the body with its length unless the generator has done so already
+                        os.close();
+                    }
+                }
             }
         }
         catch(Exception e) {
             e.printStackTrace(System.err);
         }
 
-        return bos;
+        return body;
     }
 
     /**
@@ -418,7 +822,10 @@ public class JsonServiceRegistry {
     public OutputStream handle(HttpServletRequest request, OutputStream os, Class<?> clazz) {
 
         try {
-            handleNode(request, mapper.readValue(request.getInputStream(), JsonNode.class), os, lookup(clazz));
+            InputStream is =
+                JsonServiceCompression.decode(request.getInputStream(), request.getHeader("Content-Encoding"));
+            handleStream(request, is, os, lookup(clazz), ContentType.forRequest(request),
+                ContentType.forResponse(request));
         }
         catch(Exception e) {
             e.printStackTrace(System.err);
@@ -427,7 +834,7 @@ public class JsonServiceRegistry {
                 ObjectNode response = JsonServiceUtil.getJsonServiceErrorNode(JsonServiceError.INVALID_REQUEST);
                 logger.debug("JSON-RPC response: " + response.toString());
                 mapper.createObjectNode();
-                mapper.writeValue(os, response);
+                getMapper(ContentType.forResponse(request)).writeValue(os, response);
             }
             catch(Exception ex) {
                 ex.printStackTrace(System.err);
@@ -460,7 +867,7 @@ public class JsonServiceRegistry {
                 ObjectNode response = JsonServiceUtil.getJsonServiceErrorNode(JsonServiceError.INVALID_REQUEST);
                 logger.debug("JSON-RPC response: " + response.toString());
                 mapper.createObjectNode();
-                mapper.writeValue(os, response);
+                getMapper(ContentType.forResponse(request)).writeValue(os, response);
             }
             catch(Exception ex) {
                 ex.printStackTrace(System.err);
@@ -493,12 +900,65 @@ public class JsonServiceRegistry {
     }
 
     /**
-     * Handles HTTP request.
+     * Handles HTTP request. The request body is read by a streaming parser and
+     * responses are written by a streaming generator, so a tree of the whole
+     * request or response is never built.
      * 
      * @param request HTTP request
-     * @param requestNode HTTP request provided as {@link JsonNode}
+     * @param is Input stream
      * @param os Output stream
      * @param invoker This is the service invoker object.
+     * @param requestType Content type of the request.
+     * @param responseType Content type of the response.
+     * @throws JsonGenerationException
+     * @throws JsonMappingException
+     * @throws IOException
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     * @throws JsonServiceException
+     */
+    private void handleStream(HttpServletRequest request, InputStream is, OutputStream os,
+            JsonServiceInvoker invoker, ContentType requestType, ContentType responseType)
+            throws JsonGenerationException, JsonMappingException, IOException, IllegalAccessException,
+            InvocationTargetException, JsonServiceException {
+
+        JsonParser parser = getMapper(requestType).getJsonFactory().createJsonParser(is);
+        JsonGenerator generator = getMapper(responseType).getJsonFactory().createJsonGenerator(os, JsonEncoding.UTF8);
+        JsonServiceCall deferred = null;
+        try {
+            parser.nextToken();
+            deferred = handleNode(request, parser, generator, invoker);
+        }
+        finally {
+            parser.close();
+            // anything written so far must precede an error response
+            JsonServiceInvoker.drain(generator);
+        }
+        if(deferred != null) {
+            AsyncContext context = request.startAsync();
+            context.setTimeout(asyncTimeout);
+            JsonServiceAsyncResponse response = new JsonServiceAsyncResponse(invoker, deferred, generator, context);
+            if(deferred.getDeferred() != null) {
+                response.start();
+            }
+            else {
+                response.fork(callExecutor, asyncTimeout);
+            }
+        }
+        else {
+            generator.close();
+        }
+    }
+
+    /**
+     * Handles HTTP request.
+     * 
+     * @param request HTTP request
+     * @param parser Parser positioned at the start of JSON-RPC request.
+     * @param generator Generator the responses are written to.
+     * @param invoker This is the service invoker object.
+     * @return Returns call waiting for a future result or null if the
+     *         response has been written.
      * @throws JsonGenerationException
      * @throws JsonMappingException
      * @throws IOException
@@ -506,15 +966,17 @@ public class JsonServiceRegistry {
      * @throws InvocationTargetException
      * @throws JsonServiceException
      */
-    private void handleNode(HttpServletRequest request, JsonNode requestNode, OutputStream os,
+    private JsonServiceCall handleNode(HttpServletRequest request, JsonParser parser, JsonGenerator generator,
             JsonServiceInvoker invoker) throws JsonGenerationException, JsonMappingException, IOException,
             IllegalAccessException, InvocationTargetException, JsonServiceException {
 
-        if(requestNode.isObject()) {
-            handleObject(request, ObjectNode.class.cast(requestNode), os, invoker);
+        JsonToken token = parser.getCurrentToken();
+        if(token == JsonToken.START_OBJECT) {
+            return handleObject(request, parser, generator, invoker);
         }
-        else if(requestNode.isArray()) {
-            handleArray(request, ArrayNode.class.cast(requestNode), os, invoker);
+        else if(token == JsonToken.START_ARRAY) {
+            handleArray(request, parser, generator, invoker);
+            return null;
         }
         else {
             throw new JsonServiceException(JsonServiceError.INVALID_REQUEST);
@@ -522,11 +984,14 @@ public class JsonServiceRegistry {
     }
 
     /**
-     * Handles HTTP request.
+     * Handles batch request. Responses are written as a single JSON array,
+     * each of them as soon as it is ready. An empty batch is answered with a
+     * single "Invalid request" response, while a batch of notifications only
+     * is not answered at all.
      * 
      * @param request
-     * @param requestNode
-     * @param os
+     * @param parser
+     * @param generator
      * @param invoker
      * @throws JsonGenerationException
      * @throws JsonMappingException
@@ -535,12 +1000,35 @@ public class JsonServiceRegistry {
      * @throws InvocationTargetException
      * @throws JsonServiceException
      */
-    private void handleArray(HttpServletRequest request, ArrayNode requestNode, OutputStream os,
+    private void handleArray(HttpServletRequest request, JsonParser parser, JsonGenerator generator,
             JsonServiceInvoker invoker) throws JsonGenerationException, JsonMappingException, IOException,
             IllegalAccessException, InvocationTargetException, JsonServiceException {
 
-        for(int i = 0; i < requestNode.size(); i++) {
-            handleNode(request, requestNode.get(i), os, invoker);
+        JsonToken token = parser.nextToken();
+        if(token == JsonToken.END_ARRAY) {
+            invoker.write(generator, new JsonServiceCall(null, JsonServiceError.INVALID_REQUEST));
+            return;
+        }
+
+        JsonServiceBatch batch =
+            new JsonServiceBatch(invoker, generator, batchExecutor != null ? batchExecutor : callExecutor,
+                batchParallelism, batchOrder, notificationQueue, asyncTimeout);
+        try {
+            for(; token != null && token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if(token == JsonToken.START_OBJECT) {
+                    batch.add(invoker.read(request, parser));
+                }
+                else {
+                    // each element of a batch must be a request object
+                    parser.skipChildren();
+                    batch.add(new JsonServiceCall(null, JsonServiceError.INVALID_REQUEST));
+                }
+            }
+            batch.finish();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JsonServiceException(JsonServiceError.INTERNAL_ERROR);
         }
     }
 
@@ -562,31 +1050,163 @@ public class JsonServiceRegistry {
             Object... args) throws IllegalAccessException, InvocationTargetException, JsonGenerationException,
             JsonMappingException, IOException {
 
-        JsonNode responseNode = invoker.process(request, method, args);
-
-        mapper.writeValue(os, responseNode);
+        JsonGenerator generator =
+            getMapper(ContentType.forResponse(request)).getJsonFactory().createJsonGenerator(os, JsonEncoding.UTF8);
+        invoker.process(request, generator, method, args);
+        generator.close();
     }
 
     /**
      * Handles HTTP request.
      * 
      * @param request
-     * @param requestNode
-     * @param os
+     * @param parser
+     * @param generator
      * @param invoker
+     * @return Returns call waiting for a future result or null if the
+     *         response has been written.
      * @throws IllegalAccessException
      * @throws InvocationTargetException
      * @throws JsonGenerationException
      * @throws JsonMappingException
      * @throws IOException
      */
-    private void handleObject(HttpServletRequest request, ObjectNode requestNode, OutputStream os,
+    private JsonServiceCall handleObject(HttpServletRequest request, JsonParser parser, JsonGenerator generator,
             JsonServiceInvoker invoker) throws IllegalAccessException, InvocationTargetException,
             JsonGenerationException, JsonMappingException, IOException {
 
-        JsonNode responseNode = invoker.process(request, requestNode);
+        JsonServiceCall call = invoker.read(request, parser);
+        if(call.isNotification()) {
+            dispatch(call);
+            return null;
+        }
 
-        mapper.writeValue(os, responseNode);
+        if(request != null && request.isAsyncSupported() && !request.isAsyncStarted()) {
+            if(callExecutor != null) {
+                // not started yet
+                return call;
+            }
+            if(async && !call.start().isCompleted()) {
+                return call;
+            }
+        }
+        invoker.write(generator, call.invoke(asyncTimeout));
+
+        return null;
+    }
+
+    /**
+     * Writes Service Mapping Description rendered in advance, compressed with
+     * gzip if the client accepts it. A client that sends the entity tag of
+     * the current description in <code>If-None-Match</code> is answered with
+     * "304 Not Modified" and no content.
+     * 
+     * @param clazz Class
+     * @param request HTTP request
+     * @param response HTTP response
+     * @param body Response body
+     * @throws IOException
+     */
+    private void getServiceMap(Class<?> clazz, HttpServletRequest request, HttpServletResponse response,
+            JsonServiceResponseBody body) throws IOException {
+
+        JsonServiceDescriptor descriptor = lookup(clazz).getDescriptor();
+        int threshold = compressionThreshold;
+        boolean gzip = false;
+        if(threshold >= 0) {
+            gzip = descriptor.getServiceMapBytes(false).length > threshold
+                && JsonServiceCompression.GZIP.equals(JsonServiceCompression.negotiate(request
+                    .getHeader("Accept-Encoding")));
+            response.addHeader("Vary", "Accept-Encoding");
+        }
+        // the client has to revalidate, which costs no more than a 304
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("ETag", descriptor.getETag(gzip));
+        if(descriptor.isNotModified(request.getHeader("If-None-Match"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] content = descriptor.getServiceMapBytes(gzip);
+        if(response.getContentType() == null) {
+            response.setContentType(ContentType.APPLICATION_JSON + "; charset=UTF-8");
+        }
+        if(gzip) {
+            response.setHeader("Content-Encoding", JsonServiceCompression.GZIP);
+        }
+        body.setContentLength(content.length);
+        body.write(content);
+        body.flush();
+    }
+
+    /**
+     * Returns body of HTTP response. A captured response collects the body in
+     * a buffer of its own, so it is not held back twice.
+     * 
+     * @param response HTTP response
+     * @return Returns {@link JsonServiceResponseBody} object.
+     */
+    private static JsonServiceResponseBody getResponseBody(HttpServletResponse response) {
+
+        return response instanceof JsonServiceCapturedResponse ? new JsonServiceResponseBody(response, 0)
+            : new JsonServiceResponseBody(response);
+    }
+
+    /**
+     * Returns output stream of HTTP response, which compresses the response if
+     * it is large enough and the client accepts it.
+     * 
+     * @param request HTTP request
+     * @param response HTTP response
+     * @param os Output stream of the response body.
+     * @return Returns output stream.
+     */
+    private OutputStream getOutputStream(HttpServletRequest request, final HttpServletResponse response,
+            OutputStream os) {
+
+        int threshold = compressionThreshold;
+        String coding = threshold >= 0 ? JsonServiceCompression.negotiate(request.getHeader("Accept-Encoding")) : null;
+        if(coding == null) {
+            return os;
+        }
+        response.addHeader("Vary", "Accept-Encoding");
+
+        return new JsonServiceCompression.Output(os, coding, threshold) {
+
+            @Override
+            protected void start(String coding) {
+
+                response.setHeader("Content-Encoding", coding);
+            }
+
+        };
+    }
+
+    /**
+     * Returns mapper of a content type.
+     * 
+     * @param type Content type
+     * @return Returns {@link ObjectMapper} object.
+     */
+    private static ObjectMapper getMapper(ContentType type) {
+
+        return type == ContentType.APPLICATION_SMILE ? smileMapper : mapper;
+    }
+
+    /**
+     * Executes notification, which is not answered.
+     * 
+     * @param call Notification
+     */
+    private void dispatch(JsonServiceCall call) {
+
+        JsonServiceNotificationQueue queue = notificationQueue;
+        if(queue != null) {
+            queue.execute(call);
+        }
+        else {
+            call.run();
+        }
     }
 
 }
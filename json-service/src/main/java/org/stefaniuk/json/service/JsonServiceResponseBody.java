@@ -0,0 +1,197 @@
+package org.stefaniuk.json.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * <p>
+ * JSON service response body.
+ * </p>
+ * <p>
+ * Output stream of an HTTP response that counts the bytes written to it and
+ * holds them back in a pooled buffer. If the whole body fits into the buffer,
+ * the real <code>Content-Length</code> is set when the stream is closed and
+ * the body is written in one go, so the connection can be kept alive without
+ * chunked encoding. Once the body outgrows the buffer, what has been held back
+ * is written and the rest is streamed as it comes, which the container sends
+ * with chunked encoding.
+ * </p>
+ * <p>
+ * Flushing the stream sends what has been held back and the rest of the body
+ * is streamed, as the writer wants the bytes to reach the client before the
+ * body is complete, e.g. a batch whose next call takes a while. The response
+ * is then sent without its length. Writers that only empty their own buffers,
+ * such as {@link JsonServiceRegistry} when a response is complete, do not
+ * flush the stream.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public class JsonServiceResponseBody extends OutputStream {
+
+    /** HTTP response */
+    private final HttpServletResponse response;
+
+    /** Maximum number of bytes held back. */
+    private final int limit;
+
+    /** Bytes held back, null once the body is streamed. */
+    private JsonServiceBufferPool.Output buffer = new JsonServiceBufferPool.Output();
+
+    /** Output stream of the response, once something has been written to it. */
+    private OutputStream os;
+
+    /** Number of bytes written. */
+    private long count = 0;
+
+    /** Length of the body or -1 if it is not known. */
+    private long contentLength = -1;
+
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     * 
+     * @param response HTTP response
+     */
+    public JsonServiceResponseBody(HttpServletResponse response) {
+
+        this(response, JsonServiceBufferPool.BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param response HTTP response
+     * @param limit Maximum size of a body that is sent with its length.
+     */
+    public JsonServiceResponseBody(HttpServletResponse response, int limit) {
+
+        this.response = response;
+        this.limit = Math.max(0, limit);
+    }
+
+    /**
+     * Sets length of a body that is known in advance. The body is then
+     * written straight to the response, whatever its size.
+     * 
+     * @param length Length of the body.
+     * @throws IOException
+     */
+    public void setContentLength(long length) throws IOException {
+
+        if(os != null || count > 0) {
+            throw new IllegalStateException("Body has been written already");
+        }
+        response.setContentLengthLong(length);
+        contentLength = length;
+        stream();
+    }
+
+    /**
+     * Returns number of bytes written so far.
+     * 
+     * @return Returns number of bytes.
+     */
+    public long getCount() {
+
+        return count;
+    }
+
+    /**
+     * Returns length the response has been sent with.
+     * 
+     * @return Returns length of the body or -1 if it is streamed without its
+     *         length or the stream has not been closed yet.
+     */
+    public long getContentLength() {
+
+        return contentLength;
+    }
+
+    /**
+     * Indicates that the body is streamed without its length, i.e. with
+     * chunked encoding.
+     * 
+     * @return Returns true or false.
+     */
+    public boolean isChunked() {
+
+        return os != null && contentLength < 0;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+
+        if(closed) {
+            throw new IOException("Stream has been closed");
+        }
+        if(buffer != null && buffer.size() + len > limit) {
+            stream();
+        }
+        if(buffer != null) {
+            buffer.write(b, off, len);
+        }
+        else {
+            os.write(b, off, len);
+        }
+        count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+
+        if(closed) {
+            return;
+        }
+        if(buffer != null && buffer.size() > 0) {
+            stream();
+        }
+        if(os != null) {
+            os.flush();
+        }
+    }
+
+    /**
+     * Sets length of a body that has been held back and writes it, then
+     * closes the response stream.
+     */
+    @Override
+    public void close() throws IOException {
+
+        if(closed) {
+            return;
+        }
+        closed = true;
+        if(buffer != null) {
+            if(!response.isCommitted()) {
+                response.setContentLength(buffer.size());
+                contentLength = buffer.size();
+            }
+            stream();
+        }
+        os.close();
+    }
+
+    /**
+     * Writes what has been held back and continues without buffering.
+     */
+    private void stream() throws IOException {
+
+        os = response.getOutputStream();
+        buffer.writeTo(os);
+        buffer.recycle();
+        buffer = null;
+    }
+
+}
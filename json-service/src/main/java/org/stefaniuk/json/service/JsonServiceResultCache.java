@@ -0,0 +1,228 @@
+package org.stefaniuk.json.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ArrayNode;
+
+/**
+ * <p>
+ * JSON service result cache.
+ * </p>
+ * <p>
+ * Keeps results of a single method declared with
+ * {@link JsonService#cacheTtl()}, so that a call with the same parameters as
+ * a recent one returns the same result without calling the method again. The
+ * parameters are canonicalised by turning them into a JSON tree, so e.g. two
+ * objects with the same properties in a different order make the same key.
+ * The least recently used result is evicted when the cache is full, and a
+ * result expires after a fixed time since the method has returned it.
+ * </p>
+ * <p>
+ * A result is kept together with its JSON text, which is serialised when the
+ * response to the call that has produced it is written. A hit then only
+ * copies the text into a response with its own <code>id</code>, so the result
+ * is not serialised again.
+ * </p>
+ * <p>
+ * Only results of successful calls are kept. Errors and future results are
+ * never cached. The same result object is returned to every client that hits
+ * it, so it must not be modified.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public final class JsonServiceResultCache {
+
+    /** Returned by {@link #get(JsonNode)} if there is no result. */
+    static final Object MISS = new Object();
+
+    /** Converts parameters into keys. */
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /** Time a result is kept for in nanoseconds. */
+    private final long ttl;
+
+    /** Maximum number of results. */
+    private final int maxEntries;
+
+    /** Results in order of access, the least recently used first. */
+    private final LinkedHashMap<JsonNode, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor
+     * 
+     * @param ttl Time a result is kept for in milliseconds.
+     * @param maxEntries Maximum number of results.
+     */
+    public JsonServiceResultCache(long ttl, final int maxEntries) {
+
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+        this.maxEntries = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<JsonNode, Entry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<JsonNode, JsonServiceResultCache.Entry> eldest) {
+
+                return size() > JsonServiceResultCache.this.maxEntries;
+            }
+
+        };
+    }
+
+    /**
+     * Cached result with its expiry time.
+     */
+    private static final class Entry {
+
+        private final Object value;
+
+        private final long expires;
+
+        private Entry(Object value, long expires) {
+
+            this.value = value;
+            this.expires = expires;
+        }
+
+    }
+
+    /**
+     * Returns key of the parameters of a call, in which the parameters are
+     * converted into JSON.
+     * 
+     * @param args Arguments passed to the method.
+     * @return Returns key or null if the arguments cannot be converted into
+     *         JSON, in which case the call is not cached.
+     */
+    static JsonNode key(Object[] args) {
+
+        ArrayNode key = mapper.createArrayNode();
+        try {
+            for(Object arg: args) {
+                if(arg == null) {
+                    key.addNull();
+                }
+                else {
+                    key.add(mapper.valueToTree(arg));
+                }
+            }
+        }
+        catch(IllegalArgumentException e) {
+            return null;
+        }
+
+        return key;
+    }
+
+    /**
+     * Looks up result of a call, counting a hit or a miss.
+     * 
+     * @param key Key returned by {@link #key(Object[])}
+     * @return Returns result, which may be null, or {@link #MISS} if there is
+     *         no result.
+     */
+    Object get(JsonNode key) {
+
+        Entry entry;
+        synchronized(entries) {
+            entry = entries.get(key);
+            if(entry != null && entry.expires - System.nanoTime() <= 0) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if(entry == null) {
+            misses.incrementAndGet();
+            return MISS;
+        }
+        hits.incrementAndGet();
+
+        return entry.value;
+    }
+
+    /**
+     * Stores result of a call.
+     * 
+     * @param key Key returned by {@link #key(Object[])}
+     * @param value Result
+     */
+    void put(JsonNode key, Object value) {
+
+        Entry entry = new Entry(value, System.nanoTime() + ttl);
+        synchronized(entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Discards all results.
+     */
+    public void invalidate() {
+
+        synchronized(entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Discards result of a call with given parameters.
+     * 
+     * @param args Arguments passed to the method.
+     */
+    public void remove(Object... args) {
+
+        JsonNode key = key(args);
+        if(key != null) {
+            synchronized(entries) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Returns number of results, including expired ones that have not been
+     * evicted yet.
+     * 
+     * @return Returns number of results.
+     */
+    public int size() {
+
+        synchronized(entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns number of calls answered from the cache.
+     * 
+     * @return Returns number of hits.
+     */
+    public long getHitCount() {
+
+        return hits.get();
+    }
+
+    /**
+     * Returns number of calls that have not found a result in the cache.
+     * 
+     * @return Returns number of misses.
+     */
+    public long getMissCount() {
+
+        return misses.get();
+    }
+
+}
@@ -0,0 +1,110 @@
+package org.stefaniuk.json.service;
+
+import java.io.IOException;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.util.TokenBuffer;
+
+/**
+ * <p>
+ * JSON service shared result.
+ * </p>
+ * <p>
+ * Result of a method call that is returned to more than one client, i.e. to
+ * all calls coalesced by {@link JsonServiceCoalescer} or answered from
+ * {@link JsonServiceResultCache}. It is serialised only once, by whichever
+ * response is written first, and copied into the other responses as it is.
+ * </p>
+ * <p>
+ * A JSON response gets the result as UTF-8 bytes, which are copied straight
+ * into its stream. Smile cannot take bytes serialised in advance, as a
+ * document refers back to field names written earlier in it, so any other
+ * response gets the result as tokens, which are replayed into its generator
+ * without serialising the result object again.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+final class JsonServiceSharedResult {
+
+    /** Result of the method call. */
+    private final Object value;
+
+    /** Result serialised into JSON or null if it has not been yet. */
+    private volatile byte[] json;
+
+    /** Result serialised into tokens or null if it has not been yet. */
+    private volatile TokenBuffer tokens;
+
+    /**
+     * Constructor
+     * 
+     * @param value Result of the method call.
+     */
+    JsonServiceSharedResult(Object value) {
+
+        this.value = value;
+    }
+
+    /**
+     * Returns result of the method call.
+     * 
+     * @return Returns result object.
+     */
+    Object getValue() {
+
+        return value;
+    }
+
+    /**
+     * Returns result serialised into JSON, serialising it on the first call.
+     * The array must not be modified.
+     * 
+     * @param mapper Object mapper
+     * @return Returns JSON encoded in UTF-8.
+     * @throws IOException
+     */
+    byte[] getJson(ObjectMapper mapper) throws IOException {
+
+        byte[] b = json;
+        if(b == null) {
+            synchronized(this) {
+                b = json;
+                if(b == null) {
+                    b = mapper.writeValueAsBytes(value);
+                    json = b;
+                }
+            }
+        }
+
+        return b;
+    }
+
+    /**
+     * Returns result serialised into tokens, serialising it on the first
+     * call. The buffer must not be modified.
+     * 
+     * @param mapper Object mapper
+     * @return Returns {@link TokenBuffer} object.
+     * @throws IOException
+     */
+    TokenBuffer getTokens(ObjectMapper mapper) throws IOException {
+
+        TokenBuffer t = tokens;
+        if(t == null) {
+            synchronized(this) {
+                t = tokens;
+                if(t == null) {
+                    t = new TokenBuffer(mapper);
+                    mapper.writeValue(t, value);
+                    tokens = t;
+                }
+            }
+        }
+
+        return t;
+    }
+
+}
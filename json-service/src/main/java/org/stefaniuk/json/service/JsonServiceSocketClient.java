@@ -0,0 +1,434 @@
+package org.stefaniuk.json.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ArrayNode;
+import org.codehaus.jackson.node.ObjectNode;
+
+/**
+ * <p>
+ * JSON service socket client.
+ * </p>
+ * <p>
+ * Calls methods of a service served by {@link JsonServiceSocketServer}. The
+ * client keeps a pool of connections, which are opened when they are first
+ * needed and reopened after they fail, and spreads the calls over them. Calls
+ * are pipelined: any number of them can be in flight over one connection, and
+ * each reply is matched to its call by <code>id</code>. The client is thread
+ * safe.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * 
+ * <pre>
+ * JsonServiceSocketClient client = new JsonServiceSocketClient(new InetSocketAddress(&quot;localhost&quot;, 7070));
+ * String text = client.call(String.class, &quot;echo&quot;, &quot;abc&quot;);
+ * </pre>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public class JsonServiceSocketClient implements Closeable {
+
+    /**
+     * This object provides functionality for conversion between Java objects
+     * and JSON.
+     */
+    private static ObjectMapper mapper = new ObjectMapper();
+
+    /** Address of the server. */
+    private final SocketAddress address;
+
+    /** Pool of connections. */
+    private final Connection[] connections;
+
+    /** Index of the connection the next call is sent over. */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /** Identifier of the next call. */
+    private final AtomicInteger ids = new AtomicInteger();
+
+    /** Framing of the messages. */
+    private volatile JsonServiceFraming framing = JsonServiceFraming.NEWLINE;
+
+    /** Maximum size of a message. */
+    private volatile int maxMessageSize = 1024 * 1024;
+
+    /** Time a reply is waited for, in milliseconds. */
+    private volatile long timeout = 30000;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor. The pool holds 4 connections.
+     * 
+     * @param address Address of the server, either
+     *        {@link java.net.InetSocketAddress} or a Unix domain socket
+     *        address, see
+     *        {@link JsonServiceUtil#newUnixDomainSocketAddress(String)}.
+     */
+    public JsonServiceSocketClient(SocketAddress address) {
+
+        this(address, 4);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param address Address of the server.
+     * @param poolSize Number of connections
+     */
+    public JsonServiceSocketClient(SocketAddress address, int poolSize) {
+
+        if(poolSize < 1) {
+            throw new IllegalArgumentException("Pool size must be greater than zero");
+        }
+        this.address = address;
+        this.connections = new Connection[poolSize];
+    }
+
+    /**
+     * Sets framing of the messages, which has to match the one of the server.
+     * It has to be set before the first call.
+     * 
+     * @param framing Framing
+     * @return Returns this client.
+     */
+    public JsonServiceSocketClient setFraming(JsonServiceFraming framing) {
+
+        this.framing = framing;
+
+        return this;
+    }
+
+    /**
+     * Sets maximum size of a reply.
+     * 
+     * @param maxMessageSize Size in bytes
+     * @return Returns this client.
+     */
+    public JsonServiceSocketClient setMaxMessageSize(int maxMessageSize) {
+
+        this.maxMessageSize = maxMessageSize;
+
+        return this;
+    }
+
+    /**
+     * Sets time a reply is waited for by {@link #call(Class, String, Object...)
+     * call}. It defaults to 30 seconds.
+     * 
+     * @param timeout Timeout in milliseconds
+     * @return Returns this client.
+     */
+    public JsonServiceSocketClient setTimeout(long timeout) {
+
+        this.timeout = timeout;
+
+        return this;
+    }
+
+    /**
+     * Calls method and waits for its result.
+     * 
+     * @param type Type of the result
+     * @param method Method name
+     * @param params Parameters
+     * @return Returns result of the method.
+     * @throws JsonServiceException if the method has failed.
+     * @throws IOException if the connection has failed or the reply has not
+     *         come in time.
+     */
+    public <T> T call(Class<T> type, String method, Object... params) throws JsonServiceException, IOException {
+
+        CompletableFuture<JsonNode> future = callAsync(method, params);
+        JsonNode result;
+        try {
+            result = future.get(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof JsonServiceException) {
+                throw (JsonServiceException) cause;
+            }
+            if(cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+        catch(TimeoutException e) {
+            // a late reply is dropped
+            future.cancel(false);
+            throw new IOException("No reply to " + method + " within " + timeout + " ms");
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+
+        return result == null || result.isNull() ? null : mapper.readValue(result, type);
+    }
+
+    /**
+     * Calls method without waiting for its result, so that many calls can be
+     * in flight at once. The future fails with {@link JsonServiceException} if
+     * the method has failed, or with {@link IOException} if the connection has
+     * failed. A future that is cancelled stops waiting for its reply.
+     * 
+     * @param method Method name
+     * @param params Parameters
+     * @return Returns future of the result.
+     * @throws IOException if the call cannot be sent.
+     */
+    public CompletableFuture<JsonNode> callAsync(String method, Object... params) throws IOException {
+
+        final int id = ids.incrementAndGet();
+        byte[] request = request(id, method, params);
+        final Connection connection = connection();
+        final CompletableFuture<JsonNode> future = new CompletableFuture<JsonNode>();
+        connection.pending.put(id, future);
+        future.whenComplete(new BiConsumer<JsonNode, Throwable>() {
+
+            @Override
+            public void accept(JsonNode result, Throwable e) {
+
+                connection.pending.remove(id, future);
+            }
+
+        });
+        IOException failure = connection.failure;
+        if(failure != null) {
+            // the connection has failed before the call could be seen waiting
+            future.completeExceptionally(failure);
+            return future;
+        }
+        try {
+            connection.write(request);
+        }
+        catch(IOException e) {
+            connection.pending.remove(id);
+            connection.fail(e);
+            throw e;
+        }
+
+        return future;
+    }
+
+    /**
+     * Sends notification, i.e. a call without <code>id</code>, which is not
+     * answered.
+     * 
+     * @param method Method name
+     * @param params Parameters
+     * @throws IOException
+     */
+    public void sendNotification(String method, Object... params) throws IOException {
+
+        Connection connection = connection();
+        try {
+            connection.write(request(null, method, params));
+        }
+        catch(IOException e) {
+            connection.fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns number of calls waiting for a reply.
+     * 
+     * @return Returns number of calls.
+     */
+    public int getPendingCount() {
+
+        int count = 0;
+        synchronized(connections) {
+            for(Connection connection: connections) {
+                if(connection != null) {
+                    count += connection.pending.size();
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Closes all connections. Calls in flight fail.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+        synchronized(connections) {
+            for(int i = 0; i < connections.length; i++) {
+                if(connections[i] != null) {
+                    connections[i].fail(new IOException("Client has been closed"));
+                    connections[i] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds request.
+     */
+    private static byte[] request(Integer id, String method, Object... params) throws IOException {
+
+        ObjectNode node = mapper.createObjectNode();
+        node.put("jsonrpc", "2.0");
+        if(id != null) {
+            node.put("id", id);
+        }
+        node.put("method", method);
+        ArrayNode array = node.putArray("params");
+        for(Object param: params) {
+            array.addPOJO(param);
+        }
+
+        return mapper.writeValueAsBytes(node);
+    }
+
+    /**
+     * Picks connection of the pool in turn, opening it if needed.
+     */
+    private Connection connection() throws IOException {
+
+        if(closed) {
+            throw new IOException("Client has been closed");
+        }
+        int i = (next.getAndIncrement() & Integer.MAX_VALUE) % connections.length;
+        synchronized(connections) {
+            Connection connection = connections[i];
+            if(connection == null || connection.failure != null) {
+                connection = new Connection(JsonServiceUtil.openSocketChannel(address));
+                connections[i] = connection;
+            }
+            return connection;
+        }
+    }
+
+    /**
+     * Connection to the server. Its thread reads the replies and completes
+     * the calls waiting for them.
+     * 
+     * @author Daniel Stefaniuk
+     */
+    private final class Connection implements Runnable {
+
+        private final SocketChannel socket;
+
+        private final InputStream is;
+
+        private final OutputStream os;
+
+        /** Calls waiting for a reply, by id. */
+        private final Map<Integer, CompletableFuture<JsonNode>> pending =
+            new ConcurrentHashMap<Integer, CompletableFuture<JsonNode>>();
+
+        /** Cause of the failure or null if the connection is open. */
+        private volatile IOException failure = null;
+
+        private Connection(SocketChannel socket) {
+
+            this.socket = socket;
+            this.is = new BufferedInputStream(JsonServiceFraming.newInputStream(socket));
+            this.os = new BufferedOutputStream(JsonServiceFraming.newOutputStream(socket));
+            Thread t = new Thread(this, "json-service-socket-client");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        private synchronized void write(byte[] message) throws IOException {
+
+            framing.write(os, message);
+            os.flush();
+        }
+
+        @Override
+        public void run() {
+
+            try {
+                byte[] message;
+                while((message = framing.read(is, maxMessageSize)) != null) {
+                    JsonNode reply = mapper.readValue(message, JsonNode.class);
+                    JsonNode id = reply.get("id");
+                    CompletableFuture<JsonNode> future = id != null ? pending.remove(id.getIntValue()) : null;
+                    if(future == null) {
+                        continue;
+                    }
+                    JsonNode error = reply.get("error");
+                    if(error != null && !error.isNull()) {
+                        future.completeExceptionally(exception(error));
+                    }
+                    else {
+                        future.complete(reply.get("result"));
+                    }
+                }
+                fail(new IOException("Connection has been closed by the server"));
+            }
+            catch(IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Closes the connection and fails the calls waiting for a reply.
+         */
+        private void fail(IOException e) {
+
+            failure = e;
+            try {
+                socket.close();
+            }
+            catch(IOException ignore) {
+                // closed anyway
+            }
+            for(Integer id: pending.keySet()) {
+                CompletableFuture<JsonNode> future = pending.remove(id);
+                if(future != null) {
+                    future.completeExceptionally(e);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Converts error object of a reply to exception.
+     */
+    private static JsonServiceException exception(JsonNode error) {
+
+        int code = error.path("code").getIntValue();
+        String message = error.path("message").getTextValue();
+        JsonServiceError type = JsonServiceError.CUSTOM_ERROR;
+        for(JsonServiceError e: JsonServiceError.values()) {
+            if(e.getCode() == code) {
+                type = e;
+                break;
+            }
+        }
+
+        return new JsonServiceException(type, message != null ? message : type.getMessage());
+    }
+
+}
@@ -0,0 +1,407 @@
+package org.stefaniuk.json.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * JSON service socket server.
+ * </p>
+ * <p>
+ * Serves a registered class over a raw TCP or Unix domain socket, without the
+ * overhead of HTTP, for services that are called from the same host or a
+ * nearby one. The messages are split by {@link JsonServiceFraming}, and each
+ * of them is a JSON-RPC request or batch, which is handled by
+ * {@link JsonServiceRegistry} exactly as the body of an HTTP request would be.
+ * Nothing is sent in reply to a notification.
+ * </p>
+ * <p>
+ * Requests can be pipelined: a client does not have to wait for a reply
+ * before it sends the next request. The requests of a connection are carried
+ * by a {@link JsonServiceChannel}, which runs them on a pool of worker threads
+ * and sends the replies in the order of the requests, unless
+ * {@link #setOrdered(boolean) told otherwise}. Once the maximum number of
+ * requests is in flight, the connection stops reading until one of them has
+ * been replied to.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * 
+ * <pre>
+ * new JsonServiceSocketServer(registry, new InetSocketAddress(7070), ExampleService.class).start();
+ * new JsonServiceSocketServer(registry, JsonServiceUtil.newUnixDomainSocketAddress(&quot;/run/example.sock&quot;),
+ *     ExampleService.class).start();
+ * </pre>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+public class JsonServiceSocketServer {
+
+    private final Logger logger = LoggerFactory.getLogger(JsonServiceSocketServer.class);
+
+    /** Time the replies are waited for after a client has stopped sending. */
+    private static final long SHUTDOWN_TIMEOUT = 30000;
+
+    /** Registry the requests are handled by. */
+    private final JsonServiceRegistry registry;
+
+    /** Address the server listens on. */
+    private final SocketAddress address;
+
+    /** Registered class */
+    private final Class<?> clazz;
+
+    /** Open connections. */
+    private final Set<Connection> connections =
+        Collections.newSetFromMap(new ConcurrentHashMap<Connection, Boolean>());
+
+    /** Framing of the messages. */
+    private JsonServiceFraming framing = JsonServiceFraming.NEWLINE;
+
+    /** Number of worker threads. */
+    private int workers = 16;
+
+    /** Maximum size of a message. */
+    private int maxMessageSize = 1024 * 1024;
+
+    /** Maximum number of requests in flight per connection. */
+    private int maxInFlight = 16;
+
+    /** Indicates that replies are sent in the order of the requests. */
+    private boolean ordered = true;
+
+    /** Worker threads. */
+    private ExecutorService executor;
+
+    private ServerSocketChannel channel;
+
+    /** Accepting thread. */
+    private Thread thread;
+
+    private volatile boolean running = false;
+
+    /**
+     * Constructor
+     * 
+     * @param registry Registry the requests are handled by.
+     * @param address Address the server listens on, either
+     *        {@link InetSocketAddress} or a Unix domain socket address, see
+     *        {@link JsonServiceUtil#newUnixDomainSocketAddress(String)}.
+     * @param clazz Registered class
+     */
+    public JsonServiceSocketServer(JsonServiceRegistry registry, SocketAddress address, Class<?> clazz) {
+
+        this.registry = registry;
+        this.address = address;
+        this.clazz = clazz;
+        registry.register(clazz);
+    }
+
+    /**
+     * Sets framing of the messages. It defaults to
+     * {@link JsonServiceFraming#NEWLINE}.
+     * 
+     * @param framing Framing
+     * @return Returns this server.
+     */
+    public JsonServiceSocketServer setFraming(JsonServiceFraming framing) {
+
+        this.framing = framing;
+
+        return this;
+    }
+
+    /**
+     * Sets number of worker threads, which call the service methods. It has
+     * to be set before the server is started.
+     * 
+     * @param workers Number of threads
+     * @return Returns this server.
+     */
+    public JsonServiceSocketServer setWorkers(int workers) {
+
+        if(workers < 1) {
+            throw new IllegalArgumentException("Number of workers must be greater than zero");
+        }
+        this.workers = workers;
+
+        return this;
+    }
+
+    /**
+     * Sets maximum size of a message. A connection that sends a larger one is
+     * closed.
+     * 
+     * @param maxMessageSize Size in bytes
+     * @return Returns this server.
+     */
+    public JsonServiceSocketServer setMaxMessageSize(int maxMessageSize) {
+
+        this.maxMessageSize = maxMessageSize;
+
+        return this;
+    }
+
+    /**
+     * Sets maximum number of requests in flight per connection. It defaults
+     * to 16.
+     * 
+     * @param maxInFlight Number of requests
+     * @return Returns this server.
+     */
+    public JsonServiceSocketServer setMaxInFlight(int maxInFlight) {
+
+        this.maxInFlight = maxInFlight;
+
+        return this;
+    }
+
+    /**
+     * Sets order of the replies. By default they are sent in the order of the
+     * requests, as a simple client expects. A client that matches the replies
+     * by <code>id</code> gets each of them as soon as it is ready if this is
+     * set to false.
+     * 
+     * @param ordered Indicates that replies are sent in the order of the
+     *        requests.
+     * @return Returns this server.
+     */
+    public JsonServiceSocketServer setOrdered(boolean ordered) {
+
+        this.ordered = ordered;
+
+        return this;
+    }
+
+    /**
+     * Starts the server.
+     * 
+     * @return Returns this server.
+     * @throws IOException
+     */
+    public synchronized JsonServiceSocketServer start() throws IOException {
+
+        if(running) {
+            throw new IllegalStateException("Server is already running");
+        }
+
+        final AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+
+                Thread t = new Thread(r, "json-service-socket-worker-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+
+        });
+        channel = JsonServiceUtil.openServerSocketChannel(address);
+
+        running = true;
+        thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                accept();
+            }
+
+        }, "json-service-socket-acceptor");
+        thread.start();
+        logger.info("JSON service socket server listening on " + getAddress());
+
+        return this;
+    }
+
+    /**
+     * Stops the server and closes all its connections. The file of a Unix
+     * domain socket is deleted.
+     * 
+     * @throws InterruptedException
+     */
+    public synchronized void stop() throws InterruptedException {
+
+        if(!running) {
+            return;
+        }
+        running = false;
+        SocketAddress local = getAddress();
+        close(channel);
+        thread.join();
+        for(Connection connection: connections) {
+            connection.close();
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        if(local != null && !(local instanceof InetSocketAddress)) {
+            try {
+                Files.deleteIfExists((Path) local.getClass().getMethod("getPath").invoke(local));
+            }
+            catch(Exception e) {
+                e.printStackTrace(System.err);
+            }
+        }
+        logger.info("JSON service socket server stopped");
+    }
+
+    /**
+     * Returns address the server listens on, e.g. to find out the port
+     * chosen when it has been bound to port 0.
+     * 
+     * @return Returns socket address or null if the server is not started.
+     */
+    public SocketAddress getAddress() {
+
+        try {
+            return channel != null ? channel.getLocalAddress() : null;
+        }
+        catch(IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns number of open connections.
+     * 
+     * @return Returns number of connections.
+     */
+    public int getConnectionCount() {
+
+        return connections.size();
+    }
+
+    /**
+     * Accepts connections and starts a thread reading each of them.
+     */
+    private void accept() {
+
+        while(running) {
+            try {
+                SocketChannel socket = channel.accept();
+                if(address instanceof InetSocketAddress) {
+                    socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                Thread t = new Thread(connection, "json-service-socket-connection-" + connections.size());
+                t.setDaemon(true);
+                t.start();
+            }
+            catch(ClosedChannelException e) {
+                // stopped
+            }
+            catch(IOException e) {
+                if(running) {
+                    e.printStackTrace(System.err);
+                }
+            }
+        }
+    }
+
+    private static void close(Closeable closeable) {
+
+        try {
+            closeable.close();
+        }
+        catch(IOException e) {
+            e.printStackTrace(System.err);
+        }
+    }
+
+    /**
+     * Connection of a client. Its thread reads the requests and hands them
+     * over to the channel, whose worker threads write the replies.
+     * 
+     * @author Daniel Stefaniuk
+     */
+    private final class Connection implements Runnable, JsonServiceChannel.Sender {
+
+        private final SocketChannel socket;
+
+        private final InputStream is;
+
+        private final OutputStream os;
+
+        private final JsonServiceChannel channel;
+
+        private Connection(SocketChannel socket) {
+
+            this.socket = socket;
+            this.is = new BufferedInputStream(JsonServiceFraming.newInputStream(socket));
+            this.os = new BufferedOutputStream(JsonServiceFraming.newOutputStream(socket));
+            this.channel = new JsonServiceChannel(registry, clazz, this).setExecutor(executor)
+                .setMaxInFlight(maxInFlight).setOrdered(ordered);
+        }
+
+        @Override
+        public void run() {
+
+            try {
+                byte[] message;
+                while((message = framing.read(is, maxMessageSize)) != null) {
+                    channel.receive(message);
+                }
+                // the client has stopped sending, but still reads the replies
+                channel.awaitIdle(SHUTDOWN_TIMEOUT);
+            }
+            catch(ClosedChannelException e) {
+                // closed
+            }
+            catch(IOException e) {
+                if(running) {
+                    logger.debug("JSON service socket connection failed: " + e.getMessage());
+                }
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finally {
+                close();
+            }
+        }
+
+        @Override
+        public void send(byte[] message) throws IOException {
+
+            framing.write(os, message);
+            os.flush();
+        }
+
+        private void close() {
+
+            connections.remove(this);
+            channel.close();
+            JsonServiceSocketServer.close(socket);
+        }
+
+    }
+
+}
@@ -1,19 +1,34 @@
 package org.stefaniuk.json.service;
 
-import java.io.BufferedOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStream;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.codehaus.jackson.JsonEncoding;
 import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonGenerationException;
 import org.codehaus.jackson.JsonGenerator;
@@ -25,6 +40,7 @@ import org.codehaus.jackson.node.ObjectNode;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.stefaniuk.json.service.JsonServiceInvoker.ContentType;
 
 /**
  * <p>
@@ -56,10 +72,10 @@ public class JsonServiceUtil {
      * @param bos Output stream
      * @param response HTTP response object
      */
-    public static void setHeadersForServiceMap(BufferedOutputStream bos, HttpServletResponse response) {
+    public static void setHeadersForServiceMap(OutputStream bos, HttpServletResponse response) {
 
         response.setHeader("Content-Type", "application/json; charset=utf-8");
-        response.setHeader("Content-Length", Integer.toString(bos.toString().length()));
+        setContentLength(bos, response);
         response.setStatus(200);
     }
 
@@ -69,7 +85,7 @@ public class JsonServiceUtil {
      * @param bos Output stream
      * @param response HTTP response object
      */
-    public static void setHeadersForMethodCall(BufferedOutputStream bos, HttpServletResponse response) {
+    public static void setHeadersForMethodCall(OutputStream bos, HttpServletResponse response) {
 
         String date = (new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z")).format(Calendar.getInstance().getTime());
 
@@ -77,7 +93,7 @@ public class JsonServiceUtil {
         response.setHeader("Last-Modified", date);
         response.setHeader("Cache-Control", "no-cache");
         response.setHeader("Content-Type", "application/json; charset=utf-8");
-        response.setHeader("Content-Length", Integer.toString(bos.toString().length()));
+        setContentLength(bos, response);
         response.setStatus(200);
     }
 
@@ -88,7 +104,7 @@ public class JsonServiceUtil {
      * @param response HTTP response object
      * @param status HTTP response code
      */
-    public static void setHeadersForMethodCall(BufferedOutputStream bos, HttpServletResponse response, int status) {
+    public static void setHeadersForMethodCall(OutputStream bos, HttpServletResponse response, int status) {
 
         String date = (new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z")).format(Calendar.getInstance().getTime());
 
@@ -96,23 +112,24 @@ public class JsonServiceUtil {
         response.setHeader("Last-Modified", date);
         response.setHeader("Cache-Control", "no-cache");
         response.setHeader("Content-Type", "application/json; charset=utf-8");
-        response.setHeader("Content-Length", Integer.toString(bos.toString().length()));
+        setContentLength(bos, response);
         response.setStatus(status);
     }
 
     /**
      * This method sets HTTP response headers adequate for Service Mapping
      * Description and returns ResponseEntity to be used by Spring Framework.
+     * The body has been written to the HTTP response already, so the entity
+     * is sent without <code>Content-Length</code>.
      * 
      * @param bos Output stream
      * @return Returns ResponseEntity to be used by Spring Framework.
      */
-    public static ResponseEntity<String> getResponseEntityForServiceMap(BufferedOutputStream bos) {
+    public static ResponseEntity<String> getResponseEntityForServiceMap(OutputStream bos) {
 
         HttpHeaders headers = new HttpHeaders();
 
         headers.set("Content-Type", "application/json; charset=utf-8");
-        headers.set("Content-Length", Integer.toString(bos.toString().length()));
 
         return new ResponseEntity<String>(bos.toString(), headers, HttpStatus.OK);
     }
@@ -120,11 +137,13 @@ public class JsonServiceUtil {
     /**
      * This method sets HTTP response headers adequate for JSON-RPC method call
      * and returns ResponseEntity to be used by Spring Framework.
+     * The body has been written to the HTTP response already, so the entity
+     * is sent without <code>Content-Length</code>.
      * 
      * @param bos Output stream
      * @return Returns ResponseEntity to be used by Spring Framework.
      */
-    public static ResponseEntity<String> getResponseEntityForMethodCall(BufferedOutputStream bos) {
+    public static ResponseEntity<String> getResponseEntityForMethodCall(OutputStream bos) {
 
         HttpHeaders headers = new HttpHeaders();
 
@@ -134,7 +153,6 @@ public class JsonServiceUtil {
         headers.set("Last-Modified", date);
         headers.set("Cache-Control", "no-cache");
         headers.set("Content-Type", "application/json; charset=utf-8");
-        headers.set("Content-Length", Integer.toString(bos.toString().length()));
 
         return new ResponseEntity<String>(bos.toString(), headers, HttpStatus.OK);
     }
@@ -142,12 +160,14 @@ public class JsonServiceUtil {
     /**
      * This method sets HTTP response headers adequate for JSON-RPC method call
      * and returns ResponseEntity to be used by Spring Framework.
+     * The body has been written to the HTTP response already, so the entity
+     * is sent without <code>Content-Length</code>.
      * 
      * @param bos Output stream
      * @param status HTTP response code
      * @return Returns ResponseEntity to be used by Spring Framework.
      */
-    public static ResponseEntity<String> getResponseEntityForMethodCall(BufferedOutputStream bos, HttpStatus status) {
+    public static ResponseEntity<String> getResponseEntityForMethodCall(OutputStream bos, HttpStatus status) {
 
         HttpHeaders headers = new HttpHeaders();
 
@@ -157,11 +177,34 @@ public class JsonServiceUtil {
         headers.set("Last-Modified", date);
         headers.set("Cache-Control", "no-cache");
         headers.set("Content-Type", "application/json; charset=utf-8");
-        headers.set("Content-Length", Integer.toString(bos.toString().length()));
 
         return new ResponseEntity<String>(bos.toString(), headers, status);
     }
 
+    /**
+     * Returns length of a response body.
+     * 
+     * @param bos Output stream
+     * @return Returns length of the body or -1 if it is not known, e.g. when
+     *         the body is streamed with chunked encoding.
+     */
+    public static long getContentLength(OutputStream bos) {
+
+        return bos instanceof JsonServiceResponseBody ? ((JsonServiceResponseBody) bos).getContentLength() : -1;
+    }
+
+    /**
+     * Sets <code>Content-Length</code> header if the length of the body is
+     * known and the response has not been committed.
+     */
+    private static void setContentLength(OutputStream bos, HttpServletResponse response) {
+
+        long length = getContentLength(bos);
+        if(length >= 0 && !response.isCommitted()) {
+            response.setHeader("Content-Length", Long.toString(length));
+        }
+    }
+
     /**
      * Handles HTTP request.
      * 
@@ -169,7 +212,8 @@ public class JsonServiceUtil {
      * @param request HTTP request object
      * @param response HTTP response object
      * @param clazz Class
-     * @return Returns ResponseEntity to be used by Spring Framework.
+     * @return Returns ResponseEntity to be used by Spring Framework or null if
+     *         the response is written asynchronously.
      * @throws IOException
      */
     public static ResponseEntity<String> handle(JsonServiceRegistry service, HttpServletRequest request,
@@ -177,14 +221,19 @@ public class JsonServiceUtil {
 
         ResponseEntity<String> re = null;
 
-        BufferedOutputStream bos = (BufferedOutputStream) service.handle(request, response, clazz);
+        OutputStream bos = service.handle(request, response, clazz);
         String method = request.getMethod();
-        if(method.equals("GET")) {
-            re = JsonServiceUtil.getResponseEntityForServiceMap(bos);
+        if(request.isAsyncStarted()) {
+            // response is written asynchronously
+            re = null;
+        }
+        else if(method.equals("GET")) {
+            re = response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED
+                ? new ResponseEntity<String>(HttpStatus.NOT_MODIFIED)
+                : JsonServiceUtil.getResponseEntityForServiceMap(bos);
         }
         else {
-            re = JsonServiceUtil.getResponseEntityForMethodCall(bos);
-
+            re = withContentType(JsonServiceUtil.getResponseEntityForMethodCall(bos), ContentType.forResponse(request));
         }
 
         return re;
@@ -197,7 +246,8 @@ public class JsonServiceUtil {
      * @param request HTTP request object
      * @param response HTTP response object
      * @param obj Already instantiated object
-     * @return Returns ResponseEntity to be used by Spring Framework.
+     * @return Returns ResponseEntity to be used by Spring Framework or null if
+     *         the response is written asynchronously.
      * @throws IOException
      */
     public static ResponseEntity<String> handle(JsonServiceRegistry service, HttpServletRequest request,
@@ -205,19 +255,106 @@ public class JsonServiceUtil {
 
         ResponseEntity<String> re = null;
 
-        BufferedOutputStream bos = (BufferedOutputStream) service.handle(request, response, obj);
+        OutputStream bos = service.handle(request, response, obj);
         String method = request.getMethod();
-        if(method.equals("GET")) {
-            re = JsonServiceUtil.getResponseEntityForServiceMap(bos);
+        if(request.isAsyncStarted()) {
+            // response is written asynchronously
+            re = null;
+        }
+        else if(method.equals("GET")) {
+            re = response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED
+                ? new ResponseEntity<String>(HttpStatus.NOT_MODIFIED)
+                : JsonServiceUtil.getResponseEntityForServiceMap(bos);
         }
         else {
-            re = JsonServiceUtil.getResponseEntityForMethodCall(bos);
-
+            re = withContentType(JsonServiceUtil.getResponseEntityForMethodCall(bos), ContentType.forResponse(request));
         }
 
         return re;
     }
 
+    /**
+     * Handles HTTP request and returns the response as bytes. The response is
+     * serialised once, straight into a pooled buffer, and the bytes are passed
+     * to Spring Framework as they are, with their exact length, instead of
+     * being decoded into a string and encoded again.
+     * 
+     * @param service Service registry object
+     * @param request HTTP request object
+     * @param response HTTP response object
+     * @param clazz Class
+     * @return Returns ResponseEntity to be used by Spring Framework or null if
+     *         the response is written asynchronously.
+     * @throws IOException
+     */
+    public static ResponseEntity<byte[]> handleBytes(JsonServiceRegistry service, HttpServletRequest request,
+            HttpServletResponse response, Class<?> clazz) throws IOException {
+
+        JsonServiceCapturedResponse captured = new JsonServiceCapturedResponse(response);
+        service.handle(request, captured, clazz);
+
+        return getResponseEntity(request, captured);
+    }
+
+    /**
+     * Handles HTTP request and returns the response as bytes.
+     * 
+     * @param service Service registry object
+     * @param request HTTP request object
+     * @param response HTTP response object
+     * @param obj Already instantiated object
+     * @return Returns ResponseEntity to be used by Spring Framework or null if
+     *         the response is written asynchronously.
+     * @throws IOException
+     * @see #handleBytes(JsonServiceRegistry, HttpServletRequest, HttpServletResponse, Class)
+     */
+    public static ResponseEntity<byte[]> handleBytes(JsonServiceRegistry service, HttpServletRequest request,
+            HttpServletResponse response, Object obj) throws IOException {
+
+        JsonServiceCapturedResponse captured = new JsonServiceCapturedResponse(response);
+        service.handle(request, captured, obj);
+
+        return getResponseEntity(request, captured);
+    }
+
+    /**
+     * Returns captured response as an entity, or passes it on to the servlet
+     * response if it is written asynchronously.
+     */
+    private static ResponseEntity<byte[]> getResponseEntity(HttpServletRequest request,
+            JsonServiceCapturedResponse captured) throws IOException {
+
+        if(request.isAsyncStarted()) {
+            // response is written asynchronously
+            captured.release();
+            return null;
+        }
+        if(!request.getMethod().equals("GET")) {
+            String date =
+                (new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z")).format(Calendar.getInstance().getTime());
+            captured.setHeader("Expires", "Mon, 01 Jan 2000 00:00:00 GMT");
+            captured.setHeader("Last-Modified", date);
+            captured.setHeader("Cache-Control", "no-cache");
+        }
+
+        return captured.getResponseEntity("application/json; charset=utf-8");
+    }
+
+    /**
+     * Sets content type negotiated for a response that is not JSON.
+     */
+    private static ResponseEntity<String> withContentType(ResponseEntity<String> re, ContentType type) {
+
+        if(!type.isBinary()) {
+            return re;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(re.getHeaders());
+        headers.set("Content-Type", type.toString());
+
+        return new ResponseEntity<String>(re.getBody(), headers, re.getStatusCode());
+    }
+
     /**
      * Creates Java POJO object from JSON string.
      * 
@@ -263,14 +400,19 @@ public class JsonServiceUtil {
     public static String toJson(Object pojo, boolean prettyPrint) throws JsonMappingException, JsonGenerationException,
             IOException {
 
-        StringWriter sw = new StringWriter();
-        JsonGenerator jg = jsonFactory.createJsonGenerator(sw);
-        if(prettyPrint) {
-            jg.useDefaultPrettyPrinter();
-        }
-        mapper.writeValue(jg, pojo);
+        JsonServiceBufferPool.Output os = new JsonServiceBufferPool.Output();
+        try {
+            JsonGenerator jg = jsonFactory.createJsonGenerator(os, JsonEncoding.UTF8);
+            if(prettyPrint) {
+                jg.useDefaultPrettyPrinter();
+            }
+            mapper.writeValue(jg, pojo);
 
-        return sw.toString();
+            return os.toString("UTF-8");
+        }
+        finally {
+            os.recycle();
+        }
     }
 
     /**
@@ -418,6 +560,255 @@ public class JsonServiceUtil {
         return node;
     }
 
+    /**
+     * Creates parameterized type, e.g. <code>List&lt;User&gt;</code>, without
+     * reflection. It is used by invokers generated at build time to describe
+     * generic method parameters.
+     * 
+     * @param rawType Raw type
+     * @param typeArguments Type arguments
+     * @return Returns parameterized type.
+     */
+    public static ParameterizedType getParameterizedType(Class<?> rawType, Type... typeArguments) {
+
+        return new ParameterizedTypeImpl(rawType, typeArguments);
+    }
+
+    /**
+     * Creates generic array type, e.g. <code>List&lt;User&gt;[]</code>,
+     * without reflection.
+     * 
+     * @param componentType Component type
+     * @return Returns generic array type.
+     */
+    public static GenericArrayType getGenericArrayType(Type componentType) {
+
+        return new GenericArrayTypeImpl(componentType);
+    }
+
+    /**
+     * Creates executor that starts a new virtual thread for each task. Virtual
+     * threads are looked up by reflection, so the library still runs on Java
+     * runtimes without them.
+     * 
+     * @return Returns executor or null if virtual threads are not supported.
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        }
+        catch(Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates address of a Unix domain socket. Unix domain sockets are looked
+     * up by reflection, like virtual threads.
+     * 
+     * @param path Path of the socket file
+     * @return Returns socket address.
+     * @throws UnsupportedOperationException if Unix domain sockets are not
+     *         supported.
+     */
+    public static SocketAddress newUnixDomainSocketAddress(String path) {
+
+        try {
+            Class<?> clazz = Class.forName("java.net.UnixDomainSocketAddress");
+            return (SocketAddress) clazz.getMethod("of", String.class).invoke(null, path);
+        }
+        catch(Exception e) {
+            throw new UnsupportedOperationException("Unix domain sockets are not supported", e);
+        }
+    }
+
+    /**
+     * Opens server socket channel bound to an address, either TCP or Unix
+     * domain.
+     * 
+     * @param address Socket address
+     * @return Returns server socket channel.
+     * @throws IOException
+     */
+    static ServerSocketChannel openServerSocketChannel(SocketAddress address) throws IOException {
+
+        ServerSocketChannel channel;
+        if(address instanceof InetSocketAddress) {
+            channel = ServerSocketChannel.open();
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        }
+        else {
+            channel = (ServerSocketChannel) openUnixDomain(ServerSocketChannel.class);
+        }
+        channel.bind(address);
+
+        return channel;
+    }
+
+    /**
+     * Opens socket channel connected to an address, either TCP or Unix domain.
+     * 
+     * @param address Socket address
+     * @return Returns socket channel.
+     * @throws IOException
+     */
+    static SocketChannel openSocketChannel(SocketAddress address) throws IOException {
+
+        SocketChannel channel;
+        if(address instanceof InetSocketAddress) {
+            channel = SocketChannel.open();
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+        else {
+            channel = (SocketChannel) openUnixDomain(SocketChannel.class);
+        }
+        try {
+            channel.connect(address);
+        }
+        catch(IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        return channel;
+    }
+
+    /**
+     * Calls <code>open(ProtocolFamily)</code> of a channel class with the
+     * <code>UNIX</code> protocol family.
+     */
+    private static Object openUnixDomain(Class<?> clazz) throws IOException {
+
+        try {
+            ProtocolFamily family = StandardProtocolFamily.valueOf("UNIX");
+            return clazz.getMethod("open", ProtocolFamily.class).invoke(null, family);
+        }
+        catch(InvocationTargetException e) {
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new UnsupportedOperationException("Unix domain sockets are not supported", e.getCause());
+        }
+        catch(Exception e) {
+            throw new UnsupportedOperationException("Unix domain sockets are not supported", e);
+        }
+    }
+
+    /**
+     * Parameterized type with no owner type.
+     * 
+     * @author Daniel Stefaniuk
+     */
+    private static final class ParameterizedTypeImpl implements ParameterizedType {
+
+        private final Class<?> rawType;
+
+        private final Type[] typeArguments;
+
+        private ParameterizedTypeImpl(Class<?> rawType, Type[] typeArguments) {
+
+            this.rawType = rawType;
+            this.typeArguments = typeArguments;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+
+            return typeArguments.clone();
+        }
+
+        @Override
+        public Type getRawType() {
+
+            return rawType;
+        }
+
+        @Override
+        public Type getOwnerType() {
+
+            return null;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+
+            if(!(obj instanceof ParameterizedType)) {
+                return false;
+            }
+            ParameterizedType type = (ParameterizedType) obj;
+
+            return rawType.equals(type.getRawType()) && type.getOwnerType() == null
+                && Arrays.equals(typeArguments, type.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Arrays.hashCode(typeArguments) ^ rawType.hashCode();
+        }
+
+        @Override
+        public String toString() {
+
+            StringBuilder sb = new StringBuilder(rawType.getName()).append('<');
+            for(int i = 0; i < typeArguments.length; i++) {
+                if(i > 0) {
+                    sb.append(", ");
+                }
+                Type type = typeArguments[i];
+                sb.append(type instanceof Class<?> ? ((Class<?>) type).getName() : type.toString());
+            }
+
+            return sb.append('>').toString();
+        }
+
+    }
+
+    /**
+     * Array of a parameterized type.
+     * 
+     * @author Daniel Stefaniuk
+     */
+    private static final class GenericArrayTypeImpl implements GenericArrayType {
+
+        private final Type componentType;
+
+        private GenericArrayTypeImpl(Type componentType) {
+
+            this.componentType = componentType;
+        }
+
+        @Override
+        public Type getGenericComponentType() {
+
+            return componentType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+
+            return obj instanceof GenericArrayType
+                && componentType.equals(((GenericArrayType) obj).getGenericComponentType());
+        }
+
+        @Override
+        public int hashCode() {
+
+            return componentType.hashCode();
+        }
+
+        @Override
+        public String toString() {
+
+            Type type = componentType;
+
+            return (type instanceof Class<?> ? ((Class<?>) type).getName() : type.toString()) + "[]";
+        }
+
+    }
+
     protected static ObjectNode getJsonServiceErrorNode(JsonServiceError jse) {
 
         ObjectNode code = mapper.createObjectNode();
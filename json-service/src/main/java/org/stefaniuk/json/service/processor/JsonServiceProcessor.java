@@ -0,0 +1,718 @@
+package org.stefaniuk.json.service.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.FilerException;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import org.stefaniuk.json.service.JsonService;
+import org.stefaniuk.json.service.JsonServiceInvoker;
+import org.stefaniuk.json.service.JsonServiceInvoker.ContentType;
+import org.stefaniuk.json.service.JsonServiceInvoker.DataType;
+import org.stefaniuk.json.service.JsonServiceInvoker.Envelope;
+import org.stefaniuk.json.service.JsonServiceInvoker.Transport;
+import org.stefaniuk.json.service.JsonServiceInvoker.Version;
+
+/**
+ * <p>
+ * JSON service annotation processor.
+ * </p>
+ * <p>
+ * For each concrete class that uses {@link JsonService} annotation this
+ * processor generates a subclass of {@link JsonServiceInvoker} that creates the
+ * instance of the class, calls its methods through a switch on the method name
+ * with typed arguments and provides Service Mapping Description rendered at
+ * build time. {@link JsonServiceInvoker#create(Class)} prefers the generated
+ * invoker, so no reflection is used to discover or call the methods.
+ * </p>
+ * <p>
+ * The processor is registered as a service, so it is picked up by the compiler
+ * whenever this library is on the class path. Interfaces, abstract and generic
+ * classes are skipped and handled by reflection at runtime, and so are classes
+ * with overloaded methods, which are reported as warnings.
+ * </p>
+ * 
+ * @author Daniel Stefaniuk
+ * @version 1.2.5
+ * @since 2026/10/16
+ */
+@SupportedAnnotationTypes("org.stefaniuk.json.service.JsonService")
+public class JsonServiceProcessor extends AbstractProcessor {
+
+    private static final String INVOKER = "org.stefaniuk.json.service.JsonServiceInvoker";
+
+    private static final String METHOD = "org.stefaniuk.json.service.JsonServiceMethod";
+
+    private static final String CACHE = "org.stefaniuk.json.service.JsonServiceResultCache";
+
+    private static final String COALESCER = "org.stefaniuk.json.service.JsonServiceCoalescer";
+
+    private static final String REQUEST = "javax.servlet.http.HttpServletRequest";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+        // find classes with annotated type or methods
+        Set<TypeElement> classes = new LinkedHashSet<TypeElement>();
+        for(Element element: roundEnv.getElementsAnnotatedWith(JsonService.class)) {
+            if(element.getKind() == ElementKind.METHOD) {
+                element = element.getEnclosingElement();
+            }
+            if(element.getKind() == ElementKind.CLASS) {
+                classes.add((TypeElement) element);
+            }
+        }
+
+        for(TypeElement type: classes) {
+            if(isSupported(type)) {
+                try {
+                    generate(type);
+                }
+                catch(IOException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "JSON-RPC invoker could not be generated: " + e.getMessage(), type);
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if an invoker can be generated for a given class.
+     * 
+     * @param type Class
+     * @return Returns true or false.
+     */
+    private boolean isSupported(TypeElement type) {
+
+        if(type.getModifiers().contains(Modifier.ABSTRACT) || !type.getTypeParameters().isEmpty()) {
+            return false;
+        }
+        for(Element e = type; e.getKind() == ElementKind.CLASS; e = e.getEnclosingElement()) {
+            TypeElement t = (TypeElement) e;
+            if(t.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if(t.getNestingKind() == NestingKind.TOP_LEVEL) {
+                return true;
+            }
+            if(t.getNestingKind() != NestingKind.MEMBER || !t.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Finds methods exposed to a client. These are the same methods that
+     * {@link JsonServiceInvoker} finds by reflection. Of overloaded methods
+     * the one {@link JsonServiceInvoker#isPreferredOverload(String[], String[])}
+     * prefers is exposed, but no invoker is generated for the class, which
+     * is then handled by reflection at runtime.
+     * 
+     * @param type Class
+     * @return Returns map of methods or null if a method is overloaded.
+     */
+    private Map<String, ExecutableElement> findMethods(TypeElement type) {
+
+        boolean isService = type.getAnnotation(JsonService.class) != null;
+
+        Map<String, ExecutableElement> methods = new LinkedHashMap<String, ExecutableElement>();
+        Set<String> overloaded = new LinkedHashSet<String>();
+        List<? extends Element> members = processingEnv.getElementUtils().getAllMembers(type);
+        for(ExecutableElement method: ElementFilter.methodsIn(members)) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if(!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            if(((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals("java.lang.Object")) {
+                continue;
+            }
+            if(!isService && method.getAnnotation(JsonService.class) == null) {
+                continue;
+            }
+            String name = method.getSimpleName().toString();
+            ExecutableElement overload = methods.get(name);
+            if(overload != null) {
+                overloaded.add(name);
+                if(!JsonServiceInvoker.isPreferredOverload(getTypeNames(method), getTypeNames(overload))) {
+                    continue;
+                }
+            }
+            methods.put(name, method);
+        }
+        for(String name: overloaded) {
+            ExecutableElement method = methods.get(name);
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "JSON-RPC method " + name
+                + " is overloaded, only " + method + " is exposed and the class is handled by reflection", method);
+        }
+
+        return overloaded.isEmpty() ? methods : null;
+    }
+
+    /**
+     * Returns canonical names of erased parameter types of a method.
+     */
+    private String[] getTypeNames(ExecutableElement method) {
+
+        List<? extends VariableElement> parameters = method.getParameters();
+        String[] names = new String[parameters.size()];
+        for(int i = 0; i < names.length; i++) {
+            names[i] = processingEnv.getTypeUtils().erasure(parameters.get(i).asType()).toString();
+        }
+
+        return names;
+    }
+
+    /**
+     * Generates invoker for a given class.
+     * 
+     * @param type Class
+     * @throws IOException
+     */
+    private void generate(TypeElement type) throws IOException {
+
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String generatedName = JsonServiceInvoker.getGeneratedName(binaryName);
+        int i = generatedName.lastIndexOf('.');
+        String packageName = i > 0 ? generatedName.substring(0, i) : null;
+        String simpleName = generatedName.substring(i + 1);
+        String className = type.getQualifiedName().toString();
+
+        DeclaredType declaredType = (DeclaredType) type.asType();
+        Map<String, ExecutableElement> methods = findMethods(type);
+        if(methods == null) {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if(packageName != null) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("/**\n");
+        sb.append(" * JSON-RPC invoker of {@link ").append(className).append("}.\n");
+        sb.append(" * Generated by org.stefaniuk.json.service.processor.JsonServiceProcessor, do not edit.\n");
+        sb.append(" */\n");
+        sb.append("public final class ").append(simpleName).append(" extends ").append(INVOKER).append(" {\n\n");
+
+        // Service Mapping Description
+        sb.append("    private static final String SMD = \"").append(escapeJava(renderServiceMap(type, methods)))
+            .append("\";\n\n");
+
+        // constructors
+        sb.append("    public ").append(simpleName).append("() {\n\n");
+        sb.append("        super(").append(className).append(".class);\n");
+        sb.append("    }\n\n");
+        sb.append("    public ").append(simpleName).append("(Object obj) {\n\n");
+        sb.append("        super(obj);\n");
+        sb.append("    }\n\n");
+
+        // instance
+        if(hasDefaultConstructor(type)) {
+            sb.append("    @Override\n");
+            sb.append("    protected Object createContext() {\n\n");
+            sb.append("        return new ").append(className).append("();\n");
+            sb.append("    }\n\n");
+        }
+
+        // methods
+        sb.append("    @Override\n");
+        sb.append("    protected java.util.Map<String, ").append(METHOD).append("> createMethods(Object context) {\n\n");
+        sb.append("        ").append(className).append(" service = (").append(className).append(") context;\n");
+        sb.append("        java.util.Map<String, ").append(METHOD).append("> methods = new java.util.HashMap<String, ")
+            .append(METHOD).append(">();\n");
+        for(ExecutableElement method: methods.values()) {
+            ExecutableType executable = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(declaredType, method);
+            String name = method.getSimpleName().toString();
+            sb.append("        methods.put(\"").append(name).append("\", new ServiceMethod(service, \"").append(name)
+                .append("\", new java.lang.reflect.Type[] {");
+            List<? extends TypeMirror> params = executable.getParameterTypes();
+            for(int j = 0; j < params.size(); j++) {
+                sb.append(j > 0 ? ", " : " ").append(typeExpression(params.get(j)));
+            }
+            sb.append(params.isEmpty() ? "}, " : " }, ").append(isSequential(type, method)).append("));\n");
+        }
+        sb.append("\n        return methods;\n");
+        sb.append("    }\n\n");
+
+        // caches and coalescers
+        sb.append("    @Override\n");
+        sb.append("    protected java.util.Map<String, ").append(CACHE).append("> createCaches() {\n\n");
+        sb.append("        java.util.Map<String, ").append(CACHE).append("> caches = new java.util.HashMap<String, ")
+            .append(CACHE).append(">();\n");
+        for(ExecutableElement method: methods.values()) {
+            JsonService annotation = getAnnotation(type, method);
+            if(annotation.cacheTtl() > 0 && isShareable(method)) {
+                sb.append("        caches.put(\"").append(method.getSimpleName()).append("\", new ").append(CACHE)
+                    .append('(').append(annotation.cacheTtl()).append("L, ").append(annotation.cacheSize())
+                    .append("));\n");
+            }
+        }
+        sb.append("\n        return caches;\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    protected java.util.Map<String, ").append(COALESCER).append("> createCoalescers() {\n\n");
+        sb.append("        java.util.Map<String, ").append(COALESCER)
+            .append("> coalescers = new java.util.HashMap<String, ").append(COALESCER).append(">();\n");
+        for(ExecutableElement method: methods.values()) {
+            if(getAnnotation(type, method).coalesce() && isShareable(method)) {
+                sb.append("        coalescers.put(\"").append(method.getSimpleName()).append("\", new ")
+                    .append(COALESCER).append("());\n");
+            }
+        }
+        sb.append("\n        return coalescers;\n");
+        sb.append("    }\n\n");
+
+        // Service Mapping Description
+        sb.append("    @Override\n");
+        sb.append("    protected org.codehaus.jackson.node.ObjectNode createServiceMap() throws Exception {\n\n");
+        sb.append("        // the rendered description assumes default settings of the invoker\n");
+        sb.append("        if(getTransport() == ").append(INVOKER).append(".Transport.").append(Transport.POST.name());
+        sb.append("\n            && getContentType() == ").append(INVOKER).append(".ContentType.")
+            .append(ContentType.APPLICATION_JSON.name());
+        sb.append("\n            && getEnvelope() == ").append(INVOKER).append(".Envelope.")
+            .append(Envelope.JSON_RPC_2_0.name());
+        sb.append("\n            && getVersion() == ").append(INVOKER).append(".Version.").append(Version.SMD_2_0.name())
+            .append(") {\n");
+        sb.append("            return readServiceMap(SMD);\n");
+        sb.append("        }\n\n");
+        sb.append("        return super.createServiceMap();\n");
+        sb.append("    }\n\n");
+
+        // dispatcher
+        sb.append("    private static final class ServiceMethod extends ").append(METHOD).append(" {\n\n");
+        sb.append("        private final ").append(className).append(" service;\n\n");
+        sb.append("        private ServiceMethod(").append(className)
+            .append(" service, String name, java.lang.reflect.Type[] parameterTypes,\n");
+        sb.append("                boolean sequential) {\n\n");
+        sb.append("            super(name, parameterTypes, null, sequential);\n");
+        sb.append("            this.service = service;\n");
+        sb.append("        }\n\n");
+        sb.append("        @Override\n");
+        sb.append("        @SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+        sb.append("        public Object invoke(Object[] args) throws org.stefaniuk.json.service.JsonServiceException,\n");
+        sb.append("                java.lang.reflect.InvocationTargetException {\n\n");
+        sb.append("            checkArguments(args);\n\n");
+        sb.append("            try {\n");
+        sb.append("                switch(getName()) {\n");
+        for(ExecutableElement method: methods.values()) {
+            ExecutableType executable = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(declaredType, method);
+            String name = method.getSimpleName().toString();
+            StringBuilder call = new StringBuilder();
+            call.append(method.getModifiers().contains(Modifier.STATIC) ? className : "service");
+            call.append('.').append(name).append('(');
+            List<? extends TypeMirror> params = executable.getParameterTypes();
+            for(int j = 0; j < params.size(); j++) {
+                call.append(j > 0 ? ", " : "").append('(').append(castType(params.get(j))).append(") args[").append(j)
+                    .append(']');
+            }
+            call.append(')');
+            sb.append("                    case \"").append(name).append("\":\n");
+            if(executable.getReturnType().getKind() == TypeKind.VOID) {
+                sb.append("                        ").append(call).append(";\n");
+                sb.append("                        return null;\n");
+            }
+            else {
+                sb.append("                        return ").append(call).append(";\n");
+            }
+        }
+        sb.append("                    default:\n");
+        sb.append("                        throw new org.stefaniuk.json.service.JsonServiceException(\n");
+        sb.append("                            org.stefaniuk.json.service.JsonServiceError.METHOD_NOT_FOUND);\n");
+        sb.append("                }\n");
+        sb.append("            }\n");
+        sb.append("            catch(Throwable t) {\n");
+        sb.append("                if(t instanceof org.stefaniuk.json.service.JsonServiceException) {\n");
+        sb.append("                    throw (org.stefaniuk.json.service.JsonServiceException) t;\n");
+        sb.append("                }\n");
+        sb.append("                throw new java.lang.reflect.InvocationTargetException(t);\n");
+        sb.append("            }\n");
+        sb.append("        }\n\n");
+        sb.append("    }\n\n");
+        sb.append("}\n");
+
+        try {
+            write(processingEnv.getFiler().createSourceFile(generatedName, type), sb);
+        }
+        catch(FilerException e) {
+            // an incremental build may compile the invoker generated by a previous build along with the class
+            if(!sb.toString().equals(read(packageName, simpleName))) {
+                throw new FilerException(e.getMessage() + ", which is out of date; rebuild the module from scratch");
+            }
+        }
+    }
+
+    /**
+     * Returns annotation of a method or, if the method is not annotated, of
+     * its class.
+     * 
+     * @param type Class
+     * @param method Method
+     * @return Returns annotation.
+     */
+    private JsonService getAnnotation(TypeElement type, ExecutableElement method) {
+
+        JsonService annotation = method.getAnnotation(JsonService.class);
+
+        return annotation != null ? annotation : type.getAnnotation(JsonService.class);
+    }
+
+    /**
+     * Reads {@link JsonService#sequential()} of a method or, if the method is
+     * not annotated, of its class.
+     * 
+     * @param type Class
+     * @param method Method
+     * @return Returns true or false.
+     */
+    private boolean isSequential(TypeElement type, ExecutableElement method) {
+
+        JsonService annotation = getAnnotation(type, method);
+
+        return annotation != null && annotation.sequential();
+    }
+
+    /**
+     * Checks if a result of a method may be returned to calls other than the
+     * one that has produced it, by the same rule as {@link JsonServiceInvoker}
+     * applies.
+     * 
+     * @param method Method
+     * @return Returns true or false.
+     */
+    private boolean isShareable(ExecutableElement method) {
+
+        if(method.getReturnType().getKind() == TypeKind.VOID) {
+            return false;
+        }
+        for(VariableElement parameter: method.getParameters()) {
+            if(processingEnv.getTypeUtils().erasure(parameter.asType()).toString().equals(REQUEST)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks if a class has a non-private constructor with no parameters.
+     * 
+     * @param type Class
+     * @return Returns true or false.
+     */
+    private boolean hasDefaultConstructor(TypeElement type) {
+
+        for(ExecutableElement ctor: ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if(ctor.getParameters().isEmpty() && !ctor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Renders Service Mapping Description in the same way
+     * {@link JsonServiceInvoker} does it with its default settings.
+     * 
+     * @param type Class
+     * @param methods Methods exposed to a client.
+     * @return Returns JSON string.
+     */
+    private String renderServiceMap(TypeElement type, Map<String, ExecutableElement> methods) {
+
+        DeclaredType declaredType = (DeclaredType) type.asType();
+
+        StringBuilder sb = new StringBuilder("{");
+        sb.append("\"transport\":\"").append(Transport.POST).append("\",");
+        sb.append("\"contentType\":\"").append(ContentType.APPLICATION_JSON).append("\",");
+        sb.append("\"envelope\":\"").append(Envelope.JSON_RPC_2_0).append("\",");
+        sb.append("\"SMDVersion\":\"").append(Version.SMD_2_0).append("\",");
+        sb.append("\"additionalParameters\":false,");
+        sb.append("\"services\":{");
+        boolean first = true;
+        for(ExecutableElement method: methods.values()) {
+
+            ExecutableType executable = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(declaredType, method);
+
+            JsonService annotation = method.getAnnotation(JsonService.class);
+            if(annotation == null) {
+                annotation = type.getAnnotation(JsonService.class);
+            }
+
+            List<String> properties = new ArrayList<String>();
+            // transport
+            Transport transport = annotation.transport();
+            if(transport != Transport.UNDEFINED && transport != Transport.POST) {
+                properties.add("\"transport\":" + quote(transport.toString()));
+            }
+            // contentType
+            ContentType contentType = annotation.contentType();
+            if(contentType != ContentType.UNDEFINED && contentType != ContentType.APPLICATION_JSON) {
+                properties.add("\"contentType\":" + quote(contentType.toString()));
+            }
+            // envelope
+            Envelope envelope = annotation.envelope();
+            if(envelope != Envelope.UNDEFINED && envelope != Envelope.JSON_RPC_2_0) {
+                properties.add("\"envelope\":" + quote(envelope.toString()));
+            }
+            // target
+            if(!annotation.target().equals("")) {
+                properties.add("\"target\":" + quote(annotation.target()));
+            }
+            // description
+            if(!annotation.description().equals("")) {
+                properties.add("\"description\":" + quote(annotation.description()));
+            }
+            // parameters
+            StringBuilder parameters = new StringBuilder("\"parameters\":[");
+            List<? extends TypeMirror> params = executable.getParameterTypes();
+            for(int i = 0; i < params.size(); i++) {
+                parameters.append(i > 0 ? "," : "").append("{\"type\":").append(quote(dataType(params.get(i))))
+                    .append('}');
+            }
+            properties.add(parameters.append(']').toString());
+            // returns
+            TypeMirror returnType = executable.getReturnType();
+            if(returnType.getKind() != TypeKind.VOID) {
+                properties.add("\"returns\":{\"type\":" + quote(dataType(returnType)) + "}");
+            }
+
+            sb.append(first ? "" : ",").append(quote(method.getSimpleName().toString())).append(":{");
+            for(int i = 0; i < properties.size(); i++) {
+                sb.append(i > 0 ? "," : "").append(properties.get(i));
+            }
+            sb.append('}');
+            first = false;
+        }
+        sb.append("}}");
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns SMD data type name of a given type.
+     * 
+     * @param type Type
+     * @return Returns data type name.
+     */
+    private String dataType(TypeMirror type) {
+
+        if(type.getKind().isPrimitive() || type.getKind() == TypeKind.ARRAY) {
+            return DataType.OBJECT.toString();
+        }
+
+        return DataType.getName(binaryName(type));
+    }
+
+    /**
+     * Returns binary class name of the erasure of a given type.
+     * 
+     * @param type Type
+     * @return Returns class name.
+     */
+    private String binaryName(TypeMirror type) {
+
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        if(erasure.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) ((DeclaredType) erasure).asElement();
+            return processingEnv.getElementUtils().getBinaryName(element).toString();
+        }
+
+        return erasure.toString();
+    }
+
+    /**
+     * Returns Java expression that creates {@link java.lang.reflect.Type} object
+     * for a given type.
+     * 
+     * @param type Type
+     * @return Returns Java expression.
+     */
+    private String typeExpression(TypeMirror type) {
+
+        if(type.getKind() == TypeKind.WILDCARD) {
+            TypeMirror bound = ((WildcardType) type).getExtendsBound();
+            return bound != null ? typeExpression(bound) : "Object.class";
+        }
+        if(type.getKind() == TypeKind.DECLARED) {
+            List<? extends TypeMirror> args = ((DeclaredType) type).getTypeArguments();
+            if(!args.isEmpty()) {
+                StringBuilder sb = new StringBuilder("org.stefaniuk.json.service.JsonServiceUtil.getParameterizedType(");
+                sb.append(castType(type)).append(".class");
+                for(TypeMirror arg: args) {
+                    sb.append(", ").append(typeExpression(arg));
+                }
+                return sb.append(')').toString();
+            }
+        }
+        if(type.getKind() == TypeKind.ARRAY) {
+            // array of a parameterized type, e.g. List<User>[]
+            String component = typeExpression(((ArrayType) type).getComponentType());
+            if(!component.endsWith(".class")) {
+                return "org.stefaniuk.json.service.JsonServiceUtil.getGenericArrayType(" + component + ")";
+            }
+        }
+        if(type.getKind().isPrimitive()) {
+            return type.toString() + ".class";
+        }
+
+        return castType(type) + ".class";
+    }
+
+    /**
+     * Returns source name of the erasure of a given type, with primitive types
+     * boxed, so it can be used in a cast from {@link Object}.
+     * 
+     * @param type Type
+     * @return Returns type name.
+     */
+    private String castType(TypeMirror type) {
+
+        if(type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        if(erasure.getKind() == TypeKind.ARRAY) {
+            TypeMirror component = ((ArrayType) erasure).getComponentType();
+            return (component.getKind().isPrimitive() ? component.toString() : castType(component)) + "[]";
+        }
+        if(erasure.getKind() == TypeKind.DECLARED) {
+            return ((TypeElement) ((DeclaredType) erasure).asElement()).getQualifiedName().toString();
+        }
+
+        return "Object";
+    }
+
+    private static String quote(String value) {
+
+        StringBuilder sb = new StringBuilder("\"");
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch(c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if(c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        sb.append(c);
+                    }
+            }
+        }
+
+        return sb.append('"').toString();
+    }
+
+    private static String escapeJava(String value) {
+
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            }
+            else if(c < 0x20) {
+                sb.append(String.format("\\%03o", (int) c));
+            }
+            else if(c > 0x7e) {
+                // unicode escapes are safe here, as quotes and control characters are escaped above
+                sb.append(String.format("\\u%04x", (int) c));
+            }
+            else {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Reads source file generated by a previous build.
+     * 
+     * @param packageName Package name or null
+     * @param simpleName Simple name of the generated class
+     * @return Returns source code or null if it cannot be read.
+     */
+    private String read(String packageName, String simpleName) {
+
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.SOURCE_OUTPUT,
+                packageName != null ? packageName : "", simpleName + ".java");
+            return file.getCharContent(true).toString();
+        }
+        catch(IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes generated source file.
+     * 
+     * @param file Source file
+     * @param source Source code
+     * @throws IOException
+     */
+    private static void write(JavaFileObject file, CharSequence source) throws IOException {
+
+        Writer writer = file.openWriter();
+        try {
+            writer.append(source);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.eclipse.jetty.testing.HttpTester;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceError;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.test.service.AsyncService;
+
+public class AsyncTest extends AbstractTest {
+
+    public AsyncTest() {
+
+        service = "Async";
+    }
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+
+        super.setUp();
+        JsonServiceRegistry.getInstance().setAsync(true);
+    }
+
+    @After
+    @Override
+    public void tearDown() throws Exception {
+
+        JsonServiceRegistry.getInstance().setAsync(false).setAsyncTimeout(30000);
+        super.tearDown();
+    }
+
+    @Test
+    public void testCompletionStage() throws Exception {
+
+        HttpTester response = tester.callService("/" + service + "/", "later", Arrays.asList(50));
+        assertTrue(response.getContent().contains("\"result\":50"));
+    }
+
+    @Test
+    public void testFuture() throws Exception {
+
+        HttpTester response = tester.callService("/" + service + "/", "future", Arrays.asList("abc"));
+        assertTrue(response.getContent().contains("\"result\":\"abc\""));
+    }
+
+    @Test
+    public void testContainerThreadReleased() throws Exception {
+
+        HttpTester response = tester.callService("/" + service + "/", "released", new ArrayList<Object>());
+        assertTrue(response.getContent().contains("\"result\":true"));
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+
+        HttpTester response = tester.callService("/" + service + "/", "fail", new ArrayList<Object>());
+        assertTrue(response.getContent().contains("\"code\":" + JsonServiceError.INVALID_PARAMS.getCode()));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+
+        JsonServiceRegistry.getInstance().setAsyncTimeout(100);
+
+        HttpTester response = tester.callService("/" + service + "/", "never", new ArrayList<Object>());
+        assertTrue(response.getContent().contains("\"code\":" + JsonServiceError.SERVER_ERROR.getCode()));
+    }
+
+    @Test
+    public void testSynchronousMode() throws Exception {
+
+        JsonServiceRegistry.getInstance().setAsync(false);
+
+        HttpTester response = tester.callService("/" + service + "/", "later", Arrays.asList(50));
+        assertTrue(response.getContent().contains("\"result\":50"));
+        response = tester.callService("/" + service + "/", "released", new ArrayList<Object>());
+        assertTrue(response.getContent().contains("\"result\":false"));
+    }
+
+    @Test
+    public void testSynchronousTimeout() throws Exception {
+
+        JsonServiceRegistry registry = new JsonServiceRegistry().register(AsyncService.class).setAsyncTimeout(100);
+
+        String content = call(registry, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"never\",\"params\":[]}");
+        assertTrue(content.contains("\"code\":" + JsonServiceError.SERVER_ERROR.getCode()));
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+
+        JsonServiceRegistry registry = new JsonServiceRegistry().register(AsyncService.class);
+
+        String content = call(registry, "[{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"later\",\"params\":[20]},"
+            + "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"future\",\"params\":[\"abc\"]}]");
+        assertTrue(content.contains("\"id\":1,\"result\":20"));
+        assertTrue(content.contains("\"id\":2,\"result\":\"abc\""));
+        assertEquals('[', content.charAt(0));
+    }
+
+    private String call(JsonServiceRegistry registry, String request) throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        registry.handle(new ByteArrayInputStream(request.getBytes("UTF-8")), os, AsyncService.class);
+
+        return os.toString("UTF-8");
+    }
+
+}
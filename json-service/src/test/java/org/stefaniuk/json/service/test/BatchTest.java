@@ -0,0 +1,181 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.JsonServiceRegistry.BatchOrder;
+import org.stefaniuk.json.service.test.service.BatchService;
+
+public class BatchTest {
+
+    private ExecutorService executor;
+
+    private JsonServiceRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+
+        executor = Executors.newFixedThreadPool(4);
+        registry = new JsonServiceRegistry().register(BatchService.class).setBatchExecutor(executor)
+            .setBatchParallelism(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testParallelExecution() throws Exception {
+
+        long start = System.currentTimeMillis();
+        String content = call(sleep(1, 300) + "," + sleep(2, 300) + "," + sleep(3, 300) + "," + sleep(4, 300));
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue("elapsed " + elapsed, elapsed < 1000);
+        assertTrue(content.indexOf("\"id\":1,") < content.indexOf("\"id\":2,"));
+        assertTrue(content.indexOf("\"id\":2,") < content.indexOf("\"id\":3,"));
+        assertTrue(content.indexOf("\"id\":3,") < content.indexOf("\"id\":4,"));
+    }
+
+    @Test
+    public void testParallelismCap() throws Exception {
+
+        registry.setBatchParallelism(2);
+
+        long start = System.currentTimeMillis();
+        call(sleep(1, 200) + "," + sleep(2, 200) + "," + sleep(3, 200) + "," + sleep(4, 200));
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue("elapsed " + elapsed, elapsed >= 400);
+    }
+
+    @Test
+    public void testCompletionOrder() throws Exception {
+
+        registry.setBatchOrder(BatchOrder.COMPLETION);
+
+        String content = call(sleep(1, 500) + "," + sleep(2, 10));
+
+        assertTrue(content.indexOf("\"id\":2,") < content.indexOf("\"id\":1,"));
+        assertTrue(content.contains("\"id\":1,\"result\":500"));
+        assertTrue(content.contains("\"id\":2,\"result\":10"));
+    }
+
+    @Test
+    public void testSequentialMethod() throws Exception {
+
+        String content = call(sleep(1, 200) + "," + sleep(2, 200) + ","
+            + "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"running\",\"params\":[]}");
+
+        assertTrue(content.contains("\"id\":3,\"result\":0"));
+    }
+
+    @Test
+    public void testInvalidElement() throws Exception {
+
+        String content = call(sleep(1, 10) + ",1");
+
+        assertTrue(content.contains("\"id\":1,\"result\":10"));
+        assertTrue(content.contains("\"id\":null,\"result\":null,\"error\":{\"code\":-32600"));
+        assertEquals(-1, content.indexOf("\"id\":null", content.indexOf("-32600")));
+    }
+
+    @Test
+    public void testSingleArray() throws Exception {
+
+        String content = call(sleep(1, 10) + "," + sleep(2, 10) + ",1");
+
+        JsonNode node = new ObjectMapper().readTree(content);
+        assertTrue(node.isArray());
+        assertEquals(3, node.size());
+        assertEquals(1, node.get(0).get("id").getIntValue());
+        assertEquals(2, node.get(1).get("id").getIntValue());
+        assertTrue(node.get(2).get("id").isNull());
+    }
+
+    @Test
+    public void testUncaughtException() throws Exception {
+
+        String content = call(sleep(1, 10) + ",{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"sleep\",\"params\":[-1]}");
+
+        JsonNode node = new ObjectMapper().readTree(content);
+        assertEquals(2, node.size());
+        assertEquals(10, node.get(0).get("result").getIntValue());
+        assertEquals(-32600, node.get(1).get("error").get("code").getIntValue());
+    }
+
+    @Test
+    public void testInvalidParams() throws Exception {
+
+        String content = call(sleep(1, 10) + ","
+            + "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"sleep\",\"params\":[\"x\",{}]},"
+            + "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"sleep\",\"params\":[{\"a\":[1,{}]},2]}," + sleep(4, 10));
+
+        JsonNode node = new ObjectMapper().readTree(content);
+        assertTrue(node.isArray());
+        assertEquals(4, node.size());
+        assertEquals(10, node.get(0).get("result").getIntValue());
+        assertEquals(2, node.get(1).get("id").getIntValue());
+        assertEquals(-32602, node.get(1).get("error").get("code").getIntValue());
+        assertEquals(3, node.get(2).get("id").getIntValue());
+        assertEquals(-32602, node.get(2).get("error").get("code").getIntValue());
+        assertEquals(10, node.get(3).get("result").getIntValue());
+    }
+
+    @Test
+    public void testFlushBeforeWaiting() throws Exception {
+
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final String[] flushed = new String[1];
+        OutputStream stream = new FilterOutputStream(os) {
+
+            @Override
+            public void flush() throws IOException {
+
+                super.flush();
+                if(flushed[0] == null && os.size() > 0) {
+                    flushed[0] = os.toString("UTF-8");
+                }
+            }
+
+        };
+
+        String batch = "[" + sleep(1, 10) + "," + sleep(2, 300) + "]";
+        registry.handle(new ByteArrayInputStream(batch.getBytes("UTF-8")), stream, BatchService.class);
+
+        // the first response is flushed while the slow call is still running
+        assertTrue(flushed[0].contains("\"id\":1,"));
+        assertFalse(flushed[0].contains("\"id\":2,"));
+    }
+
+    private String sleep(int id, int millis) {
+
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"sleep\",\"params\":[" + millis + "]}";
+    }
+
+    private String call(String batch) throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        registry.handle(new ByteArrayInputStream(("[" + batch + "]").getBytes("UTF-8")), os, BatchService.class);
+
+        return os.toString("UTF-8");
+    }
+
+}
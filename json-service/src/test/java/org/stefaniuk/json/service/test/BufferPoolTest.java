@@ -0,0 +1,70 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceBufferPool;
+
+public class BufferPoolTest {
+
+    @Test
+    public void testReuse() throws Exception {
+
+        byte[] buffer = JsonServiceBufferPool.acquire();
+        assertEquals(JsonServiceBufferPool.BUFFER_SIZE, buffer.length);
+        JsonServiceBufferPool.release(buffer);
+
+        // other buffers may have been pooled before
+        boolean reused = false;
+        for(int i = 0; i < 16 && !reused; i++) {
+            reused = JsonServiceBufferPool.acquire() == buffer;
+        }
+        assertTrue(reused);
+    }
+
+    @Test
+    public void testLargeBufferNotPooled() throws Exception {
+
+        byte[] large = new byte[JsonServiceBufferPool.BUFFER_SIZE * 4];
+        JsonServiceBufferPool.release(large);
+
+        assertNotSame(large, JsonServiceBufferPool.acquire());
+    }
+
+    @Test
+    public void testOutput() throws Exception {
+
+        byte[] content = new byte[JsonServiceBufferPool.BUFFER_SIZE * 3];
+        for(int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+
+        JsonServiceBufferPool.Output os = new JsonServiceBufferPool.Output();
+        os.write(content, 0, 100);
+        os.write(content, 100, content.length - 100);
+        assertArrayEquals(content, os.toByteArray());
+        os.recycle();
+        assertEquals(0, os.size());
+
+        os.write('a');
+        assertArrayEquals(new byte[] { 'a' }, os.toByteArray());
+    }
+
+    @Test
+    public void testRecycledOutputDoesNotShareBuffer() throws Exception {
+
+        JsonServiceBufferPool.Output first = new JsonServiceBufferPool.Output();
+        first.write(new byte[] { 1, 2, 3 });
+        first.recycle();
+        JsonServiceBufferPool.Output second = new JsonServiceBufferPool.Output();
+        second.write(new byte[] { 4, 5 });
+        first.write(new byte[] { 6 });
+
+        assertArrayEquals(new byte[] { 4, 5 }, second.toByteArray());
+        assertArrayEquals(new byte[] { 6 }, first.toByteArray());
+    }
+
+}
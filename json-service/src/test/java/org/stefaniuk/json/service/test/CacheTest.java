@@ -0,0 +1,173 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.smile.SmileFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceInvoker;
+import org.stefaniuk.json.service.JsonServiceInvoker.ContentType;
+import org.stefaniuk.json.service.JsonServiceInvoker.Transport;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.JsonServiceResultCache;
+import org.stefaniuk.json.service.test.service.CacheService;
+
+public class CacheTest {
+
+    private JsonServiceRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+
+        CacheService.CALLS.set(0);
+        CacheService.NAMES.clear();
+        registry = new JsonServiceRegistry().register(CacheService.class);
+    }
+
+    @Test
+    public void testHitAndMiss() throws Exception {
+
+        assertTrue(call("square", "[3]").contains("\"result\":9"));
+        assertTrue(call("square", "[3]").contains("\"result\":9"));
+        assertTrue(call("square", "[4]").contains("\"result\":16"));
+
+        JsonServiceResultCache cache = registry.getCache(CacheService.class, "square");
+        assertEquals(2, CacheService.CALLS.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+
+        call("square", "[1]");
+        call("square", "[2]");
+        call("square", "[1]");
+        // the least recently used result of 2 is evicted
+        call("square", "[3]");
+        call("square", "[1]");
+        call("square", "[2]");
+
+        assertEquals(4, CacheService.CALLS.get());
+        assertEquals(2, registry.getCache(CacheService.class, "square").size());
+    }
+
+    @Test
+    public void testCanonicalParams() throws Exception {
+
+        call("count", "[{\"a\":1,\"b\":2}]");
+        assertTrue(call("count", "[{\"b\":2,\"a\":1}]").contains("\"result\":2"));
+
+        assertEquals(1, CacheService.CALLS.get());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+
+        call("expire", "[1]");
+        Thread.sleep(5);
+        call("expire", "[1]");
+
+        assertEquals(2, CacheService.CALLS.get());
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+
+        call("square", "[5]");
+        call("square", "[6]");
+        registry.getCache(CacheService.class, "square").remove(5);
+        call("square", "[5]");
+        call("square", "[6]");
+        assertEquals(3, CacheService.CALLS.get());
+
+        registry.invalidateCache(CacheService.class);
+        call("square", "[6]");
+        assertEquals(4, CacheService.CALLS.get());
+    }
+
+    @Test
+    public void testSerialisedOnce() throws Exception {
+
+        CacheService.NAMES.add("a");
+        call("names", "[]");
+        // a hit copies the text serialised for the first response
+        CacheService.NAMES.add("b");
+        String content = call("names", "[]");
+
+        assertTrue(content, content.contains("\"result\":[\"a\"]"));
+        assertEquals(1, CacheService.CALLS.get());
+    }
+
+    @Test
+    public void testBatchOfHits() throws Exception {
+
+        CacheService.NAMES.add("a");
+        String batch = "[" + request(1, "names", "[]") + "," + request(2, "names", "[]") + ","
+            + request(3, "square", "[3]") + "," + request(4, "names", "[]") + "]";
+
+        for(ContentType type: new ContentType[] { ContentType.APPLICATION_JSON, ContentType.APPLICATION_SMILE }) {
+            ObjectMapper mapper = type == ContentType.APPLICATION_SMILE ? new ObjectMapper(new SmileFactory())
+                : new ObjectMapper();
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            registry.handle(new ByteArrayInputStream(batch.getBytes("UTF-8")), os, CacheService.class,
+                ContentType.APPLICATION_JSON, type);
+
+            // the copied results leave the array well-formed
+            JsonNode node = mapper.readValue(os.toByteArray(), JsonNode.class);
+            assertEquals(4, node.size());
+            assertEquals("a", node.get(0).get("result").get(0).getTextValue());
+            assertEquals("a", node.get(1).get("result").get(0).getTextValue());
+            assertEquals(9, node.get(2).get("result").getIntValue());
+            assertEquals(4, node.get(3).get("id").getIntValue());
+            assertEquals("a", node.get(3).get("result").get(0).getTextValue());
+            assertTrue(node.get(3).get("error").isNull());
+        }
+        assertEquals(2, CacheService.CALLS.get());
+    }
+
+    @Test
+    public void testUncached() throws Exception {
+
+        call("uncached", "[1]");
+        call("uncached", "[1]");
+
+        assertEquals(2, CacheService.CALLS.get());
+        assertNull(registry.getCache(CacheService.class, "uncached"));
+    }
+
+    @Test
+    public void testKeptWhenDescriptorIsRebuilt() throws Exception {
+
+        JsonServiceInvoker invoker = JsonServiceInvoker.create(CacheService.class);
+        JsonServiceResultCache cache = invoker.getCache("square");
+
+        // a new setting builds the descriptor again
+        invoker.setTransport(Transport.POST);
+
+        assertSame(cache, invoker.getCache("square"));
+    }
+
+    private String call(String method, String params) throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        registry.handle(new ByteArrayInputStream(request(1, method, params).getBytes("UTF-8")), os,
+            CacheService.class);
+
+        return os.toString("UTF-8");
+    }
+
+    private static String request(int id, String method, String params) {
+
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"" + method + "\",\"params\":" + params + "}";
+    }
+
+}
@@ -7,6 +7,7 @@ import java.util.List;
 
 import org.eclipse.jetty.testing.HttpTester;
 import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceError;
 
 public class CalculatorTest extends AbstractTest {
 
@@ -59,4 +60,57 @@ public class CalculatorTest extends AbstractTest {
         assertTrue(response.getContent().contains("\"result\":333"));
     }
 
+    @Test
+    public void testMissingParameter() throws Exception {
+
+        List<Object> parameters = new ArrayList<Object>();
+        parameters.add(2);
+
+        HttpTester response = tester.callService("/" + service + "/", "add", parameters);
+        assertTrue(response.getContent().contains("\"code\":" + JsonServiceError.INVALID_PARAMS.getCode()));
+    }
+
+    @Test
+    public void testParamsBeforeMethod() throws Exception {
+
+        String jsonRpc = "{" +
+                "\"params\":[2,5,{\"ignored\":[1,2]}]," +
+                "\"extra\":{\"method\":\"subtract\"}," +
+                "\"method\":\"add\"," +
+                "\"id\":3," +
+                "\"jsonrpc\":\"2.0\"" +
+                "}";
+
+        HttpTester response = tester.callService("/" + service + "/", jsonRpc);
+        assertTrue(response.getContent().contains("\"id\":3,\"result\":7"));
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+
+        String jsonRpc = "[" +
+                "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"add\",\"params\":[2,5]}," +
+                "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"unknown\",\"params\":[[1],{\"a\":2}]}," +
+                "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"multiple\",\"params\":[3,4]}" +
+                "]";
+
+        HttpTester response = tester.callService("/" + service + "/", jsonRpc);
+        String content = response.getContent();
+        assertTrue(content.contains("\"id\":1,\"result\":7"));
+        assertTrue(content.contains("\"id\":2,\"result\":null,\"error\":{\"code\":"
+            + JsonServiceError.METHOD_NOT_FOUND.getCode()));
+        assertTrue(content.contains("\"id\":3,\"result\":12"));
+        assertTrue(content.startsWith("[{") && content.endsWith("}]"));
+        assertTrue(content.contains("},{"));
+    }
+
+    @Test
+    public void testEmptyBatch() throws Exception {
+
+        HttpTester response = tester.callService("/" + service + "/", "[]");
+        String content = response.getContent();
+        assertTrue(content.startsWith("{"));
+        assertTrue(content.contains("\"code\":" + JsonServiceError.INVALID_REQUEST.getCode()));
+    }
+
 }
@@ -0,0 +1,153 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceCoalescer;
+import org.stefaniuk.json.service.JsonServiceInvoker;
+import org.stefaniuk.json.service.JsonServiceInvoker.Transport;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.test.service.CoalesceService;
+
+public class CoalesceTest {
+
+    private static final int WAITERS = 8;
+
+    private JsonServiceRegistry registry;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+
+        CoalesceService.CALLS.set(0);
+        CoalesceService.started = new CountDownLatch(1);
+        CoalesceService.gate = new CountDownLatch(1);
+        registry = new JsonServiceRegistry().register(CoalesceService.class);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        CoalesceService.gate.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testIdenticalCallsCoalesced() throws Exception {
+
+        List<String> responses = burst("select", 7);
+
+        assertEquals(1, CoalesceService.CALLS.get());
+        for(int i = 0; i < responses.size(); i++) {
+            assertTrue(responses.get(i), responses.get(i).contains("\"result\":[7,14,21]"));
+            assertTrue(responses.get(i), responses.get(i).contains("\"id\":" + i));
+        }
+
+        JsonServiceCoalescer coalescer = registry.getCoalescer(CoalesceService.class, "select");
+        assertEquals(WAITERS + 1, coalescer.getCallCount());
+        assertEquals(WAITERS, coalescer.getCoalescedCount());
+        assertEquals(WAITERS, coalescer.getMaxWaiterCount());
+        assertEquals(0, coalescer.getWaiterCount());
+
+        // the flight has landed, so the next call runs the method again
+        CoalesceService.started = new CountDownLatch(1);
+        assertTrue(call("select", 7, 0).contains("\"result\":[7,14,21]"));
+        assertEquals(2, CoalesceService.CALLS.get());
+    }
+
+    @Test
+    public void testErrorShared() throws Exception {
+
+        for(String response: burst("fail", 1)) {
+            assertTrue(response, response.contains("\"code\":-32602"));
+        }
+        assertEquals(1, CoalesceService.CALLS.get());
+    }
+
+    @Test
+    public void testDifferentParamsNotCoalesced() throws Exception {
+
+        CoalesceService.gate.countDown();
+        call("select", 1, 0);
+        call("select", 2, 0);
+
+        assertEquals(2, CoalesceService.CALLS.get());
+        assertEquals(0, registry.getCoalescer(CoalesceService.class, "select").getCoalescedCount());
+    }
+
+    /**
+     * Starts a call and a number of identical ones while it is blocked.
+     */
+    @Test
+    public void testKeptWhenDescriptorIsRebuilt() throws Exception {
+
+        JsonServiceInvoker invoker = JsonServiceInvoker.create(CoalesceService.class);
+        JsonServiceCoalescer coalescer = invoker.getCoalescer("select");
+
+        // a new setting builds the descriptor again, calls running meanwhile are still joined
+        invoker.setTransport(Transport.POST);
+
+        assertSame(coalescer, invoker.getCoalescer("select"));
+    }
+
+    private List<String> burst(final String method, final int value) throws Exception {
+
+        final JsonServiceCoalescer coalescer = registry.getCoalescer(CoalesceService.class, method);
+        List<Future<String>> futures = new ArrayList<Future<String>>();
+        for(int i = 0; i <= WAITERS; i++) {
+            final int id = i;
+            futures.add(executor.submit(new Callable<String>() {
+
+                @Override
+                public String call() throws Exception {
+
+                    return CoalesceTest.this.call(method, value, id);
+                }
+
+            }));
+            if(i == 0) {
+                assertTrue(CoalesceService.started.await(5, TimeUnit.SECONDS));
+            }
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while(coalescer.getWaiterCount() < WAITERS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        CoalesceService.gate.countDown();
+
+        List<String> responses = new ArrayList<String>();
+        for(Future<String> future: futures) {
+            responses.add(future.get(5, TimeUnit.SECONDS));
+        }
+
+        return responses;
+    }
+
+    private String call(String method, int value, int id) throws Exception {
+
+        String request =
+            "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"" + method + "\",\"params\":[" + value + "]}";
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        registry.handle(new ByteArrayInputStream(request.getBytes("UTF-8")), os, CoalesceService.class);
+
+        return os.toString("UTF-8");
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceCompression;
+
+public class CompressionTest {
+
+    @Test
+    public void testNegotiation() throws Exception {
+
+        assertNull(JsonServiceCompression.negotiate(null));
+        assertNull(JsonServiceCompression.negotiate("identity"));
+        assertNull(JsonServiceCompression.negotiate("gzip;q=0"));
+        assertEquals("gzip", JsonServiceCompression.negotiate("gzip, deflate"));
+        assertEquals("gzip", JsonServiceCompression.negotiate("deflate, gzip"));
+        assertEquals("deflate", JsonServiceCompression.negotiate("gzip;q=0.5, deflate"));
+        assertEquals("gzip", JsonServiceCompression.negotiate("*"));
+        assertEquals("deflate", JsonServiceCompression.negotiate("gzip;q=0, *"));
+    }
+
+    @Test
+    public void testGzipAboveThreshold() throws Exception {
+
+        byte[] content = content(4096);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        JsonServiceCompression.Output output = new JsonServiceCompression.Output(os, "gzip", 1024);
+        output.write(content, 0, 100);
+        output.flush();
+        assertFalse(output.isCompressed());
+        output.write(content, 100, content.length - 100);
+        output.close();
+
+        assertTrue(output.isCompressed());
+        assertArrayEquals(content, read(new GZIPInputStream(new ByteArrayInputStream(os.toByteArray()))));
+    }
+
+    @Test
+    public void testDeflate() throws Exception {
+
+        byte[] content = content(4096);
+        byte[] compressed = JsonServiceCompression.encode(content, "deflate");
+
+        assertTrue(compressed.length < content.length);
+        assertArrayEquals(content, read(new InflaterInputStream(new ByteArrayInputStream(compressed))));
+    }
+
+    @Test
+    public void testBelowThreshold() throws Exception {
+
+        byte[] content = content(512);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        JsonServiceCompression.Output output = new JsonServiceCompression.Output(os, "gzip", 1024);
+        output.write(content);
+        output.close();
+
+        assertFalse(output.isCompressed());
+        assertArrayEquals(content, os.toByteArray());
+    }
+
+    @Test
+    public void testDecode() throws Exception {
+
+        byte[] content = content(2048);
+
+        assertArrayEquals(content, read(JsonServiceCompression.decode(
+            new ByteArrayInputStream(JsonServiceCompression.encode(content, "gzip")), "gzip")));
+        assertArrayEquals(content, read(JsonServiceCompression.decode(
+            new ByteArrayInputStream(JsonServiceCompression.encode(content, "deflate")), "deflate")));
+        assertArrayEquals(content, read(JsonServiceCompression.decode(new ByteArrayInputStream(content), null)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedEncoding() throws Exception {
+
+        JsonServiceCompression.decode(new ByteArrayInputStream(new byte[0]), "br");
+    }
+
+    private static byte[] content(int size) {
+
+        StringBuilder sb = new StringBuilder(size);
+        while(sb.length() < size) {
+            sb.append("{\"jsonrpc\":\"2.0\",\"id\":").append(sb.length()).append(",\"result\":\"abc\"}");
+        }
+
+        return sb.substring(0, size).getBytes();
+    }
+
+    private static byte[] read(InputStream is) throws IOException {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while((n = is.read(buffer)) >= 0) {
+            os.write(buffer, 0, n);
+        }
+
+        return os.toByteArray();
+    }
+
+}
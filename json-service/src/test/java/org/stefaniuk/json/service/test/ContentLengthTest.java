@@ -0,0 +1,133 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.JsonServiceResponseBody;
+import org.stefaniuk.json.service.JsonServiceUtil;
+import org.stefaniuk.json.service.test.service.BatchService;
+import org.stefaniuk.json.service.test.service.EchoService;
+import org.stefaniuk.json.service.test.util.ServletMock;
+
+public class ContentLengthTest {
+
+    private final JsonServiceRegistry registry = new JsonServiceRegistry().register(EchoService.class);
+
+    @Test
+    public void testSmallResponse() throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ServletMock mock = post(echo("abc"), os);
+
+        OutputStream body = registry.handle(mock.getRequest(), mock.getResponse(), EchoService.class);
+
+        assertTrue(os.toString("UTF-8").contains("Echo service says: abc"));
+        assertEquals(os.size(), mock.getContentLength());
+        assertEquals(os.size(), JsonServiceUtil.getContentLength(body));
+        assertFalse(((JsonServiceResponseBody) body).isChunked());
+    }
+
+    @Test
+    public void testMultiByteCharacters() throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ServletMock mock = post(echo("za\u017c\u00f3\u0142\u0107 g\u0119\u015bl\u0105"), os);
+
+        registry.handle(mock.getRequest(), mock.getResponse(), EchoService.class);
+
+        // bytes, not characters
+        assertEquals(os.size(), mock.getContentLength());
+        assertTrue(os.toString("UTF-8").length() < os.size());
+    }
+
+    @Test
+    public void testLargeResponseIsStreamed() throws Exception {
+
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < 2000; i++) {
+            text.append("abcdefghij");
+        }
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ServletMock mock = post(echo(text.toString()), os);
+
+        OutputStream body = registry.handle(mock.getRequest(), mock.getResponse(), EchoService.class);
+
+        assertTrue(os.toString("UTF-8").contains(text));
+        assertEquals(-1, mock.getContentLength());
+        assertEquals(-1, JsonServiceUtil.getContentLength(body));
+        assertEquals(os.size(), ((JsonServiceResponseBody) body).getCount());
+        assertTrue(((JsonServiceResponseBody) body).isChunked());
+    }
+
+    @Test
+    public void testBatchIsStreamedWhileWaiting() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            JsonServiceRegistry batchRegistry = new JsonServiceRegistry().register(BatchService.class)
+                .setBatchExecutor(executor);
+            final String[] sent = new String[1];
+            ByteArrayOutputStream os = new ByteArrayOutputStream() {
+
+                @Override
+                public synchronized void write(byte[] b, int off, int len) {
+
+                    super.write(b, off, len);
+                    if(sent[0] == null) {
+                        sent[0] = new String(toByteArray());
+                    }
+                }
+
+            };
+            ServletMock mock = post("[" + sleep(1, 0) + "," + sleep(2, 300) + "]", os);
+
+            OutputStream body = batchRegistry.handle(mock.getRequest(), mock.getResponse(), BatchService.class);
+
+            // the batch flush sends the first response before the second call completes
+            assertTrue(sent[0].contains("\"id\":1,"));
+            assertFalse(sent[0].contains("\"id\":2,"));
+            assertTrue(os.toString("UTF-8").contains("\"id\":2,"));
+            assertEquals(-1, mock.getContentLength());
+            assertTrue(((JsonServiceResponseBody) body).isChunked());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testServiceMap() throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ServletMock mock = new ServletMock("GET", ServletMock.input(new byte[0]), ServletMock.output(os));
+
+        registry.handle(mock.getRequest(), mock.getResponse(), EchoService.class);
+
+        assertEquals(os.size(), mock.getContentLength());
+        assertEquals(registry.getDescriptor(EchoService.class).getServiceMapBytes(false).length, os.size());
+    }
+
+    private static String echo(String text) {
+
+        return "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"" + text + "\"]}";
+    }
+
+    private static String sleep(int id, int millis) {
+
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"sleep\",\"params\":[" + millis + "]}";
+    }
+
+    private static ServletMock post(String request, ByteArrayOutputStream os) throws Exception {
+
+        return new ServletMock("POST", ServletMock.input(request.getBytes("UTF-8")), ServletMock.output(os));
+    }
+
+}
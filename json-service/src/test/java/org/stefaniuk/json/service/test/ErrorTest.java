@@ -2,9 +2,15 @@ package org.stefaniuk.json.service.test;
 
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+
 import org.eclipse.jetty.testing.HttpTester;
 import org.junit.Test;
 import org.stefaniuk.json.service.JsonServiceError;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.test.service.StartupService;
 
 public class ErrorTest extends AbstractTest {
 
@@ -28,4 +34,54 @@ public class ErrorTest extends AbstractTest {
         assertTrue(response.getContent().contains(JsonServiceError.INVALID_REQUEST.getMessage()));
     }
 
+    @Test
+    public void testServiceException() throws Exception {
+
+        HttpTester response = tester.callService("/" + service + "/", "fail", new ArrayList<Object>());
+        String content = response.getContent();
+        assertTrue(content.contains("\"code\":" + JsonServiceError.SERVER_ERROR.getCode()));
+        assertTrue(content.contains("\"result\":null"));
+    }
+
+    @Test
+    public void testMethodNotFound() throws Exception {
+
+        String jsonRpc = "{" +
+                "\"jsonrpc\":\"2.0\"," +
+                "\"method\":\"unknown\"," +
+                "\"params\":[[1],{\"param1\":2}]," +
+                "\"id\":4" +
+                "}";
+
+        HttpTester response = tester.callService("/" + service + "/", jsonRpc);
+        String content = response.getContent();
+        assertTrue(content.contains("\"id\":4"));
+        assertTrue(content.contains("\"code\":" + JsonServiceError.METHOD_NOT_FOUND.getCode()));
+    }
+
+    @Test
+    public void testFailedStartIsRetried() throws Exception {
+
+        JsonServiceRegistry registry = new JsonServiceRegistry().register(StartupService.class);
+        String jsonRpc = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"status\",\"params\":[]}";
+
+        StartupService.failing = true;
+        try {
+            assertTrue(call(registry, jsonRpc).contains(JsonServiceError.INVALID_REQUEST.getMessage()));
+        }
+        finally {
+            StartupService.failing = false;
+        }
+        // the service is created again rather than left without methods
+        assertTrue(call(registry, jsonRpc).contains("\"result\":\"ready\""));
+    }
+
+    private static String call(JsonServiceRegistry registry, String jsonRpc) throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        registry.handle(new ByteArrayInputStream(jsonRpc.getBytes("UTF-8")), os, StartupService.class);
+
+        return os.toString("UTF-8");
+    }
+
 }
@@ -0,0 +1,149 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.test.service.BatchService;
+import org.stefaniuk.json.service.test.service.NotificationService;
+import org.stefaniuk.json.service.test.util.ServletMock;
+
+public class ExecutionTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+
+        executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+
+                return new Thread(r, "call-executor");
+            }
+
+        });
+        NotificationService.MESSAGES.clear();
+        NotificationService.THREADS.clear();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCallExecutor() throws Exception {
+
+        JsonServiceRegistry registry =
+            new JsonServiceRegistry().register(NotificationService.class).setCallExecutor(executor);
+        String request = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"record\",\"params\":[\"a\"]}";
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ServletMock mock =
+            new ServletMock("POST", ServletMock.input(request.getBytes("UTF-8")), ServletMock.output(os));
+
+        registry.handle(mock.getRequest(), mock.getResponse(), NotificationService.class);
+
+        assertTrue(mock.isAsyncStarted());
+        assertTrue(mock.awaitCompleted(5000));
+        assertTrue(os.toString("UTF-8").contains("\"id\":1,\"result\":1"));
+        assertEquals("call-executor", NotificationService.THREADS.poll());
+    }
+
+    @Test
+    public void testBatchOnCallExecutor() throws Exception {
+
+        JsonServiceRegistry registry =
+            new JsonServiceRegistry().register(BatchService.class).setCallExecutor(executor).setBatchParallelism(4);
+
+        long start = System.currentTimeMillis();
+        JsonNode node = call(registry, sleep(1, 200) + "," + sleep(2, 200) + "," + sleep(3, 200));
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(3, node.size());
+        assertTrue("elapsed " + elapsed, elapsed < 500);
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+
+        JsonServiceRegistry registry =
+            new JsonServiceRegistry().register(BatchService.class).setCallExecutor(executor).setBatchParallelism(8)
+                .setConcurrencyLimit(BatchService.class, 2);
+
+        JsonNode node = call(registry, sleep(1, 50) + "," + sleep(2, 50) + "," + sleep(3, 50) + "," + sleep(4, 50)
+            + "," + sleep(5, 50) + "," + sleep(6, 50) + ",{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"peak\",\"params\":[]}");
+
+        assertEquals(7, node.size());
+        assertEquals(2, node.get(6).get("result").getIntValue());
+    }
+
+    @Test
+    public void testConcurrencyLimitAcrossRequests() throws Exception {
+
+        final JsonServiceRegistry registry =
+            new JsonServiceRegistry().register(BatchService.class).setConcurrencyLimit(BatchService.class, 1);
+
+        ExecutorService clients = Executors.newFixedThreadPool(3);
+        for(int i = 0; i < 3; i++) {
+            clients.execute(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        call(registry, sleep(1, 50));
+                    }
+                    catch(Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+
+            });
+        }
+        clients.shutdown();
+        assertTrue(clients.awaitTermination(5, TimeUnit.SECONDS));
+
+        JsonNode node = call(registry, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"peak\",\"params\":[]}");
+        assertEquals(1, node.get(0).get("result").getIntValue());
+    }
+
+    @Test
+    public void testVirtualThreads() throws Exception {
+
+        JsonServiceRegistry registry =
+            new JsonServiceRegistry().register(BatchService.class).setVirtualThreads(true);
+
+        // falls back to the request thread if virtual threads are not supported
+        JsonNode node = call(registry, sleep(1, 10) + "," + sleep(2, 10));
+        assertEquals(2, node.size());
+    }
+
+    private String sleep(int id, int millis) {
+
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"sleep\",\"params\":[" + millis + "]}";
+    }
+
+    private JsonNode call(JsonServiceRegistry registry, String batch) throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        registry.handle(new ByteArrayInputStream(("[" + batch + "]").getBytes("UTF-8")), os, BatchService.class);
+
+        return new ObjectMapper().readTree(os.toString("UTF-8"));
+    }
+
+}
@@ -0,0 +1,133 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.codehaus.jackson.JsonNode;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceInvoker;
+import org.stefaniuk.json.service.processor.JsonServiceProcessor;
+import org.stefaniuk.json.service.test.service.CacheService;
+import org.stefaniuk.json.service.test.service.CalculatorService;
+import org.stefaniuk.json.service.test.service.CoalesceService;
+import org.stefaniuk.json.service.test.service.EchoService;
+import org.stefaniuk.json.service.test.service.ErrorService;
+import org.stefaniuk.json.service.test.service.ListService;
+import org.stefaniuk.json.service.test.service.StoreService;
+import org.stefaniuk.json.service.test.service.UserService;
+
+public class GeneratedInvokerTest {
+
+    private static final Class<?>[] SERVICES = { CalculatorService.class, EchoService.class, ErrorService.class,
+        ListService.class, StoreService.class, UserService.class };
+
+    @Test
+    public void testGeneratedInvokerIsPreferred() throws Exception {
+
+        for(Class<?> clazz: SERVICES) {
+            JsonServiceInvoker invoker = JsonServiceInvoker.create(clazz);
+            assertNotSame(JsonServiceInvoker.class, invoker.getClass());
+            assertEquals(JsonServiceInvoker.getGeneratedName(clazz.getName()), invoker.getClass().getName());
+        }
+    }
+
+    @Test
+    public void testGeneratedServiceMap() throws Exception {
+
+        for(Class<?> clazz: SERVICES) {
+            assertEquals(new JsonServiceInvoker(clazz).getServiceMap(), JsonServiceInvoker.create(clazz).getServiceMap());
+        }
+    }
+
+    @Test
+    public void testGeneratedCachesAndCoalescers() throws Exception {
+
+        for(Class<?> clazz: new Class<?>[] { CacheService.class, CoalesceService.class }) {
+            JsonServiceInvoker reflective = new JsonServiceInvoker(clazz);
+            JsonServiceInvoker generated = JsonServiceInvoker.create(clazz);
+            assertNotSame(JsonServiceInvoker.class, generated.getClass());
+            Iterator<String> names = reflective.getServiceMap().get("services").getFieldNames();
+            while(names.hasNext()) {
+                String name = names.next();
+                assertEquals(name, reflective.getCache(name) != null, generated.getCache(name) != null);
+                assertEquals(name, reflective.getCoalescer(name) != null, generated.getCoalescer(name) != null);
+            }
+        }
+    }
+
+    @Test
+    public void testOverloadedMethodIsHandledByReflection() throws Exception {
+
+        final String source = "@org.stefaniuk.json.service.JsonService public class OverloadedService {"
+            + " public int add(int a, int b, int c) { return a + b + c; }"
+            + " public int add(int a, int b) { return a + b; }"
+            + " public String concat(String a) { return a; }"
+            + " public String concat(Integer a) { return a.toString(); } }";
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///OverloadedService.java"),
+            JavaFileObject.Kind.SOURCE) {
+
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+
+                return source;
+            }
+
+        };
+        File dir = Files.createTempDirectory("json-service").toFile();
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, Arrays.asList("-d",
+            dir.getPath(), "-s", dir.getPath(), "-classpath", System.getProperty("java.class.path")), null,
+            Collections.singletonList(file));
+        task.setProcessors(Collections.singletonList(new JsonServiceProcessor()));
+
+        // the class compiles with a warning
+        assertTrue(task.call());
+        int warnings = 0;
+        for(Diagnostic<? extends JavaFileObject> diagnostic: diagnostics.getDiagnostics()) {
+            if(diagnostic.getKind() == Diagnostic.Kind.WARNING && diagnostic.getMessage(null).contains("overloaded")) {
+                warnings++;
+            }
+        }
+        assertEquals(2, warnings);
+
+        // no invoker is generated and reflection exposes the preferred overloads
+        URLClassLoader loader = new URLClassLoader(new URL[] { dir.toURI().toURL() }, getClass().getClassLoader());
+        Class<?> clazz = loader.loadClass("OverloadedService");
+        JsonServiceInvoker invoker = JsonServiceInvoker.create(clazz);
+        assertSame(JsonServiceInvoker.class, invoker.getClass());
+        JsonNode services = invoker.getServiceMap().get("services");
+        assertEquals(2, services.get("add").get("parameters").size());
+        assertEquals("integer", services.get("concat").get("parameters").get(0).get("type").getTextValue());
+        loader.close();
+    }
+
+    @Test
+    public void testPreferredOverload() throws Exception {
+
+        assertTrue(JsonServiceInvoker.isPreferredOverload(new String[] { "int" }, new String[] { "int", "int" }));
+        assertTrue(JsonServiceInvoker.isPreferredOverload(new String[] { "double" }, new String[] { "int" }));
+        assertFalse(JsonServiceInvoker.isPreferredOverload(new String[] { "int" }, new String[] { "int" }));
+    }
+
+}
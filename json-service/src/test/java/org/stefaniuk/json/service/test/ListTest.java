@@ -1,8 +1,12 @@
 package org.stefaniuk.json.service.test;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 
 import org.eclipse.jetty.testing.HttpTester;
 import org.junit.Test;
@@ -30,4 +34,64 @@ public class ListTest extends AbstractTest {
         assertTrue(content.contains("******"));
     }
 
+    @Test
+    public void testEchoSetMethod() throws Exception {
+
+        HashSet<User> users = new HashSet<User>();
+        users.add(new User("daniel", "53cr3t", "Daniel Stefaniuk", "daniel.stefaniuk@gmail.com"));
+
+        assertEcho("echoSet", users);
+    }
+
+    @Test
+    public void testEchoMapMethod() throws Exception {
+
+        LinkedHashMap<String, User> users = new LinkedHashMap<String, User>();
+        users.put("daniel", new User("daniel", "53cr3t", "Daniel Stefaniuk", "daniel.stefaniuk@gmail.com"));
+
+        assertEcho("echoMap", users);
+    }
+
+    @Test
+    public void testEchoArrayMethod() throws Exception {
+
+        User[] users = { new User("daniel", "53cr3t", "Daniel Stefaniuk", "daniel.stefaniuk@gmail.com") };
+
+        assertEcho("echoArray", users);
+    }
+
+    @Test
+    public void testEchoNestedMethod() throws Exception {
+
+        ArrayList<User> users = new ArrayList<User>();
+        users.add(new User("daniel", "53cr3t", "Daniel Stefaniuk", "daniel.stefaniuk@gmail.com"));
+        LinkedHashMap<String, List<User>> groups = new LinkedHashMap<String, List<User>>();
+        groups.put("admin", users);
+
+        assertEcho("echoNested", groups);
+    }
+
+    @Test
+    public void testEchoGenericArrayMethod() throws Exception {
+
+        ArrayList<User> users = new ArrayList<User>();
+        users.add(new User("daniel", "53cr3t", "Daniel Stefaniuk", "daniel.stefaniuk@gmail.com"));
+        ArrayList<List<User>> groups = new ArrayList<List<User>>();
+        groups.add(users);
+
+        assertEcho("echoGenericArray", groups);
+    }
+
+    private void assertEcho(String method, Object users) throws Exception {
+
+        ArrayList<Object> parameters = new ArrayList<Object>();
+        parameters.add(users);
+
+        HttpTester response = tester.callService("/" + service + "/", method, parameters);
+        String content = response.getContent();
+        assertTrue(content.contains("daniel.stefaniuk@gmail.com"));
+        assertTrue(content.contains("******"));
+        assertFalse(content.contains("53cr3t"));
+    }
+
 }
@@ -0,0 +1,270 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedList;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceBufferPool;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.test.service.EchoService;
+import org.stefaniuk.json.service.test.util.ServletMock;
+
+public class NonBlockingTest {
+
+    private JsonServiceRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+
+        registry = new JsonServiceRegistry().register(EchoService.class).setNonBlocking(true);
+    }
+
+    @Test
+    public void testTricklingRequest() throws Exception {
+
+        String request = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"abc\"]}";
+        TricklingInputStream input = new TricklingInputStream();
+        ThrottledOutputStream output = new ThrottledOutputStream(1000);
+        ServletMock mock = new ServletMock("POST", input, output);
+
+        // returns before any byte of the body has arrived
+        registry.handle(mock.getRequest(), mock.getResponse(), EchoService.class);
+        assertTrue(mock.isAsyncStarted());
+
+        input.arrive(request.substring(0, 10));
+        input.arrive(request.substring(10, 30));
+        assertEquals(null, output.listener);
+        input.arrive(request.substring(30));
+        input.finish();
+
+        output.drain();
+        assertTrue(mock.isCompleted());
+        assertEquals(expected(request), output.toString("UTF-8"));
+        assertEquals(output.size(), mock.getContentLength());
+    }
+
+    @Test
+    public void testSlowClient() throws Exception {
+
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < 1000; i++) {
+            text.append("abcdefghij");
+        }
+        String request = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"" + text + "\"]}";
+        TricklingInputStream input = new TricklingInputStream();
+        ThrottledOutputStream output = new ThrottledOutputStream(100);
+        ServletMock mock = new ServletMock("POST", input, output);
+
+        registry.handle(mock.getRequest(), mock.getResponse(), EchoService.class);
+        input.arrive(request);
+        input.finish();
+
+        // each call writes no more than the client can take
+        int calls = 0;
+        while(!mock.isCompleted()) {
+            assertFalse(calls > 1000);
+            output.drain();
+            calls++;
+        }
+        assertTrue(calls > 1);
+        assertEquals(expected(request), output.toString("UTF-8"));
+    }
+
+    @Test
+    public void testNotCompressed() throws Exception {
+
+        String request = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"abc\"]}";
+        TricklingInputStream input = new TricklingInputStream();
+        ThrottledOutputStream output = new ThrottledOutputStream(1000);
+        ServletMock mock = new ServletMock("POST", input, output).setRequestHeader("Accept-Encoding", "gzip");
+
+        assertEquals(null, registry.handle(mock.getRequest(), mock.getResponse(), EchoService.class));
+        input.arrive(request);
+        input.finish();
+        output.drain();
+
+        // a response below the threshold is sent as it is
+        assertEquals(expected(request), output.toString("UTF-8"));
+        assertEquals(null, mock.getResponseHeader("Vary"));
+        assertEquals(null, mock.getResponseHeader("Content-Encoding"));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+
+        // empties the pool of this thread
+        for(int i = 0; i < 16; i++) {
+            JsonServiceBufferPool.acquire();
+        }
+        TricklingInputStream input = new TricklingInputStream();
+        ServletMock mock = new ServletMock("POST", input, new ThrottledOutputStream(1000));
+        registry.handle(mock.getRequest(), mock.getResponse(), EchoService.class);
+        input.arrive("{\"jsonrpc\"");
+        mock.timeout();
+
+        // both buffers holding the part of the body are back in the pool
+        assertEquals('{', JsonServiceBufferPool.acquire()[0]);
+        assertEquals('{', JsonServiceBufferPool.acquire()[0]);
+    }
+
+    private String expected(String request) throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new JsonServiceRegistry().register(EchoService.class).handle(
+            new ByteArrayInputStream(request.getBytes("UTF-8")), os, EchoService.class);
+
+        return os.toString("UTF-8");
+    }
+
+    /**
+     * Body which arrives in pieces, as the container would deliver it.
+     */
+    private static class TricklingInputStream extends ServletInputStream {
+
+        private final LinkedList<ByteArrayInputStream> pieces = new LinkedList<ByteArrayInputStream>();
+
+        private ReadListener listener;
+
+        private boolean finished = false;
+
+        void arrive(String piece) throws IOException {
+
+            pieces.add(new ByteArrayInputStream(piece.getBytes("UTF-8")));
+            listener.onDataAvailable();
+        }
+
+        void finish() throws IOException {
+
+            finished = true;
+            listener.onAllDataRead();
+        }
+
+        @Override
+        public int read() throws IOException {
+
+            byte[] b = new byte[1];
+
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+
+            if(!isReady()) {
+                throw new IllegalStateException("read would block");
+            }
+            if(pieces.isEmpty()) {
+                return -1;
+            }
+            int length = pieces.getFirst().read(b, off, len);
+            if(pieces.getFirst().available() == 0) {
+                pieces.removeFirst();
+            }
+
+            return length;
+        }
+
+        @Override
+        public boolean isFinished() {
+
+            return finished && pieces.isEmpty();
+        }
+
+        @Override
+        public boolean isReady() {
+
+            return !pieces.isEmpty() || finished;
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+
+            this.listener = listener;
+        }
+
+    }
+
+    /**
+     * Client which takes a limited number of bytes at a time.
+     */
+    private static class ThrottledOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        private final int capacity;
+
+        private int available;
+
+        private WriteListener listener;
+
+        ThrottledOutputStream(int capacity) {
+
+            this.capacity = capacity;
+        }
+
+        void drain() throws IOException {
+
+            available = capacity;
+            listener.onWritePossible();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+
+            if(!isReady()) {
+                throw new IllegalStateException("write would block");
+            }
+            os.write(b, off, len);
+            available -= len;
+        }
+
+        @Override
+        public boolean isReady() {
+
+            return available > 0;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+
+            this.listener = listener;
+            available = capacity;
+            try {
+                listener.onWritePossible();
+            }
+            catch(IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        int size() {
+
+            return os.size();
+        }
+
+        String toString(String charset) throws IOException {
+
+            return os.toString(charset);
+        }
+
+    }
+
+}
@@ -0,0 +1,216 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceNotificationQueue;
+import org.stefaniuk.json.service.JsonServiceNotificationQueue.OverflowPolicy;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.test.service.NotificationService;
+
+public class NotificationTest {
+
+    private JsonServiceRegistry registry;
+
+    private JsonServiceNotificationQueue queue;
+
+    @Before
+    public void setUp() throws Exception {
+
+        NotificationService.MESSAGES.clear();
+        NotificationService.THREADS.clear();
+        NotificationService.started = new CountDownLatch(1);
+        NotificationService.gate = new CountDownLatch(1);
+        registry = new JsonServiceRegistry().register(NotificationService.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        NotificationService.gate.countDown();
+        if(queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    public void testNotificationNotAnswered() throws Exception {
+
+        String content = call(record("a"));
+
+        assertEquals("", content);
+        assertEquals("a", NotificationService.MESSAGES.poll());
+        assertEquals(Thread.currentThread().getName(), NotificationService.THREADS.poll());
+    }
+
+    @Test
+    public void testNullIdAnswered() throws Exception {
+
+        String content = call("{\"jsonrpc\":\"2.0\",\"id\":null,\"method\":\"record\",\"params\":[\"a\"]}");
+
+        assertTrue(content.contains("\"result\":1"));
+    }
+
+    @Test
+    public void testUnknownMethodNotAnswered() throws Exception {
+
+        assertEquals("", call("{\"jsonrpc\":\"2.0\",\"method\":\"unknown\",\"params\":[]}"));
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+
+        String content =
+            call("[" + record("a") + ",{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"record\",\"params\":[\"b\"]},"
+                + record("c") + "]");
+
+        JsonNode node = new ObjectMapper().readTree(content);
+        assertEquals(1, node.size());
+        assertEquals(1, node.get(0).get("id").getIntValue());
+        assertEquals(3, NotificationService.MESSAGES.size());
+    }
+
+    @Test
+    public void testBatchOfNotifications() throws Exception {
+
+        assertEquals("", call("[" + record("a") + "," + record("b") + "]"));
+        assertEquals(2, NotificationService.MESSAGES.size());
+    }
+
+    @Test
+    public void testQueue() throws Exception {
+
+        queue = new JsonServiceNotificationQueue(1, 10, OverflowPolicy.REJECT);
+        registry.setNotificationQueue(queue);
+
+        assertEquals("", call(record("a")));
+        assertEquals("a", NotificationService.MESSAGES.poll(5, TimeUnit.SECONDS));
+        assertTrue(NotificationService.THREADS.poll(5, TimeUnit.SECONDS).startsWith("json-service-notification-"));
+    }
+
+    @Test
+    public void testAcknowledgedAtOnce() throws Exception {
+
+        queue = new JsonServiceNotificationQueue(1, 10, OverflowPolicy.REJECT);
+        registry.setNotificationQueue(queue);
+
+        // the worker is blocked, yet the request completes
+        assertEquals("", call(block()));
+        assertTrue(NotificationService.started.await(5, TimeUnit.SECONDS));
+        assertEquals("", call(record("a")));
+        assertEquals(1, queue.getQueueDepth());
+
+        NotificationService.gate.countDown();
+        assertEquals("a", NotificationService.MESSAGES.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRequestInjectedNotQueued() throws Exception {
+
+        queue = new JsonServiceNotificationQueue(1, 10, OverflowPolicy.REJECT);
+        registry.setNotificationQueue(queue);
+
+        // the request is recycled once it is finished, so it is not passed to a worker
+        assertEquals("", call("{\"jsonrpc\":\"2.0\",\"method\":\"recordRequest\",\"params\":[\"a\"]}"));
+        assertEquals("a", NotificationService.MESSAGES.poll());
+        assertEquals(Thread.currentThread().getName(), NotificationService.THREADS.poll());
+        assertEquals(0, queue.getExecutedCount());
+    }
+
+    @Test
+    public void testReject() throws Exception {
+
+        fill(OverflowPolicy.REJECT);
+        NotificationService.gate.countDown();
+
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals("a", NotificationService.MESSAGES.poll(5, TimeUnit.SECONDS));
+        queue.shutdown();
+        assertTrue(queue.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, NotificationService.MESSAGES.size());
+        assertEquals(2, queue.getExecutedCount());
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+
+        fill(OverflowPolicy.DROP_OLDEST);
+        NotificationService.gate.countDown();
+
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals("b", NotificationService.MESSAGES.poll(5, TimeUnit.SECONDS));
+        queue.shutdown();
+        assertTrue(queue.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, NotificationService.MESSAGES.size());
+    }
+
+    @Test
+    public void testCallerRuns() throws Exception {
+
+        fill(OverflowPolicy.CALLER_RUNS);
+
+        // executed by this thread while the worker is still blocked
+        assertEquals("b", NotificationService.MESSAGES.poll());
+        assertEquals(Thread.currentThread().getName(), NotificationService.THREADS.poll());
+        assertEquals(0, queue.getDroppedCount());
+
+        NotificationService.gate.countDown();
+        assertEquals("a", NotificationService.MESSAGES.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWaitTime() throws Exception {
+
+        fill(OverflowPolicy.REJECT);
+        Thread.sleep(100);
+        NotificationService.gate.countDown();
+        queue.shutdown();
+        assertTrue(queue.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertTrue(queue.getMaxWaitTime(TimeUnit.MILLISECONDS) >= 100);
+        assertTrue(queue.getAverageWaitTime(TimeUnit.MILLISECONDS) >= 50);
+    }
+
+    /**
+     * Blocks the only worker, puts "a" in the queue and overflows it with "b".
+     */
+    private void fill(OverflowPolicy policy) throws Exception {
+
+        queue = new JsonServiceNotificationQueue(1, 1, policy);
+        registry.setNotificationQueue(queue);
+
+        call(block());
+        assertTrue(NotificationService.started.await(5, TimeUnit.SECONDS));
+        call(record("a"));
+        call(record("b"));
+    }
+
+    private String record(String message) {
+
+        return "{\"jsonrpc\":\"2.0\",\"method\":\"record\",\"params\":[\"" + message + "\"]}";
+    }
+
+    private String block() {
+
+        return "{\"jsonrpc\":\"2.0\",\"method\":\"block\",\"params\":[]}";
+    }
+
+    private String call(String request) throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        registry.handle(new ByteArrayInputStream(request.getBytes("UTF-8")), os, NotificationService.class);
+
+        return os.toString("UTF-8");
+    }
+
+}
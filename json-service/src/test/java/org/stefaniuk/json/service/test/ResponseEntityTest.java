@@ -0,0 +1,111 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.stefaniuk.json.service.JsonServiceDescriptor;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.JsonServiceUtil;
+import org.stefaniuk.json.service.test.service.EchoService;
+import org.stefaniuk.json.service.test.util.ServletMock;
+
+public class ResponseEntityTest {
+
+    private final JsonServiceRegistry registry = new JsonServiceRegistry().register(EchoService.class);
+
+    @Test
+    public void testMethodCall() throws Exception {
+
+        String request = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"abc\"]}";
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ServletMock mock =
+            new ServletMock("POST", ServletMock.input(request.getBytes("UTF-8")), ServletMock.output(os));
+
+        ResponseEntity<byte[]> re = JsonServiceUtil.handleBytes(registry, mock.getRequest(), mock.getResponse(),
+            EchoService.class);
+
+        assertEquals(HttpStatus.OK, re.getStatusCode());
+        assertTrue(new String(re.getBody(), "UTF-8").contains("\"result\":\"Echo service says: abc\""));
+        assertEquals(Integer.toString(re.getBody().length), re.getHeaders().getFirst("Content-Length"));
+        assertTrue(re.getHeaders().getFirst("Content-Type").startsWith("application/json"));
+        assertEquals("no-cache", re.getHeaders().getFirst("Cache-Control"));
+        // nothing is written to the servlet response
+        assertEquals(0, os.size());
+    }
+
+    @Test
+    public void testLargeMethodCall() throws Exception {
+
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < 2000; i++) {
+            text.append("abcdefghij");
+        }
+        String request = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"" + text + "\"]}";
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ServletMock mock =
+            new ServletMock("POST", ServletMock.input(request.getBytes("UTF-8")), ServletMock.output(os));
+
+        ResponseEntity<byte[]> re = JsonServiceUtil.handleBytes(registry, mock.getRequest(), mock.getResponse(),
+            EchoService.class);
+
+        // a body larger than a pooled buffer is captured whole
+        assertTrue(new String(re.getBody(), "UTF-8").contains("\"result\":\"Echo service says: " + text + "\""));
+        assertEquals(Integer.toString(re.getBody().length), re.getHeaders().getFirst("Content-Length"));
+        assertEquals(0, os.size());
+    }
+
+    @Test
+    public void testStringEntityWithoutContentLength() throws Exception {
+
+        String request = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"abc\"]}";
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ServletMock mock =
+            new ServletMock("POST", ServletMock.input(request.getBytes("UTF-8")), ServletMock.output(os));
+
+        ResponseEntity<String> re = JsonServiceUtil.handle(registry, mock.getRequest(), mock.getResponse(),
+            EchoService.class);
+
+        // the body goes out through the servlet response
+        assertTrue(os.toString("UTF-8").contains("\"result\":\"Echo service says: abc\""));
+        assertFalse(re.getHeaders().containsKey("Content-Length"));
+    }
+
+    @Test
+    public void testServiceMap() throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ServletMock mock = new ServletMock("GET", ServletMock.input(new byte[0]), ServletMock.output(os));
+        JsonServiceDescriptor descriptor = registry.getDescriptor(EchoService.class);
+
+        ResponseEntity<byte[]> re = JsonServiceUtil.handleBytes(registry, mock.getRequest(), mock.getResponse(),
+            EchoService.class);
+
+        assertEquals(HttpStatus.OK, re.getStatusCode());
+        assertArrayEquals(descriptor.getServiceMapBytes(false), re.getBody());
+        assertEquals(descriptor.getETag(false), re.getHeaders().getFirst("ETag"));
+        assertEquals(0, os.size());
+    }
+
+    @Test
+    public void testServiceMapNotModified() throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ServletMock mock = new ServletMock("GET", ServletMock.input(new byte[0]), ServletMock.output(os));
+        mock.setRequestHeader("If-None-Match", registry.getDescriptor(EchoService.class).getETag(false));
+
+        ResponseEntity<byte[]> re = JsonServiceUtil.handleBytes(registry, mock.getRequest(), mock.getResponse(),
+            EchoService.class);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, re.getStatusCode());
+        assertNull(re.getBody());
+    }
+
+}
@@ -0,0 +1,70 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceDescriptor;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.test.service.CalculatorService;
+
+public class ServiceMapTest {
+
+    @Test
+    public void testRenderedOnce() throws Exception {
+
+        JsonServiceRegistry registry = new JsonServiceRegistry().register(CalculatorService.class);
+        JsonServiceDescriptor descriptor = registry.getDescriptor(CalculatorService.class);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        registry.getServiceMap(CalculatorService.class, os);
+
+        assertArrayEquals(descriptor.getServiceMapBytes(false), os.toByteArray());
+        assertEquals(descriptor.getServiceMap(), new ObjectMapper().readTree(os.toString("UTF-8")));
+        assertArrayEquals(descriptor.getServiceMapBytes(false), gunzip(descriptor.getServiceMapBytes(true)));
+    }
+
+    @Test
+    public void testETag() throws Exception {
+
+        JsonServiceRegistry registry = new JsonServiceRegistry().register(CalculatorService.class);
+        JsonServiceDescriptor descriptor = registry.getDescriptor(CalculatorService.class);
+        String etag = descriptor.getETag(false);
+
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertFalse(etag.equals(descriptor.getETag(true)));
+        assertTrue(descriptor.isNotModified(etag));
+        assertTrue(descriptor.isNotModified("\"abc\", W/" + descriptor.getETag(true)));
+        assertTrue(descriptor.isNotModified("*"));
+        assertFalse(descriptor.isNotModified("\"abc\""));
+        assertFalse(descriptor.isNotModified(null));
+
+        // the same content has the same tag
+        registry.unregister(CalculatorService.class);
+        JsonServiceDescriptor other = registry.getDescriptor(CalculatorService.class);
+        assertNotSame(descriptor, other);
+        assertEquals(etag, other.getETag(false));
+    }
+
+    private static byte[] gunzip(byte[] content) throws Exception {
+
+        InputStream is = new GZIPInputStream(new ByteArrayInputStream(content));
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while((n = is.read(buffer)) >= 0) {
+            os.write(buffer, 0, n);
+        }
+
+        return os.toByteArray();
+    }
+
+}
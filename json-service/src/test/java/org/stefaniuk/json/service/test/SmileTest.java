@@ -0,0 +1,88 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ArrayNode;
+import org.codehaus.jackson.node.ObjectNode;
+import org.codehaus.jackson.smile.SmileFactory;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceInvoker;
+import org.stefaniuk.json.service.JsonServiceInvoker.ContentType;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.test.service.CalculatorService;
+
+public class SmileTest {
+
+    private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    @Test
+    public void testSmileRequestAndResponse() throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new JsonServiceRegistry().register(CalculatorService.class).handle(
+            new ByteArrayInputStream(smile.writeValueAsBytes(add())), os, CalculatorService.class,
+            ContentType.APPLICATION_SMILE, ContentType.APPLICATION_SMILE);
+
+        JsonNode response = smile.readValue(os.toByteArray(), JsonNode.class);
+        assertEquals(5, response.get("result").getIntValue());
+        assertEquals(1, response.get("id").getIntValue());
+    }
+
+    @Test
+    public void testJsonRequestAndSmileResponse() throws Exception {
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new JsonServiceRegistry().register(CalculatorService.class).handle(
+            new ByteArrayInputStream(json.writeValueAsBytes(add())), os, CalculatorService.class,
+            ContentType.APPLICATION_JSON, ContentType.APPLICATION_SMILE);
+
+        assertEquals(5, smile.readValue(os.toByteArray(), JsonNode.class).get("result").getIntValue());
+    }
+
+    @Test
+    public void testNegotiation() throws Exception {
+
+        assertEquals(ContentType.APPLICATION_JSON, ContentType.forRequest((String) null));
+        assertEquals(ContentType.APPLICATION_JSON, ContentType.forRequest("application/json; charset=UTF-8"));
+        assertEquals(ContentType.APPLICATION_SMILE, ContentType.forRequest("application/x-jackson-smile"));
+        assertEquals(ContentType.APPLICATION_JSON, ContentType.forRequest("text/plain"));
+
+        // the response has the type of the request unless another one is accepted
+        assertEquals(ContentType.APPLICATION_SMILE, ContentType.forResponse(null, ContentType.APPLICATION_SMILE));
+        assertEquals(ContentType.APPLICATION_SMILE, ContentType.forResponse("*/*", ContentType.APPLICATION_SMILE));
+        assertEquals(ContentType.APPLICATION_SMILE, ContentType.forResponse(
+            "application/x-jackson-smile, application/json;q=0.5", ContentType.APPLICATION_JSON));
+        assertEquals(ContentType.APPLICATION_JSON, ContentType.forResponse(
+            "application/x-jackson-smile;q=0.1, application/json", ContentType.APPLICATION_SMILE));
+    }
+
+    @Test
+    public void testServiceMap() throws Exception {
+
+        JsonNode smd = new JsonServiceInvoker(CalculatorService.class).getServiceMap();
+
+        assertTrue(smd.get("contentTypes").toString().contains("application/x-jackson-smile"));
+    }
+
+    private ObjectNode add() {
+
+        ObjectNode request = json.createObjectNode();
+        request.put("jsonrpc", "2.0");
+        request.put("id", 1);
+        request.put("method", "add");
+        ArrayNode params = request.putArray("params");
+        params.add(2);
+        params.add(3);
+
+        return request;
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jackson.JsonNode;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceError;
+import org.stefaniuk.json.service.JsonServiceException;
+import org.stefaniuk.json.service.JsonServiceFraming;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.JsonServiceSocketClient;
+import org.stefaniuk.json.service.JsonServiceSocketServer;
+import org.stefaniuk.json.service.JsonServiceUtil;
+import org.stefaniuk.json.service.test.service.BatchService;
+
+public class SocketTest {
+
+    private JsonServiceSocketServer server;
+
+    private JsonServiceSocketClient client;
+
+    @After
+    public void tearDown() throws Exception {
+
+        if(client != null) {
+            client.close();
+        }
+        server.stop();
+    }
+
+    @Test
+    public void testCall() throws Exception {
+
+        client = new JsonServiceSocketClient(start(JsonServiceFraming.NEWLINE, new InetSocketAddress(0)));
+
+        assertEquals(Integer.valueOf(5), client.call(Integer.class, "sleep", 5));
+    }
+
+    @Test
+    public void testError() throws Exception {
+
+        client = new JsonServiceSocketClient(start(JsonServiceFraming.NEWLINE, new InetSocketAddress(0)));
+
+        try {
+            client.call(Integer.class, "unknown");
+            fail();
+        }
+        catch(JsonServiceException e) {
+            assertEquals(JsonServiceError.METHOD_NOT_FOUND, e.getError());
+        }
+    }
+
+    @Test
+    public void testPipelining() throws Exception {
+
+        InetSocketAddress address = (InetSocketAddress) start(JsonServiceFraming.NEWLINE, new InetSocketAddress(0));
+        Socket socket = new Socket("localhost", address.getPort());
+        try {
+            socket.setSoTimeout(5000);
+            OutputStream os = socket.getOutputStream();
+            os.write(("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"sleep\",\"params\":[300]}\r\n"
+                + "{\"jsonrpc\":\"2.0\",\"method\":\"sleep\",\"params\":[0]}\n\n"
+                + "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"sleep\",\"params\":[0]}\n").getBytes("UTF-8"));
+            os.flush();
+            socket.shutdownOutput();
+
+            // replies come in the order of the requests, nothing for a notification
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            assertTrue(reader.readLine().contains("\"id\":1,"));
+            assertTrue(reader.readLine().contains("\"id\":2,"));
+            assertEquals(null, reader.readLine());
+        }
+        finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentCalls() throws Exception {
+
+        client = new JsonServiceSocketClient(start(JsonServiceFraming.LENGTH_PREFIXED, new InetSocketAddress(0)), 2)
+            .setFraming(JsonServiceFraming.LENGTH_PREFIXED);
+
+        // many calls in flight over two connections
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<JsonNode>> futures = new ArrayList<CompletableFuture<JsonNode>>();
+        for(int i = 0; i < 16; i++) {
+            futures.add(client.callAsync("sleep", 200));
+        }
+        for(CompletableFuture<JsonNode> future: futures) {
+            assertEquals(200, future.get(5, TimeUnit.SECONDS).getIntValue());
+        }
+        assertTrue(System.currentTimeMillis() - start < 16 * 200 / 2);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+
+        client = new JsonServiceSocketClient(start(JsonServiceFraming.NEWLINE, new InetSocketAddress(0)))
+            .setTimeout(50);
+
+        try {
+            client.call(Integer.class, "sleep", 500);
+            fail();
+        }
+        catch(IOException e) {
+            assertTrue(e.getMessage().contains("No reply"));
+        }
+        // the call does not wait for its reply any more
+        assertEquals(0, client.getPendingCount());
+        assertEquals(Integer.valueOf(5), client.call(Integer.class, "sleep", 5));
+    }
+
+    @Test
+    public void testUnixDomainSocket() throws Exception {
+
+        File file = new File(System.getProperty("java.io.tmpdir"), "json-service-test-" + System.nanoTime() + ".sock");
+        SocketAddress address;
+        try {
+            address = JsonServiceUtil.newUnixDomainSocketAddress(file.getPath());
+        }
+        catch(UnsupportedOperationException e) {
+            Assume.assumeNoException(e);
+            return;
+        }
+        client = new JsonServiceSocketClient(start(JsonServiceFraming.NEWLINE, address));
+
+        assertEquals(Integer.valueOf(5), client.call(Integer.class, "sleep", 5));
+        server.stop();
+        assertTrue(!file.exists());
+    }
+
+    private SocketAddress start(JsonServiceFraming framing, SocketAddress address) throws Exception {
+
+        server = new JsonServiceSocketServer(new JsonServiceRegistry(), address, BatchService.class)
+            .setFraming(framing).start();
+        SocketAddress local = server.getAddress();
+
+        return local instanceof InetSocketAddress ? new InetSocketAddress("localhost",
+            ((InetSocketAddress) local).getPort()) : local;
+    }
+
+}
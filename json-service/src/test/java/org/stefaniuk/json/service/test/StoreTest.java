@@ -0,0 +1,70 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.testing.HttpTester;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceParameter;
+import org.stefaniuk.json.service.store.QueryStore;
+import org.stefaniuk.json.service.test.bean.User;
+import org.stefaniuk.json.service.test.service.AbstractStoreService;
+import org.stefaniuk.json.service.test.service.StoreService;
+
+public class StoreTest extends AbstractTest {
+
+    public StoreTest() {
+
+        service = "Store";
+    }
+
+    @Test
+    public void testInsertMethod() throws Exception {
+
+        List<Object> parameters = new ArrayList<Object>();
+        parameters.add(new User("daniel", "53cr3t", "Daniel Stefaniuk", "daniel.stefaniuk@gmail.com"));
+
+        HttpTester response = tester.callService("/" + service + "/", "insert", parameters);
+        assertTrue(response.getContent().contains("\"result\":"));
+        assertFalse(response.getContent().contains("\"error\":{"));
+    }
+
+    @Test
+    public void testUpdateMethod() throws Exception {
+
+        List<Object> parameters = new ArrayList<Object>();
+        parameters.add(new User("daniel", "53cr3t", "Daniel Stefaniuk", "daniel.stefaniuk@gmail.com"));
+        tester.callService("/" + service + "/", "insert", parameters);
+
+        // inherited method with a type variable parameter
+        parameters = new ArrayList<Object>();
+        parameters.add(0);
+        parameters.add(new User("stefaniuk", "53cr3t", "Daniel Stefaniuk", "daniel.stefaniuk@gmail.com"));
+        HttpTester response = tester.callService("/" + service + "/", "update", parameters);
+        assertTrue(response.getContent().contains("\"result\":0"));
+
+        parameters = new ArrayList<Object>();
+        parameters.add(new QueryStore());
+        response = tester.callService("/" + service + "/", "select", parameters);
+        String content = response.getContent();
+        assertTrue(content.contains("stefaniuk"));
+        assertTrue(content.contains("******"));
+        assertFalse(content.contains("53cr3t"));
+    }
+
+    @Test
+    public void testTypeVariableResolution() throws Exception {
+
+        Type type = AbstractStoreService.class.getMethod("update", Integer.class, Object.class)
+            .getGenericParameterTypes()[1];
+
+        assertEquals(User.class, JsonServiceParameter.create(type, StoreService.class).getRawClass());
+        assertEquals(Object.class, JsonServiceParameter.create(type).getRawClass());
+    }
+
+}
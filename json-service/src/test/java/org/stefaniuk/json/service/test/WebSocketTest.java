@@ -0,0 +1,206 @@
+package org.stefaniuk.json.service.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.stefaniuk.json.service.JsonServiceChannel;
+import org.stefaniuk.json.service.JsonServiceEndpoint;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.test.service.BatchService;
+
+public class WebSocketTest {
+
+    private ExecutorService executor;
+
+    private final BlockingQueue<String> sent = new LinkedBlockingQueue<String>();
+
+    private final Map<String, Object> sessionProperties = new HashMap<String, Object>();
+
+    private MessageHandler.Whole<String> handler;
+
+    @Before
+    public void setUp() throws Exception {
+
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testOutOfOrder() throws Exception {
+
+        Session session = open(false, 16);
+
+        handler.onMessage(sleep(1, 300));
+        handler.onMessage(sleep(2, 0));
+
+        // the second call overtakes the first one
+        assertTrue(poll().contains("\"id\":2,"));
+        assertTrue(poll().contains("\"id\":1,"));
+        assertEquals(0, JsonServiceEndpoint.getChannel(session).getInFlight());
+    }
+
+    @Test
+    public void testOrdered() throws Exception {
+
+        open(true, 16);
+
+        handler.onMessage(sleep(1, 300));
+        handler.onMessage(sleep(2, 0));
+
+        assertTrue(poll().contains("\"id\":1,"));
+        assertTrue(poll().contains("\"id\":2,"));
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+
+        Session session = open(false, 1);
+        final JsonServiceChannel channel = JsonServiceEndpoint.getChannel(session);
+
+        handler.onMessage(sleep(1, 300));
+        assertTrue(channel.isSaturated());
+        assertFalse(channel.offer(sleep(2, 0).getBytes("UTF-8")));
+
+        // blocks until the first call has been replied to
+        long start = System.currentTimeMillis();
+        handler.onMessage(sleep(3, 0));
+        assertTrue(System.currentTimeMillis() - start >= 200);
+
+        assertTrue(poll().contains("\"id\":1,"));
+        assertTrue(poll().contains("\"id\":3,"));
+    }
+
+    @Test
+    public void testNotification() throws Exception {
+
+        Session session = open(false, 16);
+
+        // nothing is sent in reply to a notification from a client
+        handler.onMessage("{\"jsonrpc\":\"2.0\",\"method\":\"sleep\",\"params\":[0]}");
+        JsonServiceEndpoint.getChannel(session).sendNotification("update", "a", 1);
+
+        assertEquals("{\"jsonrpc\":\"2.0\",\"method\":\"update\",\"params\":[\"a\",1]}", poll());
+        assertEquals(null, sent.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testClose() throws Exception {
+
+        Session session = open(false, 16);
+        JsonServiceChannel channel = JsonServiceEndpoint.getChannel(session);
+
+        handler.onMessage(sleep(1, 200));
+        new JsonServiceEndpoint().onClose(session, null);
+
+        assertTrue(channel.isClosed());
+        assertEquals(null, sent.poll(400, TimeUnit.MILLISECONDS));
+    }
+
+    private Session open(boolean ordered, int maxInFlight) throws Exception {
+
+        JsonServiceRegistry registry = new JsonServiceRegistry();
+        final Map<String, Object> configProperties =
+            JsonServiceEndpoint.createConfig("/ws/batch", registry, BatchService.class).getUserProperties();
+        configProperties.put(JsonServiceEndpoint.EXECUTOR, executor);
+        configProperties.put(JsonServiceEndpoint.MAX_IN_FLIGHT, maxInFlight);
+        configProperties.put(JsonServiceEndpoint.ORDERED, ordered);
+
+        EndpointConfig config = (EndpointConfig) proxy(EndpointConfig.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+
+                return m.getName().equals("getUserProperties") ? configProperties : null;
+            }
+
+        });
+        final RemoteEndpoint.Basic remote = (RemoteEndpoint.Basic) proxy(RemoteEndpoint.Basic.class,
+            new InvocationHandler() {
+
+                @Override
+                public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+
+                    if(m.getName().equals("sendText")) {
+                        sent.add((String) args[0]);
+                    }
+
+                    return null;
+                }
+
+            });
+        Session session = (Session) proxy(Session.class, new InvocationHandler() {
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+
+                String name = m.getName();
+                if(name.equals("getUserProperties")) {
+                    return sessionProperties;
+                }
+                else if(name.equals("getBasicRemote")) {
+                    return remote;
+                }
+                else if(name.equals("addMessageHandler")) {
+                    handler = (MessageHandler.Whole<String>) args[0];
+                }
+                else if(name.equals("getId")) {
+                    return "1";
+                }
+
+                return null;
+            }
+
+        });
+
+        new JsonServiceEndpoint().onOpen(session, config);
+        assertNotNull(handler);
+
+        return session;
+    }
+
+    private String poll() throws InterruptedException {
+
+        String message = sent.poll(5, TimeUnit.SECONDS);
+        assertNotNull(message);
+
+        return message;
+    }
+
+    private static String sleep(int id, int millis) {
+
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"sleep\",\"params\":[" + millis + "]}";
+    }
+
+    private static Object proxy(Class<?> type, InvocationHandler handler) {
+
+        return Proxy.newProxyInstance(WebSocketTest.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.stefaniuk.json.service.test.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefaniuk.json.service.JsonServiceMethod;
+import org.stefaniuk.json.service.test.service.CalculatorService;
+
+/**
+ * Compares reflective dispatch with method handle dispatch. The "mixed"
+ * benchmarks call all methods of the service in turn, so the call site does
+ * not stay monomorphic.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private static final String[] METHODS = { "add", "subtract", "multiple", "divide" };
+
+    private CalculatorService service;
+
+    private Method[] reflected;
+
+    private JsonServiceMethod[] handles;
+
+    private Object[] args;
+
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        service = new CalculatorService();
+        reflected = new Method[METHODS.length];
+        handles = new JsonServiceMethod[METHODS.length];
+        for(int i = 0; i < METHODS.length; i++) {
+            reflected[i] = CalculatorService.class.getMethod(METHODS[i], Integer.class, Integer.class);
+            handles[i] = JsonServiceMethod.create(service, reflected[i]);
+        }
+        args = new Object[] { 999, 3 };
+    }
+
+    @Benchmark
+    public Object reflective() throws Exception {
+
+        return reflected[0].invoke(service, args);
+    }
+
+    @Benchmark
+    public Object handle() throws Exception {
+
+        return handles[0].invoke(args);
+    }
+
+    @Benchmark
+    public Object reflectiveMixed() throws Exception {
+
+        next = (next + 1) & 3;
+
+        return reflected[next].invoke(service, args);
+    }
+
+    @Benchmark
+    public Object handleMixed() throws Exception {
+
+        next = (next + 1) & 3;
+
+        return handles[next].invoke(args);
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.stefaniuk.json.service.test.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.JsonServiceUtil;
+import org.stefaniuk.json.service.test.service.BatchService;
+
+/**
+ * Measures throughput of calls to a service that blocks for a few
+ * milliseconds, as one that waits for a database would. A batch of calls is
+ * run either on a fixed pool of platform threads, the size of a typical
+ * container pool, or on a new virtual thread for each call, with or without
+ * a limit of calls running at once. On a Java runtime without virtual threads
+ * a new platform thread is started for each call instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionBenchmark {
+
+    /** Number of calls in a batch. */
+    private static final int CALLS = 256;
+
+    /** Number of platform threads, as in a container pool. */
+    private static final int THREADS = 32;
+
+    @Param({ "platform", "virtual", "bulkhead" })
+    public String mode;
+
+    private JsonServiceRegistry registry;
+
+    private ExecutorService executor;
+
+    private byte[] request;
+
+    private ByteArrayOutputStream os;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        Logger.getLogger("org.stefaniuk.json.service").setLevel(Level.WARN);
+
+        StringBuilder sb = new StringBuilder("[");
+        for(int i = 0; i < CALLS; i++) {
+            sb.append(i == 0 ? "" : ",");
+            sb.append("{\"jsonrpc\":\"2.0\",\"method\":\"sleep\",\"params\":[5],\"id\":").append(i).append("}");
+        }
+        request = sb.append("]").toString().getBytes("UTF-8");
+
+        if(mode.equals("platform")) {
+            executor = Executors.newFixedThreadPool(THREADS);
+        }
+        else {
+            executor = JsonServiceUtil.newVirtualThreadExecutor();
+            if(executor == null) {
+                executor = Executors.newCachedThreadPool();
+            }
+        }
+
+        registry = new JsonServiceRegistry().register(BatchService.class).setBatchParallelism(CALLS);
+        registry.setBatchExecutor(executor);
+        if(mode.equals("bulkhead")) {
+            registry.setConcurrencyLimit(BatchService.class, CALLS / 4);
+        }
+        os = new ByteArrayOutputStream();
+    }
+
+    @TearDown
+    public void tearDown() {
+
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int batch() {
+
+        os.reset();
+        registry.handle(new ByteArrayInputStream(request), os, BatchService.class);
+
+        return os.size();
+    }
+
+}
@@ -0,0 +1,97 @@
+package org.stefaniuk.json.service.test.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefaniuk.json.service.JsonServiceBufferPool;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.test.service.EchoService;
+
+/**
+ * Measures garbage left behind by requests arriving at a steady 10,000
+ * requests per second. Each response is collected either in a pooled buffer
+ * that is recycled afterwards, as the socket and non-blocking transports do,
+ * or in a new byte array. Run it with "-prof gc" and compare the allocation
+ * rate and the number of collections; the throughput only shows whether the
+ * pace has been kept.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Threads(1)
+@Fork(1)
+public class GcPressureBenchmark {
+
+    /** Time between two requests in nanoseconds. */
+    private static final long INTERVAL = TimeUnit.SECONDS.toNanos(1) / 10000;
+
+    @Param({ "pooled", "allocated" })
+    public String mode;
+
+    private JsonServiceRegistry registry;
+
+    private byte[] request;
+
+    /** Time the next request is due. */
+    private long next;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        Logger.getLogger("org.stefaniuk.json.service").setLevel(Level.WARN);
+
+        StringBuilder sb = new StringBuilder();
+        while(sb.length() < 2048) {
+            sb.append("lorem ipsum dolor sit amet ");
+        }
+        request = ("{\"jsonrpc\":\"2.0\",\"method\":\"echo\",\"params\":[\"" + sb + "\"],\"id\":1}").getBytes("UTF-8");
+
+        registry = new JsonServiceRegistry().register(EchoService.class);
+        next = System.nanoTime();
+    }
+
+    @Benchmark
+    public int request() {
+
+        // keep the pace rather than run flat out
+        next += INTERVAL;
+        long delay;
+        while((delay = next - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(delay);
+        }
+
+        int size;
+        if(mode.equals("pooled")) {
+            JsonServiceBufferPool.Output os = new JsonServiceBufferPool.Output();
+            registry.handle(new ByteArrayInputStream(request), os, EchoService.class);
+            size = os.size();
+            os.recycle();
+        }
+        else {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            registry.handle(new ByteArrayInputStream(request), os, EchoService.class);
+            size = os.size();
+        }
+
+        return size;
+    }
+
+}
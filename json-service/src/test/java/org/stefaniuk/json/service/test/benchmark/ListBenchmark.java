@@ -0,0 +1,79 @@
+package org.stefaniuk.json.service.test.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.test.bean.User;
+import org.stefaniuk.json.service.test.service.ListService;
+
+/**
+ * Measures cost of a call to a method with a generic list parameter, for
+ * payloads of growing size. The cost should grow linearly with the number of
+ * elements, as each of them is bound to a {@link User} object in one step.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListBenchmark {
+
+    @Param({ "10", "1000", "10000" })
+    public int size;
+
+    private JsonServiceRegistry registry;
+
+    private byte[] request;
+
+    private ByteArrayOutputStream os;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        Logger.getLogger("org.stefaniuk.json.service").setLevel(Level.WARN);
+
+        List<User> users = new ArrayList<User>();
+        for(int i = 0; i < size; i++) {
+            users.add(new User("user" + i, "53cr3t", "User " + i, "user" + i + "@example.com"));
+        }
+        List<Object> params = new ArrayList<Object>();
+        params.add(users);
+
+        StringBuilder sb = new StringBuilder("{\"jsonrpc\":\"2.0\",\"method\":\"echo\",\"params\":");
+        sb.append(new ObjectMapper().writeValueAsString(params)).append(",\"id\":1}");
+        request = sb.toString().getBytes("UTF-8");
+
+        registry = new JsonServiceRegistry();
+        registry.register(ListService.class);
+        os = new ByteArrayOutputStream(request.length);
+    }
+
+    @Benchmark
+    public int echo() {
+
+        os.reset();
+        registry.handle(new ByteArrayInputStream(request), os, ListService.class);
+
+        return os.size();
+    }
+
+}
@@ -0,0 +1,69 @@
+package org.stefaniuk.json.service.test.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+
+/**
+ * Measures cost of a single call to a service with one exposed method and to a
+ * service with many exposed methods. Both should cost the same, as the method
+ * table and SMD are built only once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceDescriptorBenchmark {
+
+    private static final String SERVICE_PACKAGE = "org.stefaniuk.json.service.test.service";
+
+    private static final byte[] REQUEST = "{\"jsonrpc\":\"2.0\",\"method\":\"echo\",\"params\":[\"Hello World!\"],\"id\":1}"
+        .getBytes();
+
+    @Param({ "Echo", "Wide" })
+    public String service;
+
+    private JsonServiceRegistry registry;
+
+    private Class<?> clazz;
+
+    private ByteArrayOutputStream os;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        Logger.getLogger("org.stefaniuk.json.service").setLevel(Level.WARN);
+
+        clazz = Class.forName(SERVICE_PACKAGE + "." + service + "Service");
+        registry = new JsonServiceRegistry();
+        registry.register(clazz);
+        os = new ByteArrayOutputStream(256);
+    }
+
+    @Benchmark
+    public int call() {
+
+        os.reset();
+        registry.handle(new ByteArrayInputStream(REQUEST), os, clazz);
+
+        return os.size();
+    }
+
+}
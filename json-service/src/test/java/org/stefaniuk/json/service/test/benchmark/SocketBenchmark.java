@@ -0,0 +1,160 @@
+package org.stefaniuk.json.service.test.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URL;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stefaniuk.json.service.JsonServiceRegistry;
+import org.stefaniuk.json.service.JsonServiceSocketClient;
+import org.stefaniuk.json.service.JsonServiceSocketServer;
+import org.stefaniuk.json.service.JsonServiceUtil;
+import org.stefaniuk.json.service.test.service.EchoService;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Compares latency of a small call over HTTP with keep-alive connections and
+ * over a raw TCP or Unix domain socket. Both servers handle the request body
+ * with the same registry, so the difference is the cost of the transport.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SocketBenchmark {
+
+    private static final String REQUEST = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":[\"abc\"]}";
+
+    @Param({ "http", "tcp", "unix" })
+    public String transport;
+
+    private JsonServiceRegistry registry;
+
+    private HttpServer http;
+
+    private URL url;
+
+    private byte[] request;
+
+    private JsonServiceSocketServer server;
+
+    private JsonServiceSocketClient client;
+
+    private File file;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        Logger.getLogger("org.stefaniuk.json.service").setLevel(Level.WARN);
+
+        registry = new JsonServiceRegistry().register(EchoService.class);
+        request = REQUEST.getBytes("UTF-8");
+
+        if(transport.equals("http")) {
+            http = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            http.setExecutor(Executors.newFixedThreadPool(16));
+            http.createContext("/echo", new HttpHandler() {
+
+                @Override
+                public void handle(HttpExchange exchange) throws IOException {
+
+                    ByteArrayOutputStream os = new ByteArrayOutputStream();
+                    registry.handle(exchange.getRequestBody(), os, EchoService.class);
+                    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                    exchange.sendResponseHeaders(200, os.size());
+                    os.writeTo(exchange.getResponseBody());
+                    exchange.close();
+                }
+
+            });
+            http.start();
+            url = new URL("http://localhost:" + http.getAddress().getPort() + "/echo");
+            return;
+        }
+
+        SocketAddress address;
+        if(transport.equals("tcp")) {
+            address = new InetSocketAddress("localhost", 0);
+        }
+        else {
+            file = new File(System.getProperty("java.io.tmpdir"), "json-service-benchmark-" + System.nanoTime()
+                + ".sock");
+            address = JsonServiceUtil.newUnixDomainSocketAddress(file.getPath());
+        }
+        server = new JsonServiceSocketServer(registry, address, EchoService.class).setOrdered(false).start();
+        address = server.getAddress();
+        if(address instanceof InetSocketAddress) {
+            address = new InetSocketAddress("localhost", ((InetSocketAddress) address).getPort());
+        }
+        client = new JsonServiceSocketClient(address);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+
+        if(http != null) {
+            http.stop(0);
+        }
+        if(client != null) {
+            client.close();
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    public Object call() throws Exception {
+
+        if(client != null) {
+            return client.call(String.class, "echo", "abc");
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setFixedLengthStreamingMode(request.length);
+        OutputStream os = connection.getOutputStream();
+        os.write(request);
+        os.close();
+        InputStream is = connection.getInputStream();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while((n = is.read(buffer)) >= 0) {
+            response.write(buffer, 0, n);
+        }
+        // the connection is kept alive for the next call
+        is.close();
+
+        return response;
+    }
+
+}
@@ -0,0 +1,43 @@
+package org.stefaniuk.json.service.test.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.stefaniuk.json.service.store.QueryStore;
+import org.stefaniuk.json.service.store.Store;
+
+public abstract class AbstractStoreService<M> implements Store<M> {
+
+    private final List<M> models = new ArrayList<M>();
+
+    @Override
+    public synchronized List<M> select(QueryStore query) {
+
+        return new ArrayList<M>(models);
+    }
+
+    @Override
+    public synchronized Integer update(Integer id, M model) {
+
+        models.set(id, model);
+
+        return id;
+    }
+
+    @Override
+    public synchronized Integer insert(M model) {
+
+        models.add(model);
+
+        return models.size() - 1;
+    }
+
+    @Override
+    public synchronized Integer delete(Integer id) {
+
+        models.remove(id.intValue());
+
+        return id;
+    }
+
+}
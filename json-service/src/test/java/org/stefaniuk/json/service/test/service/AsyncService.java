@@ -0,0 +1,98 @@
+package org.stefaniuk.json.service.test.service;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.stefaniuk.json.service.JsonService;
+import org.stefaniuk.json.service.JsonServiceError;
+import org.stefaniuk.json.service.JsonServiceException;
+
+public class AsyncService {
+
+    private static final Timer timer = new Timer(true);
+
+    @JsonService
+    public CompletionStage<Integer> later(final Integer millis) {
+
+        final CompletableFuture<Integer> result = new CompletableFuture<Integer>();
+        timer.schedule(new TimerTask() {
+
+            @Override
+            public void run() {
+
+                result.complete(millis);
+            }
+
+        }, millis);
+
+        return result;
+    }
+
+    @JsonService
+    public Future<String> future(final String value) {
+
+        final FutureTask<String> result = new FutureTask<String>(new Runnable() {
+
+            @Override
+            public void run() {
+
+            }
+
+        }, value);
+        timer.schedule(new TimerTask() {
+
+            @Override
+            public void run() {
+
+                result.run();
+            }
+
+        }, 10);
+
+        return result;
+    }
+
+    @JsonService
+    public CompletionStage<Integer> fail() {
+
+        CompletableFuture<Integer> result = new CompletableFuture<Integer>();
+        result.completeExceptionally(new JsonServiceException(JsonServiceError.INVALID_PARAMS));
+
+        return result;
+    }
+
+    @JsonService
+    public CompletionStage<Integer> never() {
+
+        return new CompletableFuture<Integer>();
+    }
+
+    @JsonService
+    public CompletionStage<Boolean> released(final HttpServletRequest request) {
+
+        final CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+        new Thread() {
+
+            @Override
+            public void run() {
+
+                // wait until the container thread has been released
+                long end = System.currentTimeMillis() + 1000;
+                while(!request.isAsyncStarted() && System.currentTimeMillis() < end) {
+                    Thread.yield();
+                }
+                result.complete(request.isAsyncStarted());
+            }
+
+        }.start();
+
+        return result;
+    }
+
+}
@@ -0,0 +1,43 @@
+package org.stefaniuk.json.service.test.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.stefaniuk.json.service.JsonService;
+
+public class BatchService {
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicInteger peak = new AtomicInteger();
+
+    @JsonService
+    public Integer sleep(Integer millis) throws InterruptedException {
+
+        int current = running.incrementAndGet();
+        int max = peak.get();
+        while(current > max && !peak.compareAndSet(max, current)) {
+            max = peak.get();
+        }
+        try {
+            Thread.sleep(millis);
+        }
+        finally {
+            running.decrementAndGet();
+        }
+
+        return millis;
+    }
+
+    @JsonService(sequential = true)
+    public Integer running() {
+
+        return running.get();
+    }
+
+    @JsonService(sequential = true)
+    public Integer peak() {
+
+        return peak.getAndSet(0);
+    }
+
+}
@@ -0,0 +1,56 @@
+package org.stefaniuk.json.service.test.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.stefaniuk.json.service.JsonService;
+
+public class CacheService {
+
+    public static final AtomicInteger CALLS = new AtomicInteger();
+
+    public static final List<String> NAMES = new ArrayList<String>();
+
+    @JsonService(cacheTtl = 60000, cacheSize = 2)
+    public Integer square(Integer v) {
+
+        CALLS.incrementAndGet();
+
+        return v * v;
+    }
+
+    @JsonService(cacheTtl = 60000)
+    public Integer count(Map<String, Object> filter) {
+
+        CALLS.incrementAndGet();
+
+        return filter.size();
+    }
+
+    @JsonService(cacheTtl = 1)
+    public Integer expire(Integer v) {
+
+        CALLS.incrementAndGet();
+
+        return v;
+    }
+
+    @JsonService(cacheTtl = 60000)
+    public List<String> names() {
+
+        CALLS.incrementAndGet();
+
+        return NAMES;
+    }
+
+    @JsonService
+    public Integer uncached(Integer v) {
+
+        CALLS.incrementAndGet();
+
+        return v;
+    }
+
+}
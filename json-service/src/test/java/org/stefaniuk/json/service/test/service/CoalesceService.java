@@ -0,0 +1,40 @@
+package org.stefaniuk.json.service.test.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.stefaniuk.json.service.JsonService;
+import org.stefaniuk.json.service.JsonServiceError;
+import org.stefaniuk.json.service.JsonServiceException;
+
+public class CoalesceService {
+
+    public static final AtomicInteger CALLS = new AtomicInteger();
+
+    public static volatile CountDownLatch started = new CountDownLatch(1);
+
+    public static volatile CountDownLatch gate = new CountDownLatch(0);
+
+    @JsonService(coalesce = true)
+    public List<Integer> select(Integer v) throws InterruptedException {
+
+        CALLS.incrementAndGet();
+        started.countDown();
+        gate.await();
+
+        return Arrays.asList(v, v * 2, v * 3);
+    }
+
+    @JsonService(coalesce = true)
+    public Integer fail(Integer v) throws Exception {
+
+        CALLS.incrementAndGet();
+        started.countDown();
+        gate.await();
+
+        throw new JsonServiceException(JsonServiceError.INVALID_PARAMS);
+    }
+
+}
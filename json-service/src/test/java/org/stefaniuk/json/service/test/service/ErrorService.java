@@ -1,6 +1,8 @@
 package org.stefaniuk.json.service.test.service;
 
 import org.stefaniuk.json.service.JsonService;
+import org.stefaniuk.json.service.JsonServiceError;
+import org.stefaniuk.json.service.JsonServiceException;
 
 public class ErrorService {
 
@@ -9,4 +11,10 @@ public class ErrorService {
 
     }
 
+    @JsonService
+    public void fail() throws JsonServiceException {
+
+        throw new JsonServiceException(JsonServiceError.SERVER_ERROR);
+    }
+
 }
@@ -1,6 +1,8 @@
 package org.stefaniuk.json.service.test.service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.stefaniuk.json.service.JsonService;
 import org.stefaniuk.json.service.test.bean.User;
@@ -17,4 +19,54 @@ public class ListService {
         return users;
     }
 
+    @JsonService
+    public Set<User> echoSet(Set<User> users) {
+
+        for(User user: users) {
+            user.setPassword("******");
+        }
+
+        return users;
+    }
+
+    @JsonService
+    public Map<String, User> echoMap(Map<String, User> users) {
+
+        for(User user: users.values()) {
+            user.setPassword("******");
+        }
+
+        return users;
+    }
+
+    @JsonService
+    public User[] echoArray(User[] users) {
+
+        for(User user: users) {
+            user.setPassword("******");
+        }
+
+        return users;
+    }
+
+    @JsonService
+    public Map<String, List<User>> echoNested(Map<String, List<User>> groups) {
+
+        for(List<User> users: groups.values()) {
+            echo(users);
+        }
+
+        return groups;
+    }
+
+    @JsonService
+    public List<User>[] echoGenericArray(List<User>[] groups) {
+
+        for(List<User> users: groups) {
+            echo(users);
+        }
+
+        return groups;
+    }
+
 }
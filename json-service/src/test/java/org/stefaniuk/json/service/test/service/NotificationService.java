@@ -0,0 +1,45 @@
+package org.stefaniuk.json.service.test.service;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.stefaniuk.json.service.JsonService;
+
+public class NotificationService {
+
+    public static final BlockingQueue<String> MESSAGES = new LinkedBlockingQueue<String>();
+
+    public static final BlockingQueue<String> THREADS = new LinkedBlockingQueue<String>();
+
+    public static volatile CountDownLatch started = new CountDownLatch(1);
+
+    public static volatile CountDownLatch gate = new CountDownLatch(0);
+
+    @JsonService
+    public Integer record(String message) {
+
+        MESSAGES.add(message);
+        THREADS.add(Thread.currentThread().getName());
+
+        return MESSAGES.size();
+    }
+
+    @JsonService
+    public Integer recordRequest(HttpServletRequest request, String message) {
+
+        return record(message);
+    }
+
+    @JsonService
+    public Integer block() throws InterruptedException {
+
+        started.countDown();
+        gate.await();
+
+        return 0;
+    }
+
+}
@@ -0,0 +1,22 @@
+package org.stefaniuk.json.service.test.service;
+
+import org.stefaniuk.json.service.JsonService;
+
+public class StartupService {
+
+    public static volatile boolean failing = false;
+
+    public StartupService() {
+
+        if(failing) {
+            throw new IllegalStateException("Not ready");
+        }
+    }
+
+    @JsonService
+    public String status() {
+
+        return "ready";
+    }
+
+}
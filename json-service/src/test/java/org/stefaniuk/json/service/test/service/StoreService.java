@@ -0,0 +1,33 @@
+package org.stefaniuk.json.service.test.service;
+
+import java.util.List;
+
+import org.stefaniuk.json.service.JsonService;
+import org.stefaniuk.json.service.store.QueryStore;
+import org.stefaniuk.json.service.test.bean.User;
+
+@JsonService
+public class StoreService extends AbstractStoreService<User> {
+
+    @Override
+    public List<User> select(QueryStore query) {
+
+        List<User> users = super.select(query);
+        for(User user: users) {
+            user.setPassword("******");
+        }
+
+        return users;
+    }
+
+    @Override
+    public Integer insert(User model) {
+
+        if(model.getName() == null) {
+            throw new IllegalArgumentException();
+        }
+
+        return super.insert(model);
+    }
+
+}
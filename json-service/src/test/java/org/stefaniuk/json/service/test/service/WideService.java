@@ -0,0 +1,199 @@
+package org.stefaniuk.json.service.test.service;
+
+import org.stefaniuk.json.service.JsonService;
+
+public class WideService {
+
+    @JsonService
+    public String echo(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo01(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo02(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo03(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo04(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo05(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo06(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo07(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo08(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo09(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo10(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo11(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo12(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo13(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo14(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo15(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo16(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo17(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo18(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo19(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo20(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo21(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo22(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo23(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo24(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo25(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo26(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo27(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo28(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo29(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo30(String text) {
+
+        return text;
+    }
+
+    @JsonService
+    public String echo31(String text) {
+
+        return text;
+    }
+
+}
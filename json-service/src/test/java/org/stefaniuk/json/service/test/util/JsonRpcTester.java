@@ -59,7 +59,7 @@ public class JsonRpcTester {
 
         tester = new ServletTester();
         tester.setContextPath("/");
-        tester.addServlet(JsonRpcController.class, path);
+        tester.addServlet(JsonRpcController.class, path).setAsyncSupported(true);
         tester.start();
     }
 
@@ -0,0 +1,283 @@
+package org.stefaniuk.json.service.test.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Minimal request and response objects for tests that cannot run in the
+ * Servlet 3.0 test container, e.g. of Servlet 3.1 non-blocking I/O.
+ */
+public class ServletMock {
+
+    private final String method;
+
+    private final Map<String, String> requestHeaders = new HashMap<String, String>();
+
+    private final Map<String, String> responseHeaders = new HashMap<String, String>();
+
+    private final ServletInputStream input;
+
+    private final ServletOutputStream output;
+
+    private final CountDownLatch completed = new CountDownLatch(1);
+
+    private final List<AsyncListener> listeners = new ArrayList<AsyncListener>();
+
+    private boolean asyncStarted = false;
+
+    private int status = 200;
+
+    private int contentLength = -1;
+
+    public ServletMock(String method, ServletInputStream input, ServletOutputStream output) {
+
+        this.method = method;
+        this.input = input;
+        this.output = output;
+    }
+
+    public ServletMock setRequestHeader(String name, String value) {
+
+        requestHeaders.put(name.toLowerCase(), value);
+
+        return this;
+    }
+
+    public HttpServletRequest getRequest() {
+
+        return (HttpServletRequest) proxy(HttpServletRequest.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+
+                String name = m.getName();
+                if(name.equals("getMethod")) {
+                    return method;
+                }
+                else if(name.equals("getInputStream")) {
+                    return input;
+                }
+                else if(name.equals("getHeader")) {
+                    return requestHeaders.get(((String) args[0]).toLowerCase());
+                }
+                else if(name.equals("isAsyncSupported")) {
+                    return true;
+                }
+                else if(name.equals("isAsyncStarted")) {
+                    return asyncStarted;
+                }
+                else if(name.equals("startAsync")) {
+                    asyncStarted = true;
+                    return getAsyncContext();
+                }
+
+                return defaultValue(m);
+            }
+
+        });
+    }
+
+    public HttpServletResponse getResponse() {
+
+        return (HttpServletResponse) proxy(HttpServletResponse.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+
+                String name = m.getName();
+                if(name.equals("getOutputStream")) {
+                    return output;
+                }
+                else if(name.equals("setHeader") || name.equals("addHeader")) {
+                    responseHeaders.put(((String) args[0]).toLowerCase(), (String) args[1]);
+                }
+                else if(name.equals("getHeader")) {
+                    return responseHeaders.get(((String) args[0]).toLowerCase());
+                }
+                else if(name.equals("setContentLength")) {
+                    contentLength = (Integer) args[0];
+                }
+                else if(name.equals("setContentLengthLong")) {
+                    contentLength = (int) (long) (Long) args[0];
+                }
+                else if(name.equals("setStatus")) {
+                    status = (Integer) args[0];
+                }
+                else if(name.equals("getStatus")) {
+                    return status;
+                }
+
+                return defaultValue(m);
+            }
+
+        });
+    }
+
+    private AsyncContext getAsyncContext() {
+
+        return (AsyncContext) proxy(AsyncContext.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+
+                if(m.getName().equals("complete")) {
+                    completed.countDown();
+                }
+                else if(m.getName().equals("addListener")) {
+                    listeners.add((AsyncListener) args[0]);
+                }
+
+                return defaultValue(m);
+            }
+
+        });
+    }
+
+    public void timeout() throws IOException {
+
+        for(AsyncListener listener: listeners) {
+            listener.onTimeout(null);
+        }
+    }
+
+    public boolean isAsyncStarted() {
+
+        return asyncStarted;
+    }
+
+    public boolean isCompleted() {
+
+        return completed.getCount() == 0;
+    }
+
+    public boolean awaitCompleted(long millis) throws InterruptedException {
+
+        return completed.await(millis, TimeUnit.MILLISECONDS);
+    }
+
+    public int getStatus() {
+
+        return status;
+    }
+
+    public int getContentLength() {
+
+        return contentLength;
+    }
+
+    public String getResponseHeader(String name) {
+
+        return responseHeaders.get(name.toLowerCase());
+    }
+
+    public static ServletInputStream input(final byte[] content) {
+
+        final ByteArrayInputStream is = new ByteArrayInputStream(content);
+
+        return new ServletInputStream() {
+
+            @Override
+            public int read() {
+
+                return is.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+
+                return is.read(b, off, len);
+            }
+
+            @Override
+            public boolean isFinished() {
+
+                return is.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener listener) {
+
+                throw new IllegalStateException();
+            }
+
+        };
+    }
+
+    public static ServletOutputStream output(final ByteArrayOutputStream os) {
+
+        return new ServletOutputStream() {
+
+            @Override
+            public void write(int b) {
+
+                os.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+
+                os.write(b, off, len);
+            }
+
+            @Override
+            public boolean isReady() {
+
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+
+                throw new IllegalStateException();
+            }
+
+        };
+    }
+
+    private static Object proxy(Class<?> type, InvocationHandler handler) {
+
+        return Proxy.newProxyInstance(ServletMock.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    private static Object defaultValue(Method m) {
+
+        Class<?> type = m.getReturnType();
+        if(type == boolean.class) {
+            return false;
+        }
+        else if(type == int.class) {
+            return 0;
+        }
+        else if(type == long.class) {
+            return 0L;
+        }
+
+        return null;
+    }
+
+}